@@ -0,0 +1,119 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.SyntheticCollectionCorpus.CollectionVersion;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionManifest;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Upload and listing cost over a {@link SyntheticCollectionCorpus} of 2,000 namespaces, as the repository grows to
+ * 1k, 10k and 100k versions.
+ *
+ * {@code ingest} streams one generated tarball the way an upload is handled before it reaches the database: the
+ * whole body is read, then MANIFEST.json and FILES.json are read back from it. Its {@code bytes} counter is the
+ * compressed upload rate. The listing benchmarks build the first collection list page and the version list of the
+ * most recently uploaded collection over everything uploaded so far, from the summaries and ordered versions the
+ * hosted handler reads from the store, kept in a {@link CollectionListingIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollectionCorpusBenchmark
+{
+  private static final String BASE_URL = "http://localhost:8081/repository/galaxy-hosted";
+
+  @Param({"1000", "10000", "100000"})
+  public int versions;
+
+  private SyntheticCollectionCorpus corpus;
+
+  private GalaxyResponseBuilder builder;
+
+  private CollectionListingIndex index;
+
+  private CollectionVersion last;
+
+  /**
+   * Walks the corpus in upload order, one version per ingest, starting over at the end.
+   */
+  @State(Scope.Thread)
+  public static class Uploads
+  {
+    private Iterator<CollectionVersion> versions;
+
+    CollectionVersion next(final SyntheticCollectionCorpus corpus) {
+      if (versions == null || !versions.hasNext()) {
+        versions = corpus.iterator();
+      }
+      return versions.next();
+    }
+  }
+
+  /**
+   * Per-thread counter JMH reports as a rate next to the primary result.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Bytes
+  {
+    public long bytes;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    corpus = new SyntheticCollectionCorpus(17L, 2000, 10, 200);
+    builder = new GalaxyResponseBuilder(new GalaxyMetrics(new MetricRegistry()));
+    index = new CollectionListingIndex();
+    for (CollectionVersion version : corpus) {
+      index.add(version.namespace, version.name, version.version);
+      last = version;
+      if (index.countVersions() == versions) {
+        break;
+      }
+    }
+  }
+
+  @Benchmark
+  public CollectionManifest ingest(final Uploads uploads, final Bytes counter) throws IOException {
+    CollectionVersion version = uploads.next(corpus);
+    try (InputStream in = corpus.openTarball(version)) {
+      counter.bytes += in.transferTo(OutputStream.nullOutputStream());
+    }
+    return CollectionManifestReader.readManifest(corpus.openTarball(version));
+  }
+
+  @Benchmark
+  public String collectionList() throws JsonProcessingException {
+    return builder.buildCollectionList(BASE_URL, index.browseCollections(0, 100), index.countCollections(), 0, 100);
+  }
+
+  @Benchmark
+  public String versionList() throws JsonProcessingException {
+    return builder.buildVersionList(BASE_URL, last.namespace, last.name,
+        index.versionsHighestFirst(last.namespace, last.name), 0, 100);
+  }
+}
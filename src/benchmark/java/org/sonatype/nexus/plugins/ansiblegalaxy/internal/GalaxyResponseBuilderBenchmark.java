@@ -0,0 +1,192 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.GalaxyPaginationLinks;
+import org.sonatype.nexus.repository.content.AssetBlob;
+import org.sonatype.nexus.repository.content.fluent.FluentAsset;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the response builder over synthetic repositories of 1k, 10k and 100k components.
+ *
+ * Versions per collection follow a skewed distribution: most collections have a handful of versions and a few have
+ * hundreds, with roughly one version in eight a pre-release. Each benchmark passes the builder what the hosted
+ * handler reads from the store: the first page of collection summaries, the highest version of one collection, or
+ * the versions of the collection with the most versions, highest first. Assets are plain {@link Proxy} stubs so the
+ * numbers only measure the builder itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GalaxyResponseBuilderBenchmark
+{
+  private static final String BASE_URL = "http://localhost:8081/repository/galaxy-hosted";
+
+  private static final String VERSIONS_PATH =
+      "/api/v3/plugin/ansible/content/published/collections/index/community/general/versions/";
+
+  @Param({"1000", "10000", "100000"})
+  public int components;
+
+  private GalaxyResponseBuilder builder;
+
+  private List<CollectionSummary> summaries;
+
+  private List<CollectionSummary> firstPage;
+
+  private String widestNamespace;
+
+  private String widestName;
+
+  private List<String> widestVersions;
+
+  private FluentAsset asset;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    builder = new GalaxyResponseBuilder(new GalaxyMetrics(new MetricRegistry()));
+    summaries = new ArrayList<>();
+    widestVersions = Collections.emptyList();
+
+    Random random = new Random(42);
+    int generated = 0;
+    int collection = 0;
+    while (generated < components) {
+      String namespace = "ns" + (collection % 97);
+      String name = "collection" + collection;
+      collection++;
+
+      // 1 - 1024 versions, most collections at the low end
+      int fanOut = Math.min(components - generated, 1 << random.nextInt(11));
+      List<String> versions = new ArrayList<>(fanOut);
+      for (int i = 0; i < fanOut; i++) {
+        String version = (i / 100) + "." + (i / 10 % 10) + "." + (i % 10);
+        if (random.nextInt(8) == 0) {
+          version += "-rc." + (1 + random.nextInt(3));
+        }
+        versions.add(version);
+      }
+      generated += fanOut;
+      // every generated version is valid, so the first one sorted is the highest
+      versions.sort(GalaxySemver.HIGHEST_FIRST);
+      summaries.add(new CollectionSummary(namespace, name, versions.get(0), versions.size()));
+
+      if (versions.size() > widestVersions.size()) {
+        widestNamespace = namespace;
+        widestName = name;
+        widestVersions = versions;
+      }
+    }
+
+    // the store pages summaries ordered by namespace and name
+    summaries.sort(Comparator.comparing(CollectionSummary::getNamespace).thenComparing(CollectionSummary::getName));
+    firstPage = new ArrayList<>(summaries.subList(0, Math.min(100, summaries.size())));
+    asset = asset();
+  }
+
+  @Benchmark
+  public String buildCollectionList() throws JsonProcessingException {
+    return builder.buildCollectionList(BASE_URL, firstPage, summaries.size(), 0, 100);
+  }
+
+  @Benchmark
+  public String buildCollectionDetail() throws JsonProcessingException {
+    return builder.buildCollectionDetail(BASE_URL, widestNamespace, widestName, widestVersions.get(0));
+  }
+
+  @Benchmark
+  public String buildVersionList() throws JsonProcessingException {
+    return builder.buildVersionList(BASE_URL, widestNamespace, widestName, widestVersions, 0, 100);
+  }
+
+  @Benchmark
+  public String buildVersionDetail() throws JsonProcessingException {
+    return builder.buildVersionDetail(BASE_URL, "community", "general", "9.4.0", asset);
+  }
+
+  @Benchmark
+  public GalaxyPaginationLinks buildLinks() {
+    return builder.buildLinks(BASE_URL, VERSIONS_PATH, components, 100, 100);
+  }
+
+  private static FluentAsset asset() {
+    Map<String, String> checksums = new LinkedHashMap<>();
+    checksums.put("sha256", "2b5c1f6d0d39a6f0c05e5d6b2ea4e1b5f0b3b8a6c2f4e0e7d9a1c3b5d7f9e1a3");
+    checksums.put("sha1", "0d39a6f0c05e5d6b2ea4e1b5f0b3b8a6c2f4e0e7");
+    AssetBlob blob = stub(AssetBlob.class, method -> {
+      switch (method) {
+        case "checksums":
+          return checksums;
+        case "blobSize":
+          return 512_000L;
+        default:
+          return null;
+      }
+    });
+
+    Map<String, Object> collectionInfo = new LinkedHashMap<>();
+    collectionInfo.put("namespace", "community");
+    collectionInfo.put("name", "general");
+    collectionInfo.put("version", "9.4.0");
+    collectionInfo.put("authors", Collections.singletonList("Ansible (https://github.com/ansible)"));
+    collectionInfo.put("description", "Modules and plugins supported by the Ansible community");
+    collectionInfo.put("license", Collections.singletonList("GPL-3.0-or-later"));
+    collectionInfo.put("tags", List.of("community", "general", "modules"));
+    collectionInfo.put("dependencies", Collections.emptyMap());
+    collectionInfo.put("repository", "https://github.com/ansible-collections/community.general");
+    Map<String, Object> manifest = new LinkedHashMap<>();
+    manifest.put("collection_info", collectionInfo);
+    manifest.put("format", 1);
+
+    Map<String, Object> backing = new LinkedHashMap<>();
+    NestedAttributesMap attributes = new NestedAttributesMap("attributes", backing);
+    attributes.child(AnsibleGalaxyFormat.NAME).set(CollectionAttributes.MANIFEST, manifest);
+
+    return stub(FluentAsset.class, method -> {
+      switch (method) {
+        case "blob":
+          return Optional.of(blob);
+        case "attributes":
+          return attributes;
+        default:
+          return null;
+      }
+    });
+  }
+
+  private static <T> T stub(final Class<T> type, final Function<String, Object> answers) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+        (proxy, method, args) -> answers.apply(method.getName())));
+  }
+}
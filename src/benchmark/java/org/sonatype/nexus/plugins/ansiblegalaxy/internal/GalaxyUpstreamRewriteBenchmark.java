@@ -0,0 +1,264 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricRegistry;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of rewriting upstream URLs in proxied metadata responses, from the raw response bytes to the rewritten JSON.
+ *
+ * {@code replace} is the current path: decode the whole body, then {@link String#replace}. {@code streaming}
+ * rewrites while decoding, so the unrewritten body is never materialized. {@code passthrough} only decodes and is
+ * the floor for both. Payloads follow the shape of galaxy.ansible.com v3 responses: a 100 entry version list, a 100
+ * entry collection list page and a version detail carrying a full manifest.
+ *
+ * Throughput mode reports {@code bytes} as response bytes per second; sample time mode reports latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GalaxyUpstreamRewriteBenchmark
+{
+  private static final String UPSTREAM = "https://galaxy.ansible.com";
+
+  private static final String REPO_URL = "http://localhost:8081/repository/galaxy-proxy";
+
+  @Param({"version-list", "collection-list", "version-detail"})
+  public String payload;
+
+  private GalaxyUpstreamClient client;
+
+  private byte[] body;
+
+  private String upstreamFull;
+
+  private String localFull;
+
+  /**
+   * Per-thread counter JMH reports as a rate next to the primary result.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Bytes
+  {
+    public long bytes;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    client = new GalaxyUpstreamClient(new GalaxyMetrics(new MetricRegistry()));
+    upstreamFull = UPSTREAM + GalaxyUpstreamClient.UPSTREAM_PREFIX;
+    localFull = REPO_URL + GalaxyUpstreamClient.UPSTREAM_PREFIX;
+
+    switch (payload) {
+      case "version-list":
+        body = versionList(100).getBytes(StandardCharsets.UTF_8);
+        break;
+      case "collection-list":
+        body = collectionList(100).getBytes(StandardCharsets.UTF_8);
+        break;
+      case "version-detail":
+        body = versionDetail(250).getBytes(StandardCharsets.UTF_8);
+        break;
+      default:
+        throw new IllegalArgumentException(payload);
+    }
+
+    if (!replace(new Bytes()).equals(streaming(new Bytes()))) {
+      throw new IllegalStateException("Streaming rewrite differs from String.replace for " + payload);
+    }
+  }
+
+  @Benchmark
+  public String passthrough(final Bytes counter) {
+    counter.bytes += body.length;
+    return new String(body, StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public String replace(final Bytes counter) {
+    counter.bytes += body.length;
+    return client.rewriteUrls(new String(body, StandardCharsets.UTF_8), UPSTREAM, REPO_URL);
+  }
+
+  @Benchmark
+  public String streaming(final Bytes counter) throws IOException {
+    counter.bytes += body.length;
+    try (Reader reader = new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8)) {
+      return StreamingRewriter.rewrite(reader, upstreamFull, localFull, body.length);
+    }
+  }
+
+  /**
+   * Replaces every occurrence of a pattern while reading, using Knuth-Morris-Pratt so a match split across read
+   * buffers, or a partial match that fails, never needs the input to be re-read. Matches are taken left to right
+   * without overlap, like {@link String#replace}.
+   */
+  static final class StreamingRewriter
+  {
+    private StreamingRewriter() {
+    }
+
+    static String rewrite(final Reader reader, final String pattern, final String replacement, final int sizeHint)
+        throws IOException
+    {
+      char[] p = pattern.toCharArray();
+      int[] fail = failureTable(p);
+      StringBuilder out = new StringBuilder(sizeHint + sizeHint / 8);
+      char[] buffer = new char[8192];
+      int matched = 0;
+      int read;
+      while ((read = reader.read(buffer)) != -1) {
+        int flushed = 0;
+        for (int i = 0; i < read; i++) {
+          char c = buffer[i];
+          if (matched == 0 && c != p[0]) {
+            continue;
+          }
+          if (matched == 0) {
+            out.append(buffer, flushed, i - flushed);
+          }
+          while (matched > 0 && c != p[matched]) {
+            int fallback = fail[matched - 1];
+            out.append(p, 0, matched - fallback);
+            matched = fallback;
+          }
+          if (c == p[matched]) {
+            matched++;
+            if (matched == p.length) {
+              out.append(replacement);
+              matched = 0;
+            }
+          }
+          else {
+            out.append(c);
+          }
+          flushed = i + 1;
+        }
+        if (matched == 0) {
+          out.append(buffer, flushed, read - flushed);
+        }
+      }
+      out.append(p, 0, matched);
+      return out.toString();
+    }
+
+    private static int[] failureTable(final char[] p) {
+      int[] fail = new int[p.length];
+      int k = 0;
+      for (int i = 1; i < p.length; i++) {
+        while (k > 0 && p[i] != p[k]) {
+          k = fail[k - 1];
+        }
+        if (p[i] == p[k]) {
+          k++;
+        }
+        fail[i] = k;
+      }
+      return fail;
+    }
+  }
+
+  private static String versionList(final int count) {
+    String versions = UPSTREAM + GalaxyUpstreamClient.UPSTREAM_PREFIX
+        + "/collections/index/community/general/versions/";
+    StringBuilder json = new StringBuilder();
+    json.append("{\"meta\":{\"count\":").append(count * 3).append("},\"links\":{")
+        .append("\"first\":\"").append(versions).append("?limit=100&offset=0\",")
+        .append("\"previous\":null,")
+        .append("\"next\":\"").append(versions).append("?limit=100&offset=100\",")
+        .append("\"last\":\"").append(versions).append("?limit=100&offset=200\"},\"data\":[");
+    for (int i = 0; i < count; i++) {
+      String version = (9 - i / 50) + "." + (i / 10 % 5) + "." + (i % 10);
+      json.append(i > 0 ? "," : "")
+          .append("{\"version\":\"").append(version).append("\",")
+          .append("\"href\":\"").append(versions).append(version).append("/\",")
+          .append("\"created_at\":\"2024-0").append(1 + i % 9).append("-14T09:21:53.417911Z\",")
+          .append("\"updated_at\":\"2024-0").append(1 + i % 9).append("-14T09:22:08.012345Z\",")
+          .append("\"requires_ansible\":\">=2.13.0\",\"marks\":[]}");
+    }
+    return json.append("]}").toString();
+  }
+
+  private static String collectionList(final int count) {
+    String index = UPSTREAM + GalaxyUpstreamClient.UPSTREAM_PREFIX + "/collections/index/";
+    StringBuilder json = new StringBuilder();
+    json.append("{\"meta\":{\"count\":31415},\"links\":{")
+        .append("\"first\":\"").append(index).append("?limit=100&offset=0\",")
+        .append("\"previous\":\"").append(index).append("?limit=100&offset=100\",")
+        .append("\"next\":\"").append(index).append("?limit=100&offset=300\",")
+        .append("\"last\":\"").append(index).append("?limit=100&offset=31400\"},\"data\":[");
+    for (int i = 0; i < count; i++) {
+      String namespace = "namespace_" + (i % 37);
+      String name = "collection_" + i;
+      String collection = index + namespace + "/" + name + "/";
+      String version = (i % 7) + "." + (i % 13) + ".0";
+      json.append(i > 0 ? "," : "")
+          .append("{\"href\":\"").append(collection).append("\",")
+          .append("\"namespace\":\"").append(namespace).append("\",")
+          .append("\"name\":\"").append(name).append("\",")
+          .append("\"deprecated\":false,")
+          .append("\"versions_url\":\"").append(collection).append("versions/\",")
+          .append("\"highest_version\":{\"href\":\"").append(collection).append("versions/").append(version)
+          .append("/\",\"version\":\"").append(version).append("\"},")
+          .append("\"created_at\":\"2023-11-02T17:45:10.118Z\",\"updated_at\":\"2024-05-30T08:12:44.991Z\",")
+          .append("\"download_count\":").append(1000 + i * 7919).append('}');
+    }
+    return json.append("]}").toString();
+  }
+
+  private static String versionDetail(final int plugins) {
+    String collection = UPSTREAM + GalaxyUpstreamClient.UPSTREAM_PREFIX + "/collections/index/community/general/";
+    StringBuilder contents = new StringBuilder();
+    StringBuilder files = new StringBuilder();
+    for (int i = 0; i < plugins; i++) {
+      String name = "plugin_" + i;
+      contents.append(i > 0 ? "," : "")
+          .append("{\"name\":\"").append(name).append("\",")
+          .append("\"description\":\"Manage the ").append(name).append(" resource on remote hosts\",")
+          .append("\"content_type\":\"").append(i % 5 == 0 ? "lookup" : "module").append("\"}");
+      files.append(i > 0 ? "," : "")
+          .append("{\"name\":\"plugins/modules/").append(name).append(".py\",\"ftype\":\"file\",")
+          .append("\"chksum_type\":\"sha256\",\"chksum_sha256\":\"")
+          .append(String.format("%064x", (long) i * 0x9E3779B97F4A7C15L)).append("\",\"format\":1}");
+    }
+    return "{\"href\":\"" + collection + "versions/9.4.0/\","
+        + "\"namespace\":{\"name\":\"community\",\"metadata_sha256\":\"a1b2c3\"},"
+        + "\"name\":\"general\",\"version\":\"9.4.0\",\"requires_ansible\":\">=2.13.0\","
+        + "\"download_url\":\"" + UPSTREAM + GalaxyUpstreamClient.UPSTREAM_PREFIX
+        + "/collections/artifacts/community-general-9.4.0.tar.gz\","
+        + "\"artifact\":{\"filename\":\"community-general-9.4.0.tar.gz\","
+        + "\"sha256\":\"5f4e3d2c1b0a99887766554433221100ffeeddccbbaa99887766554433221100\",\"size\":2813467},"
+        + "\"collection\":{\"id\":\"0c2e6a52\",\"name\":\"general\",\"href\":\"" + collection + "\"},"
+        + "\"metadata\":{\"authors\":[\"Ansible (https://github.com/ansible)\"],\"contents\":[" + contents + "],"
+        + "\"dependencies\":{},\"description\":\"Modules and plugins supported by the Ansible community\","
+        + "\"documentation\":\"https://docs.ansible.com/ansible/latest/collections/community/general/\","
+        + "\"homepage\":\"https://github.com/ansible-collections/community.general\","
+        + "\"issues\":\"https://github.com/ansible-collections/community.general/issues\","
+        + "\"license\":[\"GPL-3.0-or-later\"],\"repository\":\"https://github.com/ansible-collections/community.general\","
+        + "\"tags\":[\"community\"]},"
+        + "\"files\":{\"files\":[" + files + "],\"format\":1}}";
+  }
+}
@@ -1,8 +1,11 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.datastore;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
 import org.sonatype.nexus.repository.Facet.Exposed;
 import org.sonatype.nexus.repository.content.facet.ContentFacet;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
@@ -21,6 +24,29 @@ public interface AnsibleGalaxyContentFacet extends ContentFacet {
    */
   Optional<Content> get(String path);
 
+  /**
+   * Retrieves the asset at the given path without opening its blob.
+   */
+  Optional<FluentAsset> getAsset(String path);
+
+  /**
+   * Returns false when the repository definitely has no version of the collection, without querying the database.
+   * A true answer may be a false positive.
+   */
+  boolean mayContainCollection(String namespace, String name);
+
+  /**
+   * Returns false when the repository definitely has no collection tarball at the given path, without querying the
+   * database. A true answer may be a false positive.
+   */
+  boolean mayContainTarball(String path);
+
+  /**
+   * Adds a version stored without going through this facet, such as one restored by a repair task, to the collection
+   * filter.
+   */
+  void rememberVersion(String namespace, String name, String version);
+
   /**
    * Stores a collection tar.gz, extracting MANIFEST.json to determine namespace/name/version.
    * Returns the stored asset.
@@ -33,11 +59,63 @@ public interface AnsibleGalaxyContentFacet extends ContentFacet {
   FluentAsset putCollection(String path, Payload payload,
                             String namespace, String name, String version) throws IOException;
 
+  /**
+   * Builds the docs-blob of a stored collection version from its tarball and stores it as a sidecar asset of the
+   * same component. Returns false when the tarball does not exist.
+   */
+  boolean putDocs(String namespace, String name, String version) throws IOException;
+
+  /**
+   * Sets the last downloaded time of the assets with the given internal ids to now and counts one more download for
+   * each, in a single update. Returns the number of assets updated.
+   */
+  int markAssetsDownloaded(int[] assetIds);
+
+  /**
+   * Deletes collection tarballs while together they take more than {@code quotaBytes}, at most {@code limit} per
+   * call. The least recently downloaded tarballs are considered first and, among those, the least often downloaded
+   * go first. The highest version of each collection is always kept. Returns the number of tarballs deleted.
+   */
+  int evictTarballs(long quotaBytes, int limit);
+
   /**
    * Deletes the asset at the given path.
    */
   boolean delete(String path);
 
+  /**
+   * Deletes every version of a collection, removing components and their assets in batches.
+   * Returns the number of versions deleted.
+   */
+  int deleteCollection(String namespace, String name);
+
+  /**
+   * Deletes the versions of a collection accepted by the filter, removing components and their assets in batches.
+   * Returns the number of versions deleted.
+   */
+  int deleteVersions(String namespace, String name, Predicate<String> versionFilter);
+
+  /**
+   * Returns the versions of a collection, highest first, ordered by the persisted semantic version sort key.
+   * Versions that are not semantic versions come last. Returns an empty list when the collection does not exist.
+   */
+  List<String> versionsHighestFirst(String namespace, String name);
+
+  /**
+   * Returns the number of collections in the repository.
+   */
+  int countCollections();
+
+  /**
+   * Returns a page of collection summaries, ordered by namespace and name.
+   */
+  List<CollectionSummary> browseCollections(int offset, int limit);
+
+  /**
+   * Returns the summary of a collection, if the repository has any version of it.
+   */
+  Optional<CollectionSummary> getCollection(String namespace, String name);
+
   /**
    * Returns all collection assets in the repository.
    */
@@ -0,0 +1,100 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.lifecycle.LifecycleSupport;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.TASKS;
+
+/**
+ * Keeps proxy repositories with a cache quota (see {@link AnsibleGalaxyCacheQuotaFacet}) within it.
+ *
+ * Every {@code nexus.ansiblegalaxy.cacheQuota.interval} (default 1m) each registered repository over its quota has
+ * up to {@code nexus.ansiblegalaxy.cacheQuota.batchSize} (default 100) tarballs evicted, so a repository far over its
+ * quota, for example after the quota was lowered, is brought back in steps instead of one long burst of deletes.
+ * Enforcement starts with the Nexus tasks phase and stops with it, interrupting a run in progress.
+ */
+@Named
+@Singleton
+@ManagedLifecycle(phase = TASKS)
+public class AnsibleGalaxyCacheQuotaEnforcer
+    extends LifecycleSupport
+{
+  private final Map<Repository, Long> quotas = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService scheduler;
+
+  private final long intervalMillis;
+
+  private final int batchSize;
+
+  @Inject
+  public AnsibleGalaxyCacheQuotaEnforcer(
+      @Named("${nexus.ansiblegalaxy.cacheQuota.interval:-1m}") final Time interval,
+      @Named("${nexus.ansiblegalaxy.cacheQuota.batchSize:-100}") final int batchSize)
+  {
+    this(Executors.newSingleThreadScheduledExecutor(
+        new NexusThreadFactory("ansible-galaxy-quota", "cache-quota")), interval.toMillis(), batchSize);
+  }
+
+  AnsibleGalaxyCacheQuotaEnforcer(final ScheduledExecutorService scheduler,
+                                  final long intervalMillis,
+                                  final int batchSize)
+  {
+    this.scheduler = scheduler;
+    this.intervalMillis = intervalMillis;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  protected void doStart() {
+    scheduler.scheduleWithFixedDelay(this::enforce, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected void doStop() {
+    scheduler.shutdownNow();
+  }
+
+  public void register(final Repository repository, final long quotaBytes) {
+    quotas.put(repository, quotaBytes);
+  }
+
+  public void unregister(final Repository repository) {
+    quotas.remove(repository);
+  }
+
+  /**
+   * Evicts one batch from every repository over its quota. A failing repository is logged and retried on the next
+   * run.
+   */
+  void enforce() {
+    for (Entry<Repository, Long> entry : quotas.entrySet()) {
+      Repository repository = entry.getKey();
+      try {
+        int evicted = repository.facet(AnsibleGalaxyContentFacet.class).evictTarballs(entry.getValue(), batchSize);
+        if (evicted > 0) {
+          log.info("Evicted {} collection tarballs from {} to keep it within its {} byte quota", evicted,
+              repository.getName(), entry.getValue());
+        }
+      }
+      catch (Exception e) {
+        log.warn("Unable to enforce the cache quota of {}", repository.getName(), e);
+      }
+    }
+  }
+}
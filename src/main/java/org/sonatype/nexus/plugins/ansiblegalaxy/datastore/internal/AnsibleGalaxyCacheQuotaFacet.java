@@ -0,0 +1,57 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.sonatype.nexus.repository.FacetSupport;
+import org.sonatype.nexus.repository.config.Configuration;
+
+/**
+ * Caps the bytes of collection tarballs a proxy repository keeps, read from the {@value #CACHE_QUOTA_BYTES}
+ * attribute of its {@value #CONFIG_KEY} configuration. No quota, or one of 0, leaves the cache unbounded.
+ *
+ * While started with a quota the repository is registered with the {@link AnsibleGalaxyCacheQuotaEnforcer}, which
+ * evicts tarballs in the background; the quota can therefore be exceeded until its next run.
+ */
+@Named
+public class AnsibleGalaxyCacheQuotaFacet
+    extends FacetSupport
+{
+  public static final String CONFIG_KEY = "ansibleGalaxy";
+
+  public static final String CACHE_QUOTA_BYTES = "cacheQuotaBytes";
+
+  private final AnsibleGalaxyCacheQuotaEnforcer enforcer;
+
+  private long quotaBytes;
+
+  @Inject
+  public AnsibleGalaxyCacheQuotaFacet(final AnsibleGalaxyCacheQuotaEnforcer enforcer) {
+    this.enforcer = enforcer;
+  }
+
+  @Override
+  protected void doConfigure(final Configuration configuration) throws Exception {
+    super.doConfigure(configuration);
+    Number quota = configuration.attributes(CONFIG_KEY).get(CACHE_QUOTA_BYTES, Number.class);
+    quotaBytes = quota != null ? Math.max(0, quota.longValue()) : 0;
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    super.doStart();
+    if (quotaBytes > 0) {
+      enforcer.register(getRepository(), quotaBytes);
+    }
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    enforcer.unregister(getRepository());
+    super.doStop();
+  }
+
+  long getQuotaBytes() {
+    return quotaBytes;
+  }
+}
@@ -0,0 +1,87 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.lifecycle.Lifecycle;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.common.event.EventAware;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.repository.content.Component;
+import org.sonatype.nexus.repository.content.event.component.ComponentCreatedEvent;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
+
+/**
+ * Keeps the collection filters of hosted repositories current outside of the request path.
+ *
+ * Filters that have outgrown their size are rebuilt on a single background thread shared by all repositories, so
+ * uploads and deletes never wait for a full component scan; the current filter keeps answering until the rebuilt one
+ * is swapped in. Components created without going through the content facet, such as those restored by reconcile or
+ * repair tasks, are added to the filter when their creation event arrives, so they stop answering {@code 404}.
+ */
+@Named
+@Singleton
+@ManagedLifecycle(phase = SERVICES)
+public class AnsibleGalaxyCollectionFilterRebuilder
+    extends ComponentSupport
+    implements Lifecycle, EventAware
+{
+  private final ExecutorService executor;
+
+  @Inject
+  public AnsibleGalaxyCollectionFilterRebuilder() {
+    this(Executors.newSingleThreadExecutor(new NexusThreadFactory("ansible-galaxy-filter", "filter-rebuild")));
+  }
+
+  AnsibleGalaxyCollectionFilterRebuilder(final ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public void start() {
+    // the rebuild thread is created with the rebuilder
+  }
+
+  @Override
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Queues a filter rebuild. Returns false when it cannot be queued because Nexus is shutting down.
+   */
+  public boolean submit(final Runnable rebuild) {
+    try {
+      executor.execute(rebuild);
+      return true;
+    }
+    catch (RejectedExecutionException e) {
+      log.debug("Not rebuilding collection filter, rebuilder is stopped");
+      return false;
+    }
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final ComponentCreatedEvent event) {
+    if (!AnsibleGalaxyFormat.NAME.equals(event.getFormat())) {
+      return;
+    }
+    Component component = event.getComponent();
+    event.getRepository()
+        .flatMap(repository -> repository.optionalFacet(AnsibleGalaxyContentFacet.class))
+        .ifPresent(facet -> facet.rememberVersion(component.namespace(), component.name(), component.version()));
+  }
+}
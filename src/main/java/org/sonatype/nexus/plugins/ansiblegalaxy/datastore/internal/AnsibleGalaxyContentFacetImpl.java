@@ -1,32 +1,58 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import com.google.common.util.concurrent.Striped;
 
+import org.sonatype.nexus.common.entity.Continuation;
+import org.sonatype.nexus.common.entity.EntityId;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.store.AnsibleGalaxyAssetStore;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.store.AnsibleGalaxyComponentStore;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.store.CachedTarball;
 import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.CollectionBloomFilter;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.CollectionAttributes;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.CollectionDocsReader;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.CollectionManifestReader;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.FileChannelPayload;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxySemver;
 import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionInfo;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionManifest;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
 import org.sonatype.nexus.repository.Facet.Exposed;
+import org.sonatype.nexus.repository.content.AssetBlob;
+import org.sonatype.nexus.repository.content.Component;
 import org.sonatype.nexus.repository.content.facet.ContentFacetSupport;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
 import org.sonatype.nexus.repository.content.fluent.FluentComponent;
+import org.sonatype.nexus.repository.content.maintenance.ContentMaintenanceFacet;
+import org.sonatype.nexus.repository.content.store.ComponentData;
 import org.sonatype.nexus.repository.content.store.FormatStoreManager;
+import org.sonatype.nexus.repository.types.HostedType;
 import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.ContentTypes;
 import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
 import org.sonatype.nexus.repository.view.payloads.TempBlob;
 
 import static java.util.Arrays.asList;
+import static org.sonatype.nexus.repository.content.store.InternalIds.internalComponentId;
+import static org.sonatype.nexus.repository.content.store.InternalIds.toExternalId;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA256;
 
 /**
@@ -38,43 +64,183 @@ import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA256;
 public class AnsibleGalaxyContentFacetImpl extends ContentFacetSupport
     implements org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet {
 
-  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
-
   private static final String ASSET_KIND = "collection-tarball";
 
+  private static final String DOCS_ASSET_KIND = "collection-docs";
+
+  private static final String FILES_ASSET_KIND = "collection-files";
+
+  private static final int SEMVER_BACKFILL_BATCH_SIZE = 1000;
+
+  private static final int COLLECTION_FILTER_BATCH_SIZE = 1000;
+
+  private static final int VERSION_LOCK_STRIPES = 256;
+
+  /**
+   * How many least recently downloaded tarballs, per tarball that may be evicted, are compared by download count.
+   */
+  private static final int EVICTION_WINDOW = 4;
+
+  private final AnsibleGalaxyDocsExtractor docsExtractor;
+
+  private final AnsibleGalaxyFileBlobResolver fileBlobResolver;
+
+  private final AnsibleGalaxyMemoryTier memoryTier;
+
+  private final AnsibleGalaxyCollectionFilterRebuilder filterRebuilder;
+
+  /**
+   * Serializes writes to the same collection version, keyed by tarball path. Without it, concurrent uploads of one
+   * version race in getOrCreate and both try to insert the component, and a delete can remove the component between
+   * an upload creating it and saving its asset.
+   *
+   * Writes to different versions of one collection take different stripes and run concurrently. The only state they
+   * share is the collection summary, which the component store refreshes under the summary row's own lock.
+   */
+  private final Striped<Lock> versionLocks = Striped.lock(VERSION_LOCK_STRIPES);
+
+  private final ReentrantLock collectionFilterRebuild = new ReentrantLock();
+
+  private final AtomicBoolean collectionFilterRebuildQueued = new AtomicBoolean();
+
+  /**
+   * Filter of stored collections and tarballs; null until built, in which case every lookup goes to the database.
+   */
+  @Nullable
+  private volatile CollectionBloomFilter collectionFilter;
+
+  /**
+   * Filter being filled by a rebuild, so versions stored while the rebuild scans are not lost when it is swapped in.
+   */
+  @Nullable
+  private volatile CollectionBloomFilter rebuildingFilter;
+
   @Inject
   public AnsibleGalaxyContentFacetImpl(
-      @Named(AnsibleGalaxyFormat.NAME) final FormatStoreManager formatStoreManager) {
+      @Named(AnsibleGalaxyFormat.NAME) final FormatStoreManager formatStoreManager,
+      final AnsibleGalaxyDocsExtractor docsExtractor,
+      final AnsibleGalaxyFileBlobResolver fileBlobResolver,
+      final AnsibleGalaxyMemoryTier memoryTier,
+      final AnsibleGalaxyCollectionFilterRebuilder filterRebuilder) {
     super(formatStoreManager);
+    this.docsExtractor = docsExtractor;
+    this.fileBlobResolver = fileBlobResolver;
+    this.memoryTier = memoryTier;
+    this.filterRebuilder = filterRebuilder;
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    super.doStart();
+    backfillSemverKeys();
+    // summaries are kept current on every component change, so they only need building when the table was just
+    // created for content stored before them
+    if (componentStore().countCollectionSummaries(contentRepositoryId()) == 0) {
+      componentStore().rebuildCollectionSummaries(contentRepositoryId());
+    }
+    // only hosted repositories answer misses locally, proxies must still ask upstream
+    if (HostedType.NAME.equals(getRepository().getType().getValue())) {
+      rebuildCollectionFilter();
+    }
+  }
+
+  @Override
+  public void rememberVersion(final String namespace, final String name, final String version) {
+    rememberTarball(namespace, name, buildAssetPath(namespace, name, version));
+  }
+
+  @Override
+  public boolean mayContainCollection(final String namespace, final String name) {
+    CollectionBloomFilter filter = collectionFilter;
+    return filter == null || filter.mightContainCollection(namespace, name);
+  }
+
+  @Override
+  public boolean mayContainTarball(final String path) {
+    CollectionBloomFilter filter = collectionFilter;
+    return filter == null || filter.mightContainTarball(path);
   }
 
   @Override
   public Optional<Content> get(final String path) {
-    return assets().path(path).find().map(FluentAsset::download);
+    return assets().path(path).find().map(this::download);
+  }
+
+  /**
+   * Downloads an asset. Tarballs held by the memory tier are served from memory; others kept in a file blob store
+   * are served straight from their file so the response body can be written with
+   * {@link java.nio.channels.FileChannel#transferTo} instead of copied through heap buffers.
+   */
+  private Content download(final FluentAsset asset) {
+    Optional<AssetBlob> blob = asset.blob();
+    if (!ASSET_KIND.equals(asset.kind()) || !blob.isPresent()) {
+      return asset.download();
+    }
+    String blobRef = blob.get().blobRef().toString();
+    if (memoryTier.isEnabled()) {
+      Optional<Content> held = memoryTier.get(getRepository().getName(), asset, blobRef);
+      if (held.isPresent()) {
+        return held.get();
+      }
+    }
+
+    Content content = asset.download();
+    Optional<Path> file = fileBlobResolver.contentPath(blob.get());
+    if (file.isPresent()) {
+      Content direct = new Content(new FileChannelPayload(file.get(), content.getSize(), content.getContentType()));
+      // keep the last modified, etag and checksum attributes conditional and range requests rely on
+      content.getAttributes().entries()
+          .forEach(entry -> direct.getAttributes().set(entry.getKey(), entry.getValue()));
+      content = direct;
+    }
+    return memoryTier.isEnabled() ? memoryTier.offer(getRepository().getName(), asset, blobRef, content) : content;
+  }
+
+  @Override
+  public Optional<FluentAsset> getAsset(final String path) {
+    return assets().path(path).find();
   }
 
   @Override
   public FluentAsset putCollection(final Payload payload) throws IOException {
     try (TempBlob tempBlob = blobs().ingest(payload, asList(SHA256))) {
-      CollectionInfo info = extractCollectionInfo(tempBlob);
+      CollectionManifest manifest = extractManifest(tempBlob);
+      CollectionInfo info = manifest != null ? manifest.getCollectionInfo() : null;
       if (info == null || info.getNamespace() == null || info.getName() == null || info.getVersion() == null) {
         throw new IOException("Unable to extract collection metadata from MANIFEST.json");
       }
 
       String path = buildAssetPath(info.getNamespace(), info.getName(), info.getVersion());
 
-      FluentComponent component = components()
-          .name(info.getName())
-          .namespace(info.getNamespace())
-          .version(info.getVersion())
-          .getOrCreate();
+      FluentAsset asset;
+      Lock lock = lockVersion(path);
+      try {
+        FluentComponent component = components()
+            .name(info.getName())
+            .namespace(info.getNamespace())
+            .version(info.getVersion())
+            .getOrCreate();
 
-      return assets()
-          .path(path)
-          .kind(ASSET_KIND)
-          .component(component)
-          .blob(tempBlob)
-          .save();
+        asset = assets()
+            .path(path)
+            .kind(ASSET_KIND)
+            .component(component)
+            .blob(tempBlob)
+            .save();
+        asset = withManifestAttributes(asset, manifest);
+        rememberTarball(info.getNamespace(), info.getName(), path);
+
+        if (manifest.getFilesIndex() != null) {
+          putSidecar(buildFilesPath(info.getNamespace(), info.getName(), info.getVersion()), FILES_ASSET_KIND,
+              component, new BytesPayload(manifest.getFilesIndex(), ContentTypes.TEXT_PLAIN));
+        }
+      }
+      finally {
+        lock.unlock();
+      }
+
+      docsExtractor.submit(getRepository(), info.getNamespace(), info.getName(), info.getVersion());
+      return asset;
     }
   }
 
@@ -83,29 +249,218 @@ public class AnsibleGalaxyContentFacetImpl extends ContentFacetSupport
                                    final String namespace, final String name,
                                    final String version) throws IOException {
     try (TempBlob tempBlob = blobs().ingest(payload, asList(SHA256))) {
-      FluentComponent component = components()
-          .name(name)
-          .namespace(namespace)
-          .version(version)
-          .getOrCreate();
+      CollectionManifest manifest = readManifestQuietly(tempBlob, path);
+
+      Lock lock = lockVersion(path);
+      try {
+        FluentComponent component = components()
+            .name(name)
+            .namespace(namespace)
+            .version(version)
+            .getOrCreate();
+
+        FluentAsset asset = assets()
+            .path(path)
+            .kind(ASSET_KIND)
+            .component(component)
+            .blob(tempBlob)
+            .save();
+        rememberTarball(namespace, name, path);
+        return withManifestAttributes(asset, manifest);
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  @Override
+  public boolean putDocs(final String namespace, final String name, final String version) throws IOException {
+    String path = buildAssetPath(namespace, name, version);
+    Optional<FluentAsset> tarball = getAsset(path);
+    Optional<Component> component = tarball.flatMap(FluentAsset::component);
+    if (!component.isPresent()) {
+      return false;
+    }
+
+    byte[] docsBlob;
+    try (InputStream in = tarball.get().download().openInputStream()) {
+      docsBlob = CollectionDocsReader.readDocsBlob(in);
+    }
 
-      return assets()
+    Lock lock = lockVersion(path);
+    try {
+      // the version may have been deleted while its docs were read
+      if (!getAsset(path).isPresent()) {
+        return false;
+      }
+      putSidecar(buildDocsPath(namespace, name, version), DOCS_ASSET_KIND, component.get(),
+          new BytesPayload(docsBlob, ContentTypes.APPLICATION_JSON));
+      return true;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stores derived content of a collection version as a separate asset of its component, so it is removed with
+   * the component and never makes readers open the tarball.
+   */
+  private void putSidecar(final String path,
+                          final String kind,
+                          final Component component,
+                          final Payload payload) throws IOException
+  {
+    try (TempBlob tempBlob = blobs().ingest(payload, asList(SHA256))) {
+      assets()
           .path(path)
-          .kind(ASSET_KIND)
+          .kind(kind)
           .component(component)
           .blob(tempBlob)
           .save();
     }
   }
 
+  @Override
+  public int markAssetsDownloaded(final int[] assetIds) {
+    return assetStore().markAssetsDownloaded(assetIds, OffsetDateTime.now());
+  }
+
+  @Override
+  public int evictTarballs(final long quotaBytes, final int limit) {
+    long used = assetStore().sumBlobSizes(contentRepositoryId(), ASSET_KIND);
+    if (used <= quotaBytes) {
+      return 0;
+    }
+
+    List<CachedTarball> candidates = new ArrayList<>(
+        assetStore().browseEvictionCandidates(contentRepositoryId(), ASSET_KIND, limit * EVICTION_WINDOW));
+    // the sort is stable, so tarballs downloaded equally often still go least recently downloaded first
+    candidates.sort(Comparator.comparingInt(CachedTarball::getDownloadCount));
+
+    int evicted = 0;
+    for (CachedTarball candidate : candidates) {
+      if (used <= quotaBytes || evicted >= limit) {
+        break;
+      }
+      if (delete(candidate.getPath())) {
+        used -= candidate.getBlobSize();
+        evicted++;
+      }
+    }
+    log.debug("Evicted {} tarballs from {}, {} of {} bytes used", evicted, getRepository().getName(), used,
+        quotaBytes);
+    return evicted;
+  }
+
   @Override
   public boolean delete(final String path) {
-    return assets().path(path).find()
-        .map(asset -> {
-          asset.delete();
-          return true;
-        })
-        .orElse(false);
+    Lock lock = lockVersion(path);
+    try {
+      return assets().path(path).find()
+          .map(asset -> {
+            if (!ASSET_KIND.equals(asset.kind())) {
+              asset.delete();
+              return true;
+            }
+            Optional<Component> component = asset.component();
+            component.ifPresent(this::deleteSidecars);
+            asset.delete();
+            // versions are listed from components, so the version is only gone once its component is
+            component.ifPresent(this::deleteComponent);
+            forgetVersions(1);
+            return true;
+          })
+          .orElse(false);
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the docs-blob and files index sidecars of a version whose tarball is being deleted.
+   */
+  private void deleteSidecars(final Component component) {
+    String namespace = component.namespace();
+    String name = component.name();
+    String version = component.version();
+    for (String path : asList(buildDocsPath(namespace, name, version), buildFilesPath(namespace, name, version))) {
+      assets().path(path).find().ifPresent(FluentAsset::delete);
+    }
+  }
+
+  private void deleteComponent(final Component component) {
+    components()
+        .name(component.name())
+        .namespace(component.namespace())
+        .version(component.version())
+        .find()
+        .ifPresent(FluentComponent::delete);
+  }
+
+  @Override
+  public int deleteCollection(final String namespace, final String name) {
+    return deleteVersions(namespace, name, version -> true);
+  }
+
+  @Override
+  public int deleteVersions(final String namespace, final String name, final Predicate<String> versionFilter) {
+    List<String> paths = new ArrayList<>();
+    for (String version : components().versions(namespace, name)) {
+      if (versionFilter.test(version)) {
+        paths.add(buildAssetPath(namespace, name, version));
+      }
+    }
+    if (paths.isEmpty()) {
+      return 0;
+    }
+
+    List<Lock> locks = lockVersions(paths);
+    try {
+      List<EntityId> componentIds = new ArrayList<>();
+      for (String version : components().versions(namespace, name)) {
+        if (versionFilter.test(version)) {
+          components().name(name).namespace(namespace).version(version).find()
+              .ifPresent(component -> componentIds.add(toExternalId(internalComponentId(component))));
+        }
+      }
+      if (componentIds.isEmpty()) {
+        return 0;
+      }
+
+      // the maintenance facet deletes components together with their assets in batched transactions
+      int deleted = facet(ContentMaintenanceFacet.class).deleteComponents(componentIds.stream());
+      forgetVersions(deleted);
+      log.debug("Deleted {} versions of {}.{}", deleted, namespace, name);
+      return deleted;
+    }
+    finally {
+      for (int i = locks.size() - 1; i >= 0; i--) {
+        locks.get(i).unlock();
+      }
+    }
+  }
+
+  @Override
+  public List<String> versionsHighestFirst(final String namespace, final String name) {
+    return componentStore().browseVersionsHighestFirst(contentRepositoryId(), namespace, name);
+  }
+
+  @Override
+  public int countCollections() {
+    return componentStore().countCollectionSummaries(contentRepositoryId());
+  }
+
+  @Override
+  public List<CollectionSummary> browseCollections(final int offset, final int limit) {
+    return componentStore().browseCollectionSummaries(contentRepositoryId(), limit, offset);
+  }
+
+  @Override
+  public Optional<CollectionSummary> getCollection(final String namespace, final String name) {
+    return componentStore().readCollectionSummary(contentRepositoryId(), namespace, name);
   }
 
   @Override
@@ -118,35 +473,171 @@ public class AnsibleGalaxyContentFacetImpl extends ContentFacetSupport
     return components().browse(Integer.MAX_VALUE, null);
   }
 
+  private Lock lockVersion(final String tarballPath) {
+    Lock lock = versionLocks.get(tarballPath);
+    lock.lock();
+    return lock;
+  }
+
   /**
-   * Extracts CollectionInfo from the MANIFEST.json file inside the collection tar.gz.
+   * Locks several versions at once. Striped hands out the locks in a fixed order, so two threads locking
+   * overlapping versions cannot deadlock.
    */
-  private CollectionInfo extractCollectionInfo(final TempBlob tempBlob) throws IOException {
-    try (InputStream is = tempBlob.get();
-         BufferedInputStream bis = new BufferedInputStream(is);
-         GzipCompressorInputStream gzis = new GzipCompressorInputStream(bis);
-         TarArchiveInputStream tais = new TarArchiveInputStream(gzis)) {
+  private List<Lock> lockVersions(final List<String> tarballPaths) {
+    List<Lock> locks = new ArrayList<>(tarballPaths.size());
+    for (Lock lock : versionLocks.bulkGet(tarballPaths)) {
+      lock.lock();
+      locks.add(lock);
+    }
+    return locks;
+  }
 
-      TarArchiveEntry entry;
-      while ((entry = tais.getNextEntry()) != null) {
-        if (entry.isDirectory()) {
-          continue;
-        }
-        // MANIFEST.json is typically at {namespace}-{name}-{version}/MANIFEST.json
-        String entryName = entry.getName();
-        if (entryName.endsWith("/MANIFEST.json") || entryName.equals("MANIFEST.json")) {
-          JsonNode root = OBJECT_MAPPER.readTree(tais);
-          JsonNode collectionInfo = root.get("collection_info");
-          if (collectionInfo != null) {
-            return OBJECT_MAPPER.treeToValue(collectionInfo, CollectionInfo.class);
-          }
+  private AnsibleGalaxyComponentStore componentStore() {
+    return (AnsibleGalaxyComponentStore) stores().componentStore;
+  }
+
+  private AnsibleGalaxyAssetStore assetStore() {
+    return (AnsibleGalaxyAssetStore) stores().assetStore;
+  }
+
+  /**
+   * Computes sort keys for components stored before the key existed, in batches.
+   */
+  private void backfillSemverKeys() {
+    AnsibleGalaxyComponentStore store = componentStore();
+    int updated = 0;
+    List<ComponentData> batch;
+    while (!(batch = store.browseMissingSemverKeys(contentRepositoryId(), SEMVER_BACKFILL_BATCH_SIZE)).isEmpty()) {
+      for (ComponentData component : batch) {
+        store.updateSemverKey(internalComponentId(component), GalaxySemver.sortKey(component.version()));
+      }
+      updated += batch.size();
+    }
+    if (updated > 0) {
+      log.info("Computed semantic version sort keys for {} components of {}", updated, getRepository().getName());
+    }
+  }
+
+  /**
+   * Adds a stored tarball to the collection filter, queueing a rebuild once the filter has outgrown its size.
+   */
+  private void rememberTarball(final String namespace, final String name, final String path) {
+    // read the rebuilding filter first: once a rebuild clears it, the filter it swapped in is already visible
+    CollectionBloomFilter rebuilding = rebuildingFilter;
+    CollectionBloomFilter filter = collectionFilter;
+    if (rebuilding != null) {
+      rebuilding.add(namespace, name, path);
+    }
+    if (filter != null) {
+      filter.add(namespace, name, path);
+      if (filter.isStale()) {
+        scheduleCollectionFilterRebuild();
+      }
+    }
+  }
+
+  /**
+   * Records deleted versions in the collection filter, queueing a rebuild once too many deleted keys linger.
+   */
+  private void forgetVersions(final int versions) {
+    CollectionBloomFilter filter = collectionFilter;
+    if (filter != null && versions > 0) {
+      filter.removed(versions);
+      if (filter.isStale()) {
+        scheduleCollectionFilterRebuild();
+      }
+    }
+  }
+
+  /**
+   * Hands a rebuild to the background rebuilder, at most one queued per repository. Callers may hold version locks,
+   * so the scan must not run on their thread; the stale filter never gives false negatives and stays in use until
+   * the rebuilt one is swapped in.
+   */
+  private void scheduleCollectionFilterRebuild() {
+    if (collectionFilterRebuildQueued.compareAndSet(false, true)
+        && !filterRebuilder.submit(() -> {
+          collectionFilterRebuildQueued.set(false);
+          rebuildCollectionFilter();
+        })) {
+      collectionFilterRebuildQueued.set(false);
+    }
+  }
+
+  /**
+   * Builds a new collection filter from every component of the repository and swaps it in. Only one rebuild runs
+   * at a time; callers arriving during a rebuild keep using the current filter. A failed rebuild keeps the current
+   * filter, which never gives false negatives for content stored through this facet.
+   */
+  private void rebuildCollectionFilter() {
+    if (!collectionFilterRebuild.tryLock()) {
+      return;
+    }
+    try {
+      CollectionBloomFilter filter = CollectionBloomFilter.forVersions(components().count());
+      rebuildingFilter = filter;
+      Continuation<FluentComponent> page = components().browse(COLLECTION_FILTER_BATCH_SIZE, null);
+      while (!page.isEmpty()) {
+        for (FluentComponent component : page) {
+          filter.add(component.namespace(), component.name(),
+              buildAssetPath(component.namespace(), component.name(), component.version()));
         }
+        page = components().browse(COLLECTION_FILTER_BATCH_SIZE, page.nextContinuationToken());
       }
+      collectionFilter = filter;
+      log.debug("Rebuilt collection filter of {}", getRepository().getName());
+    }
+    catch (RuntimeException e) {
+      log.warn("Unable to rebuild collection filter of {}", getRepository().getName(), e);
+    }
+    finally {
+      rebuildingFilter = null;
+      collectionFilterRebuild.unlock();
+    }
+  }
+
+  /**
+   * Stores the MANIFEST.json metadata as asset attributes under the format key, so it is searchable and version
+   * details never need to read the tarball again.
+   */
+  private FluentAsset withManifestAttributes(final FluentAsset asset, @Nullable final CollectionManifest manifest) {
+    if (manifest == null) {
+      return asset;
     }
-    return null;
+    return asset.withAttribute(AnsibleGalaxyFormat.NAME, CollectionAttributes.fromManifest(manifest));
   }
 
-  static String buildAssetPath(final String namespace, final String name, final String version) {
+  /**
+   * Reads MANIFEST.json from a tarball whose coordinates are already known; a missing or unreadable manifest only
+   * means the asset has no metadata attributes, so it does not fail the store.
+   */
+  @Nullable
+  private CollectionManifest readManifestQuietly(final TempBlob tempBlob, final String path) {
+    try {
+      return extractManifest(tempBlob);
+    }
+    catch (IOException e) {
+      log.debug("Unable to read MANIFEST.json from {}, skipping metadata attributes", path, e);
+      return null;
+    }
+  }
+
+  /**
+   * Extracts the MANIFEST.json file inside the collection tar.gz.
+   */
+  private CollectionManifest extractManifest(final TempBlob tempBlob) throws IOException {
+    return CollectionManifestReader.readManifest(tempBlob.get());
+  }
+
+  public static String buildAssetPath(final String namespace, final String name, final String version) {
     return String.format("/collections/artifacts/%s-%s-%s.tar.gz", namespace, name, version);
   }
+
+  public static String buildDocsPath(final String namespace, final String name, final String version) {
+    return String.format("/collections/docs/%s-%s-%s.json", namespace, name, version);
+  }
+
+  public static String buildFilesPath(final String namespace, final String name, final String version) {
+    return String.format("/collections/files/%s-%s-%s.tsv", namespace, name, version);
+  }
 }
@@ -0,0 +1,113 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.lifecycle.Lifecycle;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
+
+/**
+ * Background stage that builds the docs-blob sidecar of a collection version after its tarball is stored, so
+ * uploads and imports do not wait for the tarball to be read a second time.
+ *
+ * Extraction runs on {@code nexus.ansiblegalaxy.docs.threads} threads (default 2) with at most
+ * {@code nexus.ansiblegalaxy.docs.queueSize} (default 1000) versions waiting. Submits for a version that is already
+ * waiting are coalesced, and a version uploaded again while it is being extracted is extracted once more afterwards,
+ * so the last extraction to finish always reads the latest tarball. A failed or rejected extraction is logged and
+ * leaves the version without a docs blob; uploading the version again retries it.
+ */
+@Named
+@Singleton
+@ManagedLifecycle(phase = SERVICES)
+public class AnsibleGalaxyDocsExtractor
+    extends ComponentSupport
+    implements Lifecycle
+{
+  private final ExecutorService executor;
+
+  /**
+   * Versions waiting or being extracted; true while another extraction is due once the current one finishes.
+   */
+  private final ConcurrentMap<String, Boolean> pending = new ConcurrentHashMap<>();
+
+  @Inject
+  public AnsibleGalaxyDocsExtractor(
+      @Named("${nexus.ansiblegalaxy.docs.threads:-2}") final int threads,
+      @Named("${nexus.ansiblegalaxy.docs.queueSize:-1000}") final int queueSize)
+  {
+    this(new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueSize),
+        new NexusThreadFactory("ansible-galaxy-docs", "docs-extract")));
+  }
+
+  AnsibleGalaxyDocsExtractor(final ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public void start() {
+    // the extraction pool is created with the extractor
+  }
+
+  @Override
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Queues docs extraction for a collection version of the repository.
+   */
+  public void submit(final Repository repository, final String namespace, final String name, final String version) {
+    String key = repository.getName() + ':' + namespace + '.' + name + ':' + version;
+    if (pending.put(key, Boolean.TRUE) != null) {
+      return;
+    }
+    try {
+      executor.execute(() -> drain(key, repository, namespace, name, version));
+    }
+    catch (RejectedExecutionException e) {
+      pending.remove(key);
+      log.warn("Not extracting docs of {}.{}:{} in {}, extraction queue is full", namespace, name, version,
+          repository.getName());
+    }
+  }
+
+  private void drain(
+      final String key,
+      final Repository repository,
+      final String namespace,
+      final String name,
+      final String version)
+  {
+    do {
+      pending.put(key, Boolean.FALSE);
+      extract(repository, namespace, name, version);
+    }
+    while (!pending.remove(key, Boolean.FALSE));
+  }
+
+  private void extract(final Repository repository, final String namespace, final String name, final String version) {
+    try {
+      if (!repository.facet(AnsibleGalaxyContentFacet.class).putDocs(namespace, name, version)) {
+        log.debug("Skipping docs of {}.{}:{} in {}, tarball is gone", namespace, name, version, repository.getName());
+      }
+    }
+    catch (Exception e) {
+      log.warn("Unable to extract docs of {}.{}:{} in {}", namespace, name, version, repository.getName(), e);
+    }
+  }
+}
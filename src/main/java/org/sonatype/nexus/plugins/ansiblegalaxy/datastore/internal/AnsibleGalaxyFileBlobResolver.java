@@ -0,0 +1,96 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.blobstore.BlobIdLocationResolver;
+import org.sonatype.nexus.blobstore.api.BlobRef;
+import org.sonatype.nexus.blobstore.api.BlobStore;
+import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
+import org.sonatype.nexus.blobstore.api.BlobStoreManager;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
+import org.sonatype.nexus.repository.content.AssetBlob;
+
+/**
+ * Finds the file holding a blob's bytes when the blob lives in a file blob store, so tarballs can be served straight
+ * from disk.
+ *
+ * The path follows the file blob store layout: {@code <store path>/content/<location>.bytes}, the location coming
+ * from the same {@link BlobIdLocationResolver} the store uses. A path is only returned when that file exists and has
+ * the size recorded for the blob; anything else, including other blob store types and a layout this resolver does
+ * not know, leaves the caller to download through the blob store as usual. Set
+ * {@code nexus.ansiblegalaxy.zeroCopy=false} to always do so.
+ */
+@Named
+@Singleton
+public class AnsibleGalaxyFileBlobResolver
+    extends ComponentSupport
+{
+  private static final String FILE_TYPE = "File";
+
+  private static final String BLOBS_DIRECTORY = "blobs";
+
+  private final BlobStoreManager blobStoreManager;
+
+  private final BlobIdLocationResolver locationResolver;
+
+  private final ApplicationDirectories directories;
+
+  private final boolean enabled;
+
+  @Inject
+  public AnsibleGalaxyFileBlobResolver(
+      final BlobStoreManager blobStoreManager,
+      final BlobIdLocationResolver locationResolver,
+      final ApplicationDirectories directories,
+      @Named("${nexus.ansiblegalaxy.zeroCopy:-true}") final boolean enabled)
+  {
+    this.blobStoreManager = blobStoreManager;
+    this.locationResolver = locationResolver;
+    this.directories = directories;
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the file holding the blob's bytes, or empty when it cannot be read directly.
+   */
+  public Optional<Path> contentPath(final AssetBlob assetBlob) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    try {
+      BlobRef blobRef = assetBlob.blobRef();
+      BlobStore blobStore = blobStoreManager.get(blobRef.getStore());
+      if (blobStore == null) {
+        return Optional.empty();
+      }
+      BlobStoreConfiguration configuration = blobStore.getBlobStoreConfiguration();
+      if (!FILE_TYPE.equals(configuration.getType())) {
+        return Optional.empty();
+      }
+      String storePath = configuration.attributes("file").get("path", String.class);
+      if (storePath == null) {
+        return Optional.empty();
+      }
+
+      Path content = directories.getWorkDirectory(BLOBS_DIRECTORY).toPath()
+          .resolve(storePath)
+          .resolve("content")
+          .resolve(locationResolver.getLocation(blobRef.getBlobId()) + ".bytes");
+      if (Files.isRegularFile(content) && Files.size(content) == assetBlob.blobSize()) {
+        return Optional.of(content);
+      }
+      log.debug("Blob {} not found at {}, serving through the blob store", blobRef, content);
+    }
+    catch (Exception e) {
+      log.debug("Unable to resolve the file of blob {}, serving through the blob store", assetBlob.blobRef(), e);
+    }
+    return Optional.empty();
+  }
+}
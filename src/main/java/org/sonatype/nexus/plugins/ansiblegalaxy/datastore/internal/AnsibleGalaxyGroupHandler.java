@@ -0,0 +1,493 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.lifecycle.Lifecycle;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyResponseBuilder;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxySemver;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.group.GroupFacet;
+import org.sonatype.nexus.repository.group.GroupHandler;
+import org.sonatype.nexus.repository.http.HttpResponses;
+import org.sonatype.nexus.repository.http.HttpStatus;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Parameters;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.ViewFacet;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.nexus.thread.NexusExecutorService;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
+import static org.sonatype.nexus.repository.http.HttpMethods.GET;
+
+/**
+ * Handler for Galaxy v3 API endpoints in a group repository.
+ *
+ * Dispatches by token presence:
+ * - "api_root" token        -> static API root JSON
+ * - "filename" token        -> artifact download from the first member that has it
+ * - "version" token         -> version detail from the first member that has it (members queried in parallel)
+ * - "version_marker" token  -> version list merged from all members, de-duplicated and ordered highest first
+ * - "namespace"+"name"      -> collection detail with the highest version across all members
+ * - no tokens               -> collection list from the first member that answers
+ *
+ * Members are always queried with long-form paths so hosted members, which only serve long-form routes, can
+ * answer short-form CLI requests made against the group. Parallel member requests share a deadline of
+ * {@code nexus.ansiblegalaxy.group.memberTimeout}; members that do not answer in time are left out of the
+ * merged response instead of stalling it.
+ *
+ * Artifact and version detail requests are first sent to the member that last answered for the same collection,
+ * as remembered by {@link AnsibleGalaxyGroupMemberMemo}; the members are only probed in order when that member
+ * is unknown or no longer has the requested version.
+ *
+ * Member requests run on at most {@code nexus.ansiblegalaxy.group.fanoutThreads} (default 32) threads with up to
+ * {@code nexus.ansiblegalaxy.group.fanoutQueueSize} (default 1000) requests waiting for one. Waiting requests count
+ * against the member deadline like running ones, and members that cannot be queued are left out of the merged
+ * response, so slow members neither pile up threads without bound nor hold up the request thread.
+ */
+@Named
+@Singleton
+@ManagedLifecycle(phase = SERVICES)
+public class AnsibleGalaxyGroupHandler
+    extends GroupHandler
+    implements Lifecycle
+{
+  static final String PREFIX = "/api/v3/plugin/ansible/content/published";
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  /**
+   * Page size used when walking a member's version list.
+   */
+  static final int MEMBER_PAGE_SIZE = 100;
+
+  /**
+   * Upper bound on pages fetched from a single member for one version list.
+   */
+  private static final int MAX_MEMBER_PAGES = 100;
+
+  private static final long FANOUT_KEEP_ALIVE_SECONDS = 60L;
+
+  private final GalaxyResponseBuilder responseBuilder;
+
+  private final AnsibleGalaxyGroupMemberMemo memberMemo;
+
+  private final long memberTimeoutMillis;
+
+  private final ExecutorService executor;
+
+  @Inject
+  public AnsibleGalaxyGroupHandler(
+      final GalaxyResponseBuilder responseBuilder,
+      final AnsibleGalaxyGroupMemberMemo memberMemo,
+      @Named("${nexus.ansiblegalaxy.group.memberTimeout:-10s}") final Time memberTimeout,
+      @Named("${nexus.ansiblegalaxy.group.fanoutThreads:-32}") final int fanoutThreads,
+      @Named("${nexus.ansiblegalaxy.group.fanoutQueueSize:-1000}") final int fanoutQueueSize) {
+    this(responseBuilder, memberMemo, memberTimeout.toMillis(),
+        NexusExecutorService.forCurrentSubject(fanoutPool(fanoutThreads, fanoutQueueSize)));
+  }
+
+  AnsibleGalaxyGroupHandler(final GalaxyResponseBuilder responseBuilder,
+                            final AnsibleGalaxyGroupMemberMemo memberMemo,
+                            final long memberTimeoutMillis,
+                            final ExecutorService executor) {
+    this.responseBuilder = responseBuilder;
+    this.memberMemo = memberMemo;
+    this.memberTimeoutMillis = memberTimeoutMillis;
+    this.executor = executor;
+  }
+
+  /**
+   * Pool for member requests; submits beyond the queue are rejected rather than run by the caller.
+   */
+  static ThreadPoolExecutor fanoutPool(final int threads, final int queueSize) {
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+        FANOUT_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(Math.max(1, queueSize)),
+        new NexusThreadFactory("ansible-galaxy-group", "member-fanout"));
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  @Override
+  public void start() {
+    // the member pool is created with the handler
+  }
+
+  @Override
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  protected Response doGet(@Nonnull final Context context,
+                           @Nonnull final DispatchedRepositories dispatched) throws Exception {
+    Map<String, String> tokens = context.getAttributes()
+        .require(TokenMatcher.State.class).getTokens();
+
+    if (tokens.containsKey("api_root")) {
+      return jsonResponse(AnsibleGalaxyProxyHandler.API_ROOT_JSON);
+    }
+
+    List<Repository> members = context.getRepository().facet(GroupFacet.class).members();
+
+    // Artifact paths are identical in every member, so the original request can be dispatched as is
+    if (tokens.containsKey("filename")) {
+      String[] coordinates = AnsibleGalaxyProxyHandler.parseFilename(tokens.get("filename"));
+      if (coordinates == null) {
+        return getFirst(context, members, dispatched);
+      }
+      return handleArtifact(context, members, dispatched, coordinates[0], coordinates[1]);
+    }
+
+    String groupUrl = context.getRepository().getUrl();
+    String namespace = tokens.get("namespace");
+    String name = tokens.get("name");
+    String version = tokens.get("version");
+
+    if (namespace != null && name != null && version != null) {
+      return handleVersionDetail(context, members, dispatched, groupUrl, namespace, name, version);
+    }
+
+    if (namespace != null && name != null && tokens.containsKey("version_marker")) {
+      return handleVersionList(context, members, dispatched, groupUrl, namespace, name);
+    }
+
+    if (namespace != null && name != null) {
+      return handleCollectionDetail(context, members, dispatched, groupUrl, namespace, name);
+    }
+
+    return handleCollectionList(context, members, dispatched, groupUrl);
+  }
+
+  private Response handleArtifact(final Context context,
+                                  final List<Repository> members,
+                                  final DispatchedRepositories dispatched,
+                                  final String namespace,
+                                  final String name) throws Exception {
+    String group = context.getRepository().getName();
+
+    Repository owner = memberMemo.get(group, namespace, name, members);
+    if (owner != null && !dispatched.contains(owner)) {
+      dispatched.add(owner);
+      Response response = owner.facet(ViewFacet.class).dispatch(context.getRequest(), context);
+      if (response.getStatus().isSuccessful()) {
+        return response;
+      }
+      memberMemo.forget(group, namespace, name);
+    }
+
+    for (Repository member : members) {
+      if (dispatched.contains(member)) {
+        log.trace("Skipping already dispatched member {}", member.getName());
+        continue;
+      }
+      dispatched.add(member);
+      Response response = member.facet(ViewFacet.class).dispatch(context.getRequest(), context);
+      if (response.getStatus().isSuccessful()) {
+        memberMemo.remember(group, namespace, name, member);
+        return response;
+      }
+    }
+    return HttpResponses.notFound();
+  }
+
+  private Response handleVersionDetail(final Context context,
+                                       final List<Repository> members,
+                                       final DispatchedRepositories dispatched,
+                                       final String groupUrl,
+                                       final String namespace,
+                                       final String name,
+                                       final String version) throws Exception {
+    String path = PREFIX + "/collections/index/" + namespace + "/" + name + "/versions/" + version + "/";
+    String group = context.getRepository().getName();
+
+    Repository owner = memberMemo.get(group, namespace, name, members);
+    if (owner != null && !dispatched.contains(owner)) {
+      dispatched.add(owner);
+      JsonNode json = dispatchJson(context, owner, path, new Parameters());
+      if (json != null) {
+        return jsonResponse(rewriteMemberUrls(owner, json, groupUrl));
+      }
+      memberMemo.forget(group, namespace, name);
+    }
+
+    List<MemberResult<JsonNode>> results = fanOut(members, dispatched,
+        member -> dispatchJson(context, member, path, new Parameters()));
+    if (!results.isEmpty()) {
+      memberMemo.remember(group, namespace, name, results.get(0).member);
+    }
+    return firstResult(results, groupUrl);
+  }
+
+  private Response handleVersionList(final Context context,
+                                     final List<Repository> members,
+                                     final DispatchedRepositories dispatched,
+                                     final String groupUrl,
+                                     final String namespace,
+                                     final String name) throws Exception {
+    String path = PREFIX + "/collections/index/" + namespace + "/" + name + "/versions/";
+
+    List<MemberResult<List<String>>> results = fanOut(members, dispatched,
+        member -> memberVersions(context, member, path));
+    if (results.isEmpty()) {
+      return HttpResponses.notFound();
+    }
+
+    List<List<String>> memberVersions = new ArrayList<>();
+    for (MemberResult<List<String>> result : results) {
+      memberVersions.add(result.value);
+    }
+
+    Parameters parameters = context.getRequest().getParameters();
+    String json = responseBuilder.buildVersionList(groupUrl, namespace, name, mergeVersions(memberVersions),
+        parseIntParam(parameters.get("offset"), 0), parseIntParam(parameters.get("limit"), 0));
+    return jsonResponse(json);
+  }
+
+  private Response handleCollectionDetail(final Context context,
+                                          final List<Repository> members,
+                                          final DispatchedRepositories dispatched,
+                                          final String groupUrl,
+                                          final String namespace,
+                                          final String name) throws Exception {
+    String path = PREFIX + "/collections/index/" + namespace + "/" + name + "/";
+
+    List<MemberResult<JsonNode>> results = fanOut(members, dispatched,
+        member -> dispatchJson(context, member, path, new Parameters()));
+    if (results.isEmpty()) {
+      return HttpResponses.notFound();
+    }
+
+    String highest = null;
+    for (MemberResult<JsonNode> result : results) {
+      String candidate = result.value.path("highest_version").path("version").asText(null);
+      if (candidate != null && (highest == null || GalaxySemver.HIGHEST_FIRST.compare(candidate, highest) < 0)) {
+        highest = candidate;
+      }
+    }
+
+    return jsonResponse(responseBuilder.buildCollectionDetail(groupUrl, namespace, name, highest));
+  }
+
+  private Response handleCollectionList(final Context context,
+                                        final List<Repository> members,
+                                        final DispatchedRepositories dispatched,
+                                        final String groupUrl) throws Exception {
+    String path = PREFIX + "/collections/index/";
+    Parameters parameters = context.getRequest().getParameters();
+
+    List<MemberResult<JsonNode>> results = fanOut(members, dispatched,
+        member -> dispatchJson(context, member, path, parameters));
+    return firstResult(results, groupUrl);
+  }
+
+  /**
+   * Runs the call against every member not yet dispatched to, in parallel, and returns the non-null results in
+   * member order. Members that fail, cannot be queued or do not answer before the shared deadline are skipped.
+   */
+  <T> List<MemberResult<T>> fanOut(final List<Repository> members,
+                                   final DispatchedRepositories dispatched,
+                                   final MemberCall<T> call) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(memberTimeoutMillis);
+    List<Repository> targets = new ArrayList<>();
+    List<Future<T>> futures = new ArrayList<>();
+    for (Repository member : members) {
+      if (dispatched.contains(member)) {
+        log.trace("Skipping already dispatched member {}", member.getName());
+        continue;
+      }
+      dispatched.add(member);
+      try {
+        futures.add(executor.submit(() -> call.call(member)));
+        targets.add(member);
+      }
+      catch (RejectedExecutionException e) {
+        log.warn("Group member pool is full, leaving {} out of the response", member.getName());
+      }
+    }
+
+    List<MemberResult<T>> results = new ArrayList<>();
+    for (int i = 0; i < futures.size(); i++) {
+      Repository member = targets.get(i);
+      Future<T> future = futures.get(i);
+      try {
+        T value = future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        if (value != null) {
+          results.add(new MemberResult<>(member, value));
+        }
+      }
+      catch (TimeoutException e) {
+        future.cancel(true);
+        log.warn("Group member {} did not respond within {}ms, leaving it out of the response",
+            member.getName(), memberTimeoutMillis);
+      }
+      catch (ExecutionException e) {
+        log.warn("Group member {} failed to respond", member.getName(), e.getCause());
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Collects every version a member reports for a collection, following its pagination.
+   * Returns null when the member does not have the collection.
+   */
+  private List<String> memberVersions(final Context context,
+                                      final Repository member,
+                                      final String path) throws Exception {
+    List<String> versions = new ArrayList<>();
+    int offset = 0;
+    for (int page = 0; page < MAX_MEMBER_PAGES; page++) {
+      Parameters parameters = new Parameters();
+      parameters.set("offset", Integer.toString(offset));
+      parameters.set("limit", Integer.toString(MEMBER_PAGE_SIZE));
+
+      JsonNode root = dispatchJson(context, member, path, parameters);
+      if (root == null) {
+        return page == 0 ? null : versions;
+      }
+
+      JsonNode data = root.path("data");
+      for (JsonNode entry : data) {
+        String version = entry.path("version").asText(null);
+        if (version != null) {
+          versions.add(version);
+        }
+      }
+
+      JsonNode next = root.path("links").path("next");
+      if (data.size() == 0 || next.isMissingNode() || next.isNull()) {
+        break;
+      }
+      offset += data.size();
+    }
+    return versions;
+  }
+
+  /**
+   * Merges member version lists, keeping the first occurrence of versions that differ only in build metadata,
+   * and orders the result highest first.
+   */
+  static List<String> mergeVersions(final List<List<String>> memberVersions) {
+    Map<String, String> merged = new LinkedHashMap<>();
+    for (List<String> versions : memberVersions) {
+      for (String version : versions) {
+        int plus = version.indexOf('+');
+        merged.putIfAbsent(plus >= 0 ? version.substring(0, plus) : version, version);
+      }
+    }
+    List<String> result = new ArrayList<>(merged.values());
+    result.sort(GalaxySemver.HIGHEST_FIRST);
+    return result;
+  }
+
+  private JsonNode dispatchJson(final Context context,
+                                final Repository member,
+                                final String path,
+                                final Parameters parameters) throws Exception {
+    Request.Builder builder = new Request.Builder().action(GET).path(path);
+    for (Map.Entry<String, String> parameter : parameters) {
+      builder.parameter(parameter.getKey(), parameter.getValue());
+    }
+
+    Response response = member.facet(ViewFacet.class).dispatch(builder.build(), context);
+    Payload payload = response.getPayload();
+    if (response.getStatus().getCode() != HttpStatus.OK || payload == null) {
+      log.trace("Member {} returned {} for {}", member.getName(), response.getStatus(), path);
+      return null;
+    }
+    try (InputStream in = payload.openInputStream()) {
+      return OBJECT_MAPPER.readTree(in);
+    }
+  }
+
+  /**
+   * Returns the answer of the highest priority member that had one, with URLs pointing back through the group.
+   */
+  private static Response firstResult(final List<MemberResult<JsonNode>> results, final String groupUrl)
+      throws Exception
+  {
+    if (results.isEmpty()) {
+      return HttpResponses.notFound();
+    }
+    MemberResult<JsonNode> first = results.get(0);
+    return jsonResponse(rewriteMemberUrls(first.member, first.value, groupUrl));
+  }
+
+  /**
+   * Points URLs in a member response back through the group repository.
+   */
+  private static String rewriteMemberUrls(final Repository member, final JsonNode json, final String groupUrl)
+      throws Exception
+  {
+    return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(json)
+        .replace(member.getUrl() + PREFIX, groupUrl + PREFIX);
+  }
+
+  private static Response jsonResponse(final String json) {
+    return HttpResponses.ok(new Content(new StringPayload(json, "application/json")));
+  }
+
+  private static int parseIntParam(final String value, final int defaultValue) {
+    if (value == null || value.isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    }
+    catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * A request made against a single group member.
+   */
+  @FunctionalInterface
+  interface MemberCall<T>
+  {
+    T call(Repository member) throws Exception;
+  }
+
+  /**
+   * A non-null answer from a group member.
+   */
+  static final class MemberResult<T>
+  {
+    final Repository member;
+
+    final T value;
+
+    MemberResult(final Repository member, final T value) {
+      this.member = member;
+      this.value = value;
+    }
+  }
+}
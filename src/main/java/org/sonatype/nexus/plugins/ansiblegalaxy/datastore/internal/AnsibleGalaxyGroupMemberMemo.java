@@ -0,0 +1,126 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.event.EventAware;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.event.asset.AssetCreatedEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetDeletedEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetPurgedEvent;
+import org.sonatype.nexus.repository.content.store.ContentStoreEvent;
+
+/**
+ * Remembers which group member last answered for a collection, so group requests for artifacts and version
+ * details can go straight to that member instead of probing every member in order.
+ *
+ * Entries are keyed by namespace/name and hold the owning member per group. The memo is bounded by
+ * {@code nexus.ansiblegalaxy.group.memberMemoSize} collections. Any asset created, deleted or purged for a
+ * collection drops its entry, so a member that newly gains a collection is not hidden behind a stale answer
+ * from a lower priority member. Events of other formats are ignored.
+ */
+@Named
+@Singleton
+public class AnsibleGalaxyGroupMemberMemo
+    extends ComponentSupport
+    implements EventAware
+{
+  private final Cache<String, Map<String, String>> owners;
+
+  @Inject
+  public AnsibleGalaxyGroupMemberMemo(
+      @Named("${nexus.ansiblegalaxy.group.memberMemoSize:-10000}") final int maximumSize)
+  {
+    this.owners = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+  }
+
+  /**
+   * Returns the member of the group that last answered for the collection, or null when unknown or when that
+   * member is no longer part of the group.
+   */
+  public Repository get(final String group,
+                        final String namespace,
+                        final String name,
+                        final List<Repository> members)
+  {
+    Map<String, String> byGroup = owners.getIfPresent(key(namespace, name));
+    String owner = byGroup != null ? byGroup.get(group) : null;
+    if (owner == null) {
+      return null;
+    }
+    for (Repository member : members) {
+      if (owner.equals(member.getName())) {
+        return member;
+      }
+    }
+    return null;
+  }
+
+  public void remember(final String group, final String namespace, final String name, final Repository member) {
+    owners.asMap()
+        .computeIfAbsent(key(namespace, name), k -> new ConcurrentHashMap<>())
+        .put(group, member.getName());
+  }
+
+  public void forget(final String group, final String namespace, final String name) {
+    Map<String, String> byGroup = owners.getIfPresent(key(namespace, name));
+    if (byGroup != null) {
+      byGroup.remove(group);
+    }
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final AssetCreatedEvent event) {
+    invalidate(event);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final AssetDeletedEvent event) {
+    invalidate(event);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final AssetPurgedEvent event) {
+    if (!isGalaxy(event)) {
+      return;
+    }
+    // Purge events only carry asset ids, so the affected collections are unknown
+    owners.invalidateAll();
+  }
+
+  private void invalidate(final AssetEvent event) {
+    if (!isGalaxy(event)) {
+      return;
+    }
+    String path = event.getAsset().path();
+    String[] coordinates = AnsibleGalaxyProxyHandler.parseFilename(path.substring(path.lastIndexOf('/') + 1));
+    if (coordinates != null) {
+      log.trace("Invalidating group member memo for {}/{}", coordinates[0], coordinates[1]);
+      owners.invalidate(key(coordinates[0], coordinates[1]));
+    }
+  }
+
+  private static boolean isGalaxy(final ContentStoreEvent event) {
+    return AnsibleGalaxyFormat.NAME.equals(event.getFormat());
+  }
+
+  private static String key(final String namespace, final String name) {
+    return namespace + "/" + name;
+  }
+}
@@ -0,0 +1,144 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxySecurityFacet;
+import org.sonatype.nexus.repository.Format;
+import org.sonatype.nexus.repository.RecipeSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.Type;
+import org.sonatype.nexus.repository.content.group.GroupFacetImpl;
+import org.sonatype.nexus.repository.security.SecurityHandler;
+import org.sonatype.nexus.repository.types.GroupType;
+import org.sonatype.nexus.repository.view.ConfigurableViewFacet;
+import org.sonatype.nexus.repository.view.Route;
+import org.sonatype.nexus.repository.view.Router;
+import org.sonatype.nexus.repository.view.ViewFacet;
+import org.sonatype.nexus.repository.view.handlers.ExceptionHandler;
+import org.sonatype.nexus.repository.view.handlers.HandlerContributor;
+import org.sonatype.nexus.repository.view.handlers.TimingHandler;
+import org.sonatype.nexus.repository.view.matchers.ActionMatcher;
+import org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
+
+import static org.sonatype.nexus.repository.http.HttpHandlers.notFound;
+import static org.sonatype.nexus.repository.http.HttpMethods.*;
+
+/**
+ * Recipe for Ansible Galaxy group repositories.
+ *
+ * Accepts the same short-form (CLI-constructed) and long-form (response body) URLs as the proxy recipe and
+ * answers them from the group members:
+ *
+ *   /api/                                                        -> API root
+ *   /api/v3/collections/{ns}/{name}/versions/                    -> merged version list
+ *   /api/v3/collections/{ns}/{name}/versions/{ver}/              -> version detail from first member
+ *   {PREFIX}/collections/index/                                  -> collection list from first member
+ *   {PREFIX}/collections/index/{ns}/{name}/                      -> collection detail with merged highest version
+ *   {PREFIX}/collections/index/{ns}/{name}/{versions}/           -> merged version list
+ *   {PREFIX}/collections/index/{ns}/{name}/versions/{ver}/       -> version detail from first member
+ *   {PREFIX}/collections/artifacts/{filename}                    -> artifact download from first member
+ */
+@Named(AnsibleGalaxyGroupRecipe.NAME)
+@Singleton
+public class AnsibleGalaxyGroupRecipe
+    extends RecipeSupport
+{
+  public static final String NAME = "ansible-galaxy-group";
+
+  private static final String PREFIX = "/api/v3/plugin/ansible/content/published";
+
+  @Inject
+  Provider<AnsibleGalaxySecurityFacet> securityFacet;
+
+  @Inject
+  Provider<ConfigurableViewFacet> viewFacet;
+
+  @Inject
+  Provider<GroupFacetImpl> groupFacet;
+
+  @Inject
+  TimingHandler timingHandler;
+
+  @Inject
+  SecurityHandler securityHandler;
+
+  @Inject
+  ExceptionHandler exceptionHandler;
+
+  @Inject
+  HandlerContributor handlerContributor;
+
+  @Inject
+  AnsibleGalaxyGroupHandler groupHandler;
+
+  @Inject
+  public AnsibleGalaxyGroupRecipe(
+      @Named(GroupType.NAME) final Type type,
+      @Named(AnsibleGalaxyFormat.NAME) final Format format) {
+    super(type, format);
+  }
+
+  @Override
+  public void apply(final Repository repository) throws Exception {
+    repository.attach(groupFacet.get());
+    repository.attach(securityFacet.get());
+    repository.attach(configure(viewFacet.get()));
+  }
+
+  private ViewFacet configure(final ConfigurableViewFacet facet) {
+    Router.Builder builder = new Router.Builder();
+
+    // Route 1: GET /api/ — API root discovery (static response)
+    builder.route(groupRoute(new TokenMatcher("/{api_root:api}/")));
+
+    // Route 2: GET /api/v3/collections/{ns}/{name}/versions/ — short-form version list
+    builder.route(groupRoute(
+        new TokenMatcher("/api/v3/collections/{namespace}/{name}/{version_marker:versions}/")));
+
+    // Route 3: GET /api/v3/collections/{ns}/{name}/versions/{version}/ — short-form version detail
+    builder.route(groupRoute(
+        new TokenMatcher("/api/v3/collections/{namespace}/{name}/versions/{version}/")));
+
+    // Route 4: GET {PREFIX}/collections/index/ — long-form collection list
+    builder.route(groupRoute(
+        new TokenMatcher(PREFIX + "/collections/index/")));
+
+    // Route 5: GET {PREFIX}/collections/index/{ns}/{name}/ — long-form collection detail
+    builder.route(groupRoute(
+        new TokenMatcher(PREFIX + "/collections/index/{namespace}/{name}/")));
+
+    // Route 6: GET {PREFIX}/collections/index/{ns}/{name}/versions/ — long-form version list
+    builder.route(groupRoute(
+        new TokenMatcher(PREFIX + "/collections/index/{namespace}/{name}/{version_marker:versions}/")));
+
+    // Route 7: GET {PREFIX}/collections/index/{ns}/{name}/versions/{version}/ — long-form version detail
+    builder.route(groupRoute(
+        new TokenMatcher(PREFIX + "/collections/index/{namespace}/{name}/versions/{version}/")));
+
+    // Route 8: GET {PREFIX}/collections/artifacts/{filename} — artifact download
+    builder.route(groupRoute(
+        new TokenMatcher(PREFIX + "/collections/artifacts/{filename}")));
+
+    builder.defaultHandlers(notFound());
+    facet.configure(builder.create());
+    return facet;
+  }
+
+  private Route groupRoute(final TokenMatcher tokenMatcher) {
+    return new Route.Builder()
+        .matcher(LogicMatchers.and(
+            new ActionMatcher(GET, HEAD),
+            tokenMatcher))
+        .handler(timingHandler)
+        .handler(securityHandler)
+        .handler(exceptionHandler)
+        .handler(handlerContributor)
+        .handler(groupHandler)
+        .create();
+  }
+}
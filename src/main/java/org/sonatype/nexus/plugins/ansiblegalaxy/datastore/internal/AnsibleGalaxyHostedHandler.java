@@ -1,26 +1,38 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import com.codahale.metrics.Counter;
+
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.CollectionFilesIndex;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyMetrics;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyRequestTrace;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyRequestTracer;
 import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyResponseBuilder;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyVersionRange;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
-import org.sonatype.nexus.repository.content.fluent.FluentComponent;
 import org.sonatype.nexus.repository.http.HttpResponses;
 import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.ContentTypes;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Handler;
+import org.sonatype.nexus.repository.view.Parameters;
 import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
+import org.sonatype.nexus.repository.view.payloads.StreamPayload;
 import org.sonatype.nexus.repository.view.payloads.StringPayload;
 
 import static org.sonatype.nexus.repository.http.HttpMethods.*;
@@ -36,6 +48,9 @@ import static org.sonatype.nexus.repository.http.HttpMethods.*;
  * 5. GET    /api/v3/.../collections/index/{ns}/{name}/versions/{version}/      - Version detail
  * 6. GET    /api/v3/.../collections/artifacts/{filename}                       - Download artifact
  * 7. DELETE /api/v3/.../collections/index/{ns}/{name}/versions/{version}/      - Delete version
+ * 8. DELETE /api/v3/.../collections/index/{ns}/{name}/                         - Delete collection (or ?version_range=)
+ * 9. GET    /api/v3/.../collections/index/{ns}/{name}/versions/{version}/docs-blob/ - Version docs-blob
+ * 10. GET   /api/v3/.../collections/index/{ns}/{name}/versions/{version}/files/     - Version FILES.json
  */
 @Named
 @Singleton
@@ -43,11 +58,24 @@ public class AnsibleGalaxyHostedHandler
     extends ComponentSupport
     implements Handler
 {
+  static final String VERSION_RANGE_PARAM = "version_range";
+
   private final GalaxyResponseBuilder responseBuilder;
 
+  private final GalaxyMetrics metrics;
+
+  private final GalaxyRequestTracer tracer;
+
+  private final Counter inFlight;
+
   @Inject
-  public AnsibleGalaxyHostedHandler(final GalaxyResponseBuilder responseBuilder) {
+  public AnsibleGalaxyHostedHandler(final GalaxyResponseBuilder responseBuilder,
+                                    final GalaxyMetrics metrics,
+                                    final GalaxyRequestTracer tracer) {
     this.responseBuilder = responseBuilder;
+    this.metrics = metrics;
+    this.tracer = tracer;
+    this.inFlight = metrics.counter(GalaxyMetrics.HOSTED, "in-flight");
   }
 
   @Nonnull
@@ -59,25 +87,41 @@ public class AnsibleGalaxyHostedHandler
     AnsibleGalaxyContentFacet contentFacet = context.getRepository()
         .facet(AnsibleGalaxyContentFacet.class);
 
-    switch (method) {
-      case GET:
-      case HEAD:
-        return handleGet(context, contentFacet, tokens);
-      case POST:
-        return handleUpload(context, contentFacet);
-      case DELETE:
-        return handleDelete(contentFacet, tokens);
-      default:
-        return HttpResponses.methodNotAllowed(method, GET, POST, DELETE);
+    inFlight.inc();
+    try {
+      switch (method) {
+        case GET:
+        case HEAD:
+          return handleGet(context, contentFacet, tokens);
+        case POST:
+          return timed(context, "upload", () -> handleUpload(context, contentFacet));
+        case DELETE:
+          return timed(context, "delete", () -> handleDelete(context, contentFacet, tokens));
+        default:
+          return HttpResponses.methodNotAllowed(method, GET, POST, DELETE);
+      }
+    }
+    finally {
+      inFlight.dec();
     }
   }
 
+  /**
+   * Runs a route, recording its latency under the route name and tracing its phases.
+   */
+  private Response timed(final Context context, final String route, final Callable<Response> handler)
+      throws Exception
+  {
+    return metrics.timer(GalaxyMetrics.HOSTED, route)
+        .time(() -> tracer.trace(context, GalaxyMetrics.HOSTED, route, handler));
+  }
+
   private Response handleGet(final Context context,
                              final AnsibleGalaxyContentFacet contentFacet,
                              final Map<String, String> tokens) throws Exception {
     // Route 6: Download artifact - has "filename" token
     if (tokens.containsKey("filename")) {
-      return handleDownload(contentFacet, tokens);
+      return timed(context, "download", () -> handleDownload(contentFacet, tokens));
     }
 
     String baseUrl = context.getRepository().getUrl();
@@ -85,26 +129,40 @@ public class AnsibleGalaxyHostedHandler
     String name = tokens.get("name");
     String version = tokens.get("version");
 
-    int offset = parseIntParam(tokens.get("offset"), 0);
-    int limit = parseIntParam(tokens.get("limit"), 0);
+    Parameters parameters = context.getRequest().getParameters();
+    int offset = parseIntParam(parameters.get("offset"), 0);
+    int limit = parseIntParam(parameters.get("limit"), 0);
+
+    // Route 9: Docs blob - has a docs_marker token
+    if (tokens.containsKey("docs_marker")) {
+      return timed(context, "docs-blob", () -> handleDocsBlob(contentFacet, namespace, name, version));
+    }
+
+    // Route 10: File listing - has a files_marker token
+    if (tokens.containsKey("files_marker")) {
+      return timed(context, "files", () -> handleFiles(contentFacet, namespace, name, version));
+    }
 
     // Route 5: Version detail - has namespace, name, and version
     if (namespace != null && name != null && version != null) {
-      return handleVersionDetail(baseUrl, contentFacet, namespace, name, version);
+      return timed(context, "version-detail",
+          () -> handleVersionDetail(baseUrl, contentFacet, namespace, name, version));
     }
 
     // Route 4: Version list - has namespace and name (versions route)
     if (namespace != null && name != null && tokens.containsKey("version_marker")) {
-      return handleVersionList(baseUrl, contentFacet, namespace, name, offset, limit);
+      return timed(context, "version-list",
+          () -> handleVersionList(baseUrl, contentFacet, namespace, name, offset, limit));
     }
 
     // Route 3: Collection detail - has namespace and name
     if (namespace != null && name != null) {
-      return handleCollectionDetail(baseUrl, contentFacet, namespace, name);
+      return timed(context, "collection-detail",
+          () -> handleCollectionDetail(baseUrl, contentFacet, namespace, name));
     }
 
     // Route 2: Collection list
-    return handleCollectionList(baseUrl, contentFacet, offset, limit);
+    return timed(context, "collection-list", () -> handleCollectionList(baseUrl, contentFacet, offset, limit));
   }
 
   /**
@@ -117,7 +175,9 @@ public class AnsibleGalaxyHostedHandler
       return HttpResponses.badRequest("Request body is required");
     }
 
-    contentFacet.putCollection(payload);
+    try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+      contentFacet.putCollection(payload);
+    }
     return HttpResponses.created();
   }
 
@@ -128,8 +188,16 @@ public class AnsibleGalaxyHostedHandler
                                         final AnsibleGalaxyContentFacet contentFacet,
                                         final int offset,
                                         final int limit) throws Exception {
-    Iterable<FluentComponent> components = contentFacet.browseComponents();
-    String json = responseBuilder.buildCollectionList(baseUrl, components, offset, limit);
+    int total;
+    int effectiveLimit = GalaxyResponseBuilder.effectiveLimit(limit);
+    int effectiveOffset;
+    List<CollectionSummary> page;
+    try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+      total = contentFacet.countCollections();
+      effectiveOffset = GalaxyResponseBuilder.effectiveOffset(offset, total);
+      page = contentFacet.browseCollections(effectiveOffset, effectiveLimit);
+    }
+    String json = responseBuilder.buildCollectionList(baseUrl, page, total, effectiveOffset, effectiveLimit);
     return HttpResponses.ok(new Content(new StringPayload(json, "application/json")));
   }
 
@@ -140,22 +208,18 @@ public class AnsibleGalaxyHostedHandler
                                           final AnsibleGalaxyContentFacet contentFacet,
                                           final String namespace,
                                           final String name) throws Exception {
-    Iterable<FluentComponent> components = contentFacet.browseComponents();
-
-    boolean found = false;
-    for (FluentComponent c : components) {
-      if (namespace.equals(c.namespace()) && name.equals(c.name())) {
-        found = true;
-        break;
-      }
+    if (!contentFacet.mayContainCollection(namespace, name)) {
+      return HttpResponses.notFound();
     }
-
-    if (!found) {
+    Optional<CollectionSummary> summary;
+    try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+      summary = contentFacet.getCollection(namespace, name);
+    }
+    if (!summary.isPresent()) {
       return HttpResponses.notFound();
     }
 
-    components = contentFacet.browseComponents();
-    String json = responseBuilder.buildCollectionDetail(baseUrl, namespace, name, components);
+    String json = responseBuilder.buildCollectionDetail(baseUrl, namespace, name, summary.get().getHighestVersion());
     return HttpResponses.ok(new Content(new StringPayload(json, "application/json")));
   }
 
@@ -168,8 +232,12 @@ public class AnsibleGalaxyHostedHandler
                                      final String name,
                                      final int offset,
                                      final int limit) throws Exception {
-    Iterable<FluentComponent> components = contentFacet.browseComponents();
-    String json = responseBuilder.buildVersionList(baseUrl, namespace, name, components, offset, limit);
+    List<String> versions;
+    // the store orders versions by their semantic version sort key, which is the semver work of this request
+    try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.SEMVER)) {
+      versions = contentFacet.versionsHighestFirst(namespace, name);
+    }
+    String json = responseBuilder.buildVersionList(baseUrl, namespace, name, versions, offset, limit);
     return HttpResponses.ok(new Content(new StringPayload(json, "application/json")));
   }
 
@@ -182,20 +250,49 @@ public class AnsibleGalaxyHostedHandler
                                        final String name,
                                        final String version) throws Exception {
     String assetPath = AnsibleGalaxyContentFacetImpl.buildAssetPath(namespace, name, version);
-    Optional<Content> content = contentFacet.get(assetPath);
-    if (!content.isPresent()) {
+    if (!contentFacet.mayContainTarball(assetPath)) {
       return HttpResponses.notFound();
     }
-
-    // Find the asset for artifact metadata
-    for (FluentAsset asset : contentFacet.browseAssets()) {
-      if (assetPath.equals(asset.path())) {
-        String json = responseBuilder.buildVersionDetail(baseUrl, namespace, name, version, asset);
-        return HttpResponses.ok(new Content(new StringPayload(json, "application/json")));
-      }
+    Optional<FluentAsset> asset;
+    try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+      asset = contentFacet.getAsset(assetPath);
+    }
+    if (!asset.isPresent()) {
+      return HttpResponses.notFound();
     }
 
-    return HttpResponses.notFound();
+    // artifact checksums and manifest metadata all come from the asset record, the blob is never opened
+    String json = responseBuilder.buildVersionDetail(baseUrl, namespace, name, version, asset.get());
+    return HttpResponses.ok(new Content(new StringPayload(json, "application/json")));
+  }
+
+  /**
+   * Route 9: serves the docs-blob sidecar built in the background after upload. Answers 404 until it is ready.
+   */
+  private Response handleDocsBlob(final AnsibleGalaxyContentFacet contentFacet,
+                                  final String namespace,
+                                  final String name,
+                                  final String version) {
+    String path = AnsibleGalaxyContentFacetImpl.buildDocsPath(namespace, name, version);
+    return lookup(contentFacet, path).map(HttpResponses::ok).orElseGet(HttpResponses::notFound);
+  }
+
+  /**
+   * Route 10: serves FILES.json of a version, generated from the index stored at upload while it is streamed out.
+   */
+  private Response handleFiles(final AnsibleGalaxyContentFacet contentFacet,
+                               final String namespace,
+                               final String name,
+                               final String version) {
+    String path = AnsibleGalaxyContentFacetImpl.buildFilesPath(namespace, name, version);
+    Optional<Content> index = lookup(contentFacet, path);
+    if (!index.isPresent()) {
+      return HttpResponses.notFound();
+    }
+    Payload files = new StreamPayload(
+        () -> CollectionFilesIndex.toFilesJson(index.get().openInputStream()), Payload.UNKNOWN_SIZE,
+        ContentTypes.APPLICATION_JSON);
+    return HttpResponses.ok(new Content(files));
   }
 
   /**
@@ -205,24 +302,68 @@ public class AnsibleGalaxyHostedHandler
                                   final Map<String, String> tokens) {
     String filename = tokens.get("filename");
     String path = "/collections/artifacts/" + filename;
-    Optional<Content> content = contentFacet.get(path);
-    return content.map(HttpResponses::ok).orElseGet(HttpResponses::notFound);
+    if (!contentFacet.mayContainTarball(path)) {
+      return HttpResponses.notFound();
+    }
+    return lookup(contentFacet, path).map(HttpResponses::ok).orElseGet(HttpResponses::notFound);
+  }
+
+  private static Optional<Content> lookup(final AnsibleGalaxyContentFacet contentFacet, final String path) {
+    try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+      return contentFacet.get(path);
+    }
   }
 
   /**
-   * Route 7: DELETE version
+   * Route 7: DELETE version, Route 8: DELETE collection or version range
    */
-  private Response handleDelete(final AnsibleGalaxyContentFacet contentFacet,
+  private Response handleDelete(final Context context,
+                                final AnsibleGalaxyContentFacet contentFacet,
                                 final Map<String, String> tokens) {
     String namespace = tokens.get("namespace");
     String name = tokens.get("name");
     String version = tokens.get("version");
 
+    if (version == null) {
+      return handleCollectionDelete(context, contentFacet, namespace, name);
+    }
+
     String path = AnsibleGalaxyContentFacetImpl.buildAssetPath(namespace, name, version);
-    boolean deleted = contentFacet.delete(path);
+    boolean deleted;
+    try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+      deleted = contentFacet.delete(path);
+    }
     return deleted ? HttpResponses.noContent() : HttpResponses.notFound();
   }
 
+  /**
+   * Route 8: DELETE every version of a collection, or only those matching the version_range parameter
+   */
+  private Response handleCollectionDelete(final Context context,
+                                          final AnsibleGalaxyContentFacet contentFacet,
+                                          final String namespace,
+                                          final String name) {
+    String rangeSpec = context.getRequest().getParameters().get(VERSION_RANGE_PARAM);
+
+    int deleted;
+    if (rangeSpec == null || rangeSpec.isEmpty()) {
+      deleted = contentFacet.deleteCollection(namespace, name);
+    }
+    else {
+      GalaxyVersionRange range;
+      try {
+        range = GalaxyVersionRange.parse(rangeSpec);
+      }
+      catch (IllegalArgumentException e) {
+        return HttpResponses.badRequest(e.getMessage());
+      }
+      deleted = contentFacet.deleteVersions(namespace, name, range);
+    }
+
+    log.debug("Deleted {} versions of {}.{} (range: {})", deleted, namespace, name, rangeSpec);
+    return deleted > 0 ? HttpResponses.noContent() : HttpResponses.notFound();
+  }
+
   private static int parseIntParam(final String value, final int defaultValue) {
     if (value == null || value.isEmpty()) {
       return defaultValue;
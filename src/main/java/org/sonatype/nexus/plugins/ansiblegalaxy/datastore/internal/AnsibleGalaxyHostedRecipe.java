@@ -26,7 +26,6 @@ import org.sonatype.nexus.repository.view.handlers.ConditionalRequestHandler;
 import org.sonatype.nexus.repository.view.handlers.ContentHeadersHandler;
 import org.sonatype.nexus.repository.view.handlers.ExceptionHandler;
 import org.sonatype.nexus.repository.view.handlers.HandlerContributor;
-import org.sonatype.nexus.repository.view.handlers.LastDownloadedHandler;
 import org.sonatype.nexus.repository.view.handlers.TimingHandler;
 import org.sonatype.nexus.repository.view.matchers.ActionMatcher;
 import org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers;
@@ -38,7 +37,7 @@ import static org.sonatype.nexus.repository.http.HttpMethods.*;
 /**
  * Recipe for Ansible Galaxy hosted repositories.
  *
- * Defines 7 Galaxy v3 API routes:
+ * Defines 10 Galaxy v3 API routes:
  * 1. POST   upload collection
  * 2. GET    list collections (paginated)
  * 3. GET    collection detail
@@ -46,6 +45,9 @@ import static org.sonatype.nexus.repository.http.HttpMethods.*;
  * 5. GET    version detail
  * 6. GET    download artifact
  * 7. DELETE delete version
+ * 8. DELETE delete collection (all versions, or a version_range)
+ * 9. GET    version docs-blob
+ * 10. GET   version file listing (FILES.json)
  */
 @Named(AnsibleGalaxyHostedRecipe.NAME)
 @Singleton
@@ -96,7 +98,7 @@ public class AnsibleGalaxyHostedRecipe
   ContentHeadersHandler contentHeadersHandler;
 
   @Inject
-  LastDownloadedHandler lastDownloadedHandler;
+  AnsibleGalaxyLastDownloadedHandler lastDownloadedHandler;
 
   @Inject
   AnsibleGalaxyHostedHandler hostedHandler;
@@ -144,7 +146,6 @@ public class AnsibleGalaxyHostedRecipe
         .handler(handlerContributor)
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
-        .handler(lastDownloadedHandler)
         .handler(hostedHandler)
         .create());
 
@@ -159,7 +160,6 @@ public class AnsibleGalaxyHostedRecipe
         .handler(handlerContributor)
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
-        .handler(lastDownloadedHandler)
         .handler(hostedHandler)
         .create());
 
@@ -175,7 +175,6 @@ public class AnsibleGalaxyHostedRecipe
         .handler(handlerContributor)
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
-        .handler(lastDownloadedHandler)
         .handler(hostedHandler)
         .create());
 
@@ -190,7 +189,6 @@ public class AnsibleGalaxyHostedRecipe
         .handler(handlerContributor)
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
-        .handler(lastDownloadedHandler)
         .handler(hostedHandler)
         .create());
 
@@ -222,6 +220,48 @@ public class AnsibleGalaxyHostedRecipe
         .handler(hostedHandler)
         .create());
 
+    // Route 8: DELETE .../collections/index/{namespace}/{name}/ — delete collection or version range
+    builder.route(new Route.Builder()
+        .matcher(LogicMatchers.and(
+            new ActionMatcher(DELETE),
+            new TokenMatcher(PREFIX + "/collections/index/{namespace}/{name}/")))
+        .handler(timingHandler)
+        .handler(securityHandler)
+        .handler(exceptionHandler)
+        .handler(handlerContributor)
+        .handler(hostedHandler)
+        .create());
+
+    // Route 9: GET .../collections/index/{namespace}/{name}/versions/{version}/docs-blob/ — precomputed docs
+    builder.route(new Route.Builder()
+        .matcher(LogicMatchers.and(
+            new ActionMatcher(GET, HEAD),
+            new TokenMatcher(
+                PREFIX + "/collections/index/{namespace}/{name}/versions/{version}/{docs_marker:docs-blob}/")))
+        .handler(timingHandler)
+        .handler(securityHandler)
+        .handler(exceptionHandler)
+        .handler(handlerContributor)
+        .handler(conditionalRequestHandler)
+        .handler(contentHeadersHandler)
+        .handler(hostedHandler)
+        .create());
+
+    // Route 10: GET .../collections/index/{namespace}/{name}/versions/{version}/files/ — FILES.json listing
+    builder.route(new Route.Builder()
+        .matcher(LogicMatchers.and(
+            new ActionMatcher(GET, HEAD),
+            new TokenMatcher(
+                PREFIX + "/collections/index/{namespace}/{name}/versions/{version}/{files_marker:files}/")))
+        .handler(timingHandler)
+        .handler(securityHandler)
+        .handler(exceptionHandler)
+        .handler(handlerContributor)
+        .handler(conditionalRequestHandler)
+        .handler(contentHeadersHandler)
+        .handler(hostedHandler)
+        .create());
+
     builder.defaultHandlers(notFound());
     facet.configure(builder.create());
     return facet;
@@ -0,0 +1,369 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.codahale.metrics.Counter;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.common.event.EventAware;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.ByteBufferPayload;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyMetrics;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.event.asset.AssetCreatedEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetDeletedEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetUploadedEvent;
+import org.sonatype.nexus.repository.view.Content;
+
+/**
+ * Keeps the bytes of frequently downloaded collection tarballs in direct buffers, so repeated downloads of the same
+ * few collections during fleet-wide installs are served from memory instead of the blob store.
+ *
+ * Entries are keyed by repository and asset path and remember the blob they were read from; a lookup for an asset
+ * now pointing at another blob is a miss. Galaxy assets created, uploaded or deleted at a cached path are dropped as
+ * soon as the event arrives, found through an index of held paths rather than a scan of every entry.
+ *
+ * The tier holds at most {@code nexus.ansiblegalaxy.memoryTier.maxBytes} (default 0, disabled) of direct memory,
+ * which must fit in the JVM's {@code -XX:MaxDirectMemorySize}, and tarballs above
+ * {@code nexus.ansiblegalaxy.memoryTier.maxEntryBytes} (default 32MB) are never held. When full, a tarball is only
+ * admitted if it has been requested more often than the least recently used entries it would displace (TinyLFU), so
+ * a burst of one-off downloads cannot flush the collections everyone installs.
+ */
+@Named
+@Singleton
+public class AnsibleGalaxyMemoryTier
+    extends ComponentSupport
+    implements EventAware
+{
+  private static final String METRIC_SCOPE = "memory-tier";
+
+  private final long maxBytes;
+
+  private final long maxEntryBytes;
+
+  /**
+   * Entries in least recently used order; guarded by this.
+   */
+  private final LinkedHashMap<String, Held> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Keys of the held entries per asset path, since events do not say which repository they come from; guarded by
+   * this.
+   */
+  private final Map<String, Set<String>> keysByPath = new HashMap<>();
+
+  private final FrequencySketch sketch = new FrequencySketch();
+
+  private long usedBytes;
+
+  private final Counter hits;
+
+  private final Counter misses;
+
+  private final Counter evictions;
+
+  @Inject
+  public AnsibleGalaxyMemoryTier(
+      final GalaxyMetrics metrics,
+      @Named("${nexus.ansiblegalaxy.memoryTier.maxBytes:-0}") final long maxBytes,
+      @Named("${nexus.ansiblegalaxy.memoryTier.maxEntryBytes:-33554432}") final long maxEntryBytes)
+  {
+    this.maxBytes = maxBytes;
+    this.maxEntryBytes = Math.min(maxEntryBytes, Integer.MAX_VALUE);
+    this.hits = metrics.counter(METRIC_SCOPE, "hit");
+    this.misses = metrics.counter(METRIC_SCOPE, "miss");
+    this.evictions = metrics.counter(METRIC_SCOPE, "eviction");
+    metrics.gauge(this::usedBytes, METRIC_SCOPE, "bytes");
+  }
+
+  public boolean isEnabled() {
+    return maxBytes > 0;
+  }
+
+  /**
+   * Returns the held content of an asset, if its current blob is held. Counts the request towards admission either
+   * way.
+   */
+  public Optional<Content> get(final String repository, final Asset asset, final String blobRef) {
+    String key = key(repository, asset.path());
+    Held entry;
+    synchronized (this) {
+      sketch.increment(key);
+      entry = entries.get(key);
+      if (entry != null && !entry.blobRef.equals(blobRef)) {
+        remove(key);
+        entry = null;
+      }
+    }
+    if (entry == null) {
+      misses.inc();
+      return Optional.empty();
+    }
+    hits.inc();
+    return Optional.of(content(entry, asset));
+  }
+
+  /**
+   * Offers content just downloaded from the blob store. If admitted, its bytes are read into memory and the returned
+   * content is served from there; otherwise the content is returned untouched.
+   *
+   * Admission is checked before reading, so rejected tarballs cost no copy, and again under the lock before anything
+   * is evicted, since other offers may have changed the entries meanwhile. Content rejected the second time is
+   * served from the bytes already read without being held.
+   */
+  public Content offer(final String repository, final Asset asset, final String blobRef, final Content content) {
+    String key = key(repository, asset.path());
+    long size = content.getSize();
+    if (size <= 0 || size > maxEntryBytes || size > maxBytes || !admit(key, size)) {
+      return content;
+    }
+
+    ByteBuffer bytes;
+    try {
+      bytes = read(content, (int) size);
+    }
+    catch (IOException | OutOfMemoryError e) {
+      log.debug("Not holding {} in memory", key, e);
+      return content;
+    }
+    if (bytes == null) {
+      return content;
+    }
+
+    Held entry = new Held(asset.path(), blobRef, bytes, content.getContentType(), attributes(content));
+    synchronized (this) {
+      if (!admit(key, size)) {
+        // the bytes are read already, so this response is still served from them
+        return content(entry, asset);
+      }
+      remove(key);
+      while (usedBytes + size > maxBytes && !entries.isEmpty()) {
+        remove(entries.keySet().iterator().next());
+        evictions.inc();
+      }
+      entries.put(key, entry);
+      keysByPath.computeIfAbsent(asset.path(), path -> new HashSet<>()).add(key);
+      usedBytes += size;
+    }
+    return content(entry, asset);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final AssetCreatedEvent event) {
+    invalidate(event);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final AssetUploadedEvent event) {
+    invalidate(event);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final AssetDeletedEvent event) {
+    invalidate(event);
+  }
+
+  /**
+   * Bytes of direct memory currently held, published as the {@code memory-tier.bytes} gauge.
+   */
+  synchronized long usedBytes() {
+    return usedBytes;
+  }
+
+  /**
+   * Whether a tarball of the given size fits, either in free space or by displacing least recently used entries
+   * that are all requested less often than it.
+   */
+  private synchronized boolean admit(final String key, final long size) {
+    long free = maxBytes - usedBytes;
+    if (size <= free) {
+      return true;
+    }
+    int frequency = sketch.frequency(key);
+    for (Map.Entry<String, Held> victim : entries.entrySet()) {
+      if (!victim.getKey().equals(key) && sketch.frequency(victim.getKey()) >= frequency) {
+        return false;
+      }
+      free += victim.getValue().bytes.capacity();
+      if (size <= free) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void invalidate(final AssetEvent event) {
+    if (!isEnabled() || !AnsibleGalaxyFormat.NAME.equals(event.getFormat())) {
+      return;
+    }
+    String path = event.getAsset().path();
+    synchronized (this) {
+      Set<String> keys = keysByPath.get(path);
+      if (keys != null) {
+        new ArrayList<>(keys).forEach(this::remove);
+      }
+    }
+  }
+
+  private void remove(final String key) {
+    Held removed = entries.remove(key);
+    if (removed != null) {
+      usedBytes -= removed.bytes.capacity();
+      Set<String> keys = keysByPath.get(removed.path);
+      if (keys != null && keys.remove(key) && keys.isEmpty()) {
+        keysByPath.remove(removed.path);
+      }
+    }
+  }
+
+  private static Content content(final Held entry, final Asset asset) {
+    Content content = new Content(new ByteBufferPayload(entry.bytes, entry.contentType));
+    for (Map.Entry<String, Object> attribute : entry.attributes) {
+      content.getAttributes().set(attribute.getKey(), attribute.getValue());
+    }
+    content.getAttributes().set(Asset.class, asset);
+    return content;
+  }
+
+  /**
+   * Reads content of a known size into a direct buffer, or returns null if the stream does not hold that many bytes.
+   */
+  private static ByteBuffer read(final Content content, final int size) throws IOException {
+    ByteBuffer bytes = ByteBuffer.allocateDirect(size);
+    try (InputStream in = content.openInputStream(); ReadableByteChannel channel = Channels.newChannel(in)) {
+      while (bytes.hasRemaining()) {
+        if (channel.read(bytes) < 0) {
+          return null;
+        }
+      }
+      if (in.read() >= 0) {
+        return null;
+      }
+    }
+    bytes.flip();
+    return bytes;
+  }
+
+  /**
+   * Attributes worth replaying on later responses; the blob handle is left out since responses are no longer read
+   * from it.
+   */
+  private static List<Map.Entry<String, Object>> attributes(final Content content) {
+    List<Map.Entry<String, Object>> attributes = new ArrayList<>();
+    for (Map.Entry<String, Object> attribute : content.getAttributes().entries()) {
+      if (!Blob.class.getName().equals(attribute.getKey()) && !Asset.class.getName().equals(attribute.getKey())) {
+        attributes.add(attribute);
+      }
+    }
+    return attributes;
+  }
+
+  private static String key(final String repository, final String path) {
+    return repository + ':' + path;
+  }
+
+  private static final class Held
+  {
+    private final String path;
+
+    private final String blobRef;
+
+    private final ByteBuffer bytes;
+
+    private final String contentType;
+
+    private final List<Map.Entry<String, Object>> attributes;
+
+    private Held(final String path,
+                 final String blobRef,
+                 final ByteBuffer bytes,
+                 final String contentType,
+                 final List<Map.Entry<String, Object>> attributes)
+    {
+      this.path = path;
+      this.blobRef = blobRef;
+      this.bytes = bytes;
+      this.contentType = contentType;
+      this.attributes = attributes;
+    }
+  }
+
+  /**
+   * Count-min sketch of recent request counts with 4-bit saturating counters, halved once enough requests have been
+   * counted so popularity fades with time. Guarded by the tier.
+   */
+  static final class FrequencySketch
+  {
+    private static final int WIDTH = 1 << 16;
+
+    private static final int DEPTH = 4;
+
+    private static final int MAX_COUNT = 15;
+
+    private static final int SAMPLE_SIZE = 10 * WIDTH;
+
+    private final byte[] counters = new byte[WIDTH];
+
+    private int additions;
+
+    int frequency(final String key) {
+      int hash = spread(key.hashCode());
+      int step = rehash(hash);
+      int frequency = MAX_COUNT;
+      for (int i = 0; i < DEPTH; i++) {
+        frequency = Math.min(frequency, counters[(hash + i * step) & (WIDTH - 1)]);
+      }
+      return frequency;
+    }
+
+    void increment(final String key) {
+      int hash = spread(key.hashCode());
+      int step = rehash(hash);
+      for (int i = 0; i < DEPTH; i++) {
+        int index = (hash + i * step) & (WIDTH - 1);
+        if (counters[index] < MAX_COUNT) {
+          counters[index]++;
+        }
+      }
+      if (++additions >= SAMPLE_SIZE) {
+        for (int i = 0; i < WIDTH; i++) {
+          counters[i] >>>= 1;
+        }
+        additions /= 2;
+      }
+    }
+
+    private static int spread(final int hash) {
+      int h = hash * 0x9e3779b9;
+      return h ^ (h >>> 16);
+    }
+
+    private static int rehash(final int hash) {
+      int h = hash * 0x31848bab;
+      return (h ^ (h >>> 14)) | 1;
+    }
+  }
+}
@@ -1,16 +1,24 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
 
 import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import com.codahale.metrics.Counter;
+
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyMetrics;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyRequestTrace;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyRequestTracer;
 import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyUpstreamClient;
 import org.sonatype.nexus.repository.httpclient.HttpClientFacet;
 import org.sonatype.nexus.repository.http.HttpResponses;
@@ -50,9 +58,26 @@ public class AnsibleGalaxyProxyHandler
 
   private final GalaxyUpstreamClient upstreamClient;
 
+  private final GalaxyMetrics metrics;
+
+  private final GalaxyRequestTracer tracer;
+
+  private final Counter inFlight;
+
+  private final Counter cacheHits;
+
+  private final Counter cacheMisses;
+
   @Inject
-  public AnsibleGalaxyProxyHandler(final GalaxyUpstreamClient upstreamClient) {
+  public AnsibleGalaxyProxyHandler(final GalaxyUpstreamClient upstreamClient,
+                                   final GalaxyMetrics metrics,
+                                   final GalaxyRequestTracer tracer) {
     this.upstreamClient = upstreamClient;
+    this.metrics = metrics;
+    this.tracer = tracer;
+    this.inFlight = metrics.counter(GalaxyMetrics.PROXY, "in-flight");
+    this.cacheHits = metrics.counter(GalaxyMetrics.PROXY, "cache", "hit");
+    this.cacheMisses = metrics.counter(GalaxyMetrics.PROXY, "cache", "miss");
   }
 
   @Nonnull
@@ -63,12 +88,28 @@ public class AnsibleGalaxyProxyHandler
     switch (method) {
       case GET:
       case HEAD:
-        return handleGet(context);
+        inFlight.inc();
+        try {
+          return handleGet(context);
+        }
+        finally {
+          inFlight.dec();
+        }
       default:
         return HttpResponses.methodNotAllowed(method, GET);
     }
   }
 
+  /**
+   * Runs a route, recording its latency under the route name and tracing its phases.
+   */
+  private Response timed(final Context context, final String route, final Callable<Response> handler)
+      throws Exception
+  {
+    return metrics.timer(GalaxyMetrics.PROXY, route)
+        .time(() -> tracer.trace(context, GalaxyMetrics.PROXY, route, handler));
+  }
+
   private Response handleGet(final Context context) throws Exception {
     Map<String, String> tokens = context.getAttributes()
         .require(TokenMatcher.State.class).getTokens();
@@ -82,12 +123,12 @@ public class AnsibleGalaxyProxyHandler
 
     // Check for API root discovery
     if (tokens.containsKey("api_root")) {
-      return jsonResponse(API_ROOT_JSON);
+      return timed(context, "api-root", () -> jsonResponse(API_ROOT_JSON));
     }
 
     // Route: artifact download (has "filename" token) — cached
     if (tokens.containsKey("filename")) {
-      return handleArtifactDownload(contentFacet, httpClient, remoteUrl, tokens);
+      return timed(context, "artifact", () -> handleArtifactDownload(contentFacet, httpClient, remoteUrl, tokens));
     }
 
     String queryString = extractQueryString(context);
@@ -97,28 +138,25 @@ public class AnsibleGalaxyProxyHandler
 
     // Route: version detail
     if (namespace != null && name != null && version != null) {
-      String json = upstreamClient.fetchVersionDetail(httpClient, remoteUrl, repoUrl,
-          namespace, name, version);
-      return jsonResponse(json);
+      return timed(context, "version-detail", () -> jsonResponse(upstreamClient.fetchVersionDetail(httpClient,
+          remoteUrl, repoUrl, namespace, name, version)));
     }
 
     // Route: version list
     if (namespace != null && name != null && tokens.containsKey("version_marker")) {
-      String json = upstreamClient.fetchVersionList(httpClient, remoteUrl, repoUrl,
-          namespace, name, queryString);
-      return jsonResponse(json);
+      return timed(context, "version-list", () -> jsonResponse(upstreamClient.fetchVersionList(httpClient,
+          remoteUrl, repoUrl, namespace, name, queryString)));
     }
 
     // Route: collection detail
     if (namespace != null && name != null) {
-      String json = upstreamClient.fetchCollectionDetail(httpClient, remoteUrl, repoUrl,
-          namespace, name);
-      return jsonResponse(json);
+      return timed(context, "collection-detail", () -> jsonResponse(upstreamClient.fetchCollectionDetail(httpClient,
+          remoteUrl, repoUrl, namespace, name)));
     }
 
     // Route: collection list
-    String json = upstreamClient.fetchCollectionList(httpClient, remoteUrl, repoUrl, queryString);
-    return jsonResponse(json);
+    return timed(context, "collection-list", () -> jsonResponse(upstreamClient.fetchCollectionList(httpClient,
+        remoteUrl, repoUrl, queryString)));
   }
 
   /**
@@ -132,13 +170,18 @@ public class AnsibleGalaxyProxyHandler
     String path = "/collections/artifacts/" + filename;
 
     // Check local cache first
-    Optional<Content> cached = contentFacet.get(path);
+    Optional<Content> cached;
+    try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+      cached = contentFacet.get(path);
+    }
     if (cached.isPresent()) {
+      cacheHits.inc();
       log.debug("Serving cached artifact: {}", filename);
       return HttpResponses.ok(cached.get());
     }
 
     // Cache miss — fetch from upstream
+    cacheMisses.inc();
     log.debug("Cache miss for artifact: {}, fetching from upstream", filename);
     Content upstream = upstreamClient.fetchArtifact(httpClient, remoteUrl, filename);
     if (upstream == null) {
@@ -148,9 +191,13 @@ public class AnsibleGalaxyProxyHandler
     // Extract namespace/name/version from filename: {ns}-{name}-{version}.tar.gz
     String[] parts = parseFilename(filename);
     if (parts != null) {
-      contentFacet.putCollection(path, upstream, parts[0], parts[1], parts[2]);
-      // Re-fetch from store to get proper Content with blob metadata
-      Optional<Content> stored = contentFacet.get(path);
+      // storing streams the artifact body from upstream into the blob store, so that transfer counts as db time
+      Optional<Content> stored;
+      try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+        contentFacet.putCollection(path, upstream, parts[0], parts[1], parts[2]);
+        // Re-fetch from store to get proper Content with blob metadata
+        stored = contentFacet.get(path);
+      }
       if (stored.isPresent()) {
         return HttpResponses.ok(stored.get());
       }
@@ -191,9 +238,16 @@ public class AnsibleGalaxyProxyHandler
   }
 
   private String extractQueryString(final Context context) {
-    String url = context.getRequest().getPath();
-    int qIdx = url.indexOf('?');
-    return qIdx >= 0 ? url.substring(qIdx + 1) : null;
+    StringBuilder query = new StringBuilder();
+    for (Map.Entry<String, String> parameter : context.getRequest().getParameters()) {
+      if (query.length() > 0) {
+        query.append('&');
+      }
+      query.append(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8))
+          .append('=')
+          .append(URLEncoder.encode(parameter.getValue(), StandardCharsets.UTF_8));
+    }
+    return query.length() > 0 ? query.toString() : null;
   }
 
   private Response jsonResponse(final String json) {
@@ -28,7 +28,6 @@ import org.sonatype.nexus.repository.view.handlers.ConditionalRequestHandler;
 import org.sonatype.nexus.repository.view.handlers.ContentHeadersHandler;
 import org.sonatype.nexus.repository.view.handlers.ExceptionHandler;
 import org.sonatype.nexus.repository.view.handlers.HandlerContributor;
-import org.sonatype.nexus.repository.view.handlers.LastDownloadedHandler;
 import org.sonatype.nexus.repository.view.handlers.TimingHandler;
 import org.sonatype.nexus.repository.view.matchers.ActionMatcher;
 import org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers;
@@ -87,6 +86,9 @@ public class AnsibleGalaxyProxyRecipe
   @Inject
   Provider<PurgeUnusedFacet> purgeUnusedFacet;
 
+  @Inject
+  Provider<AnsibleGalaxyCacheQuotaFacet> cacheQuotaFacet;
+
   @Inject
   TimingHandler timingHandler;
 
@@ -109,7 +111,7 @@ public class AnsibleGalaxyProxyRecipe
   ContentHeadersHandler contentHeadersHandler;
 
   @Inject
-  LastDownloadedHandler lastDownloadedHandler;
+  AnsibleGalaxyLastDownloadedHandler lastDownloadedHandler;
 
   @Inject
   AnsibleGalaxyProxyHandler proxyHandler;
@@ -131,6 +133,7 @@ public class AnsibleGalaxyProxyRecipe
     repository.attach(searchFacet.get());
     repository.attach(browseFacet.get());
     repository.attach(purgeUnusedFacet.get());
+    repository.attach(cacheQuotaFacet.get());
   }
 
   private ViewFacet configure(final ConfigurableViewFacet facet) {
@@ -159,7 +162,6 @@ public class AnsibleGalaxyProxyRecipe
         .handler(handlerContributor)
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
-        .handler(lastDownloadedHandler)
         .handler(proxyHandler)
         .create());
 
@@ -174,7 +176,6 @@ public class AnsibleGalaxyProxyRecipe
         .handler(handlerContributor)
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
-        .handler(lastDownloadedHandler)
         .handler(proxyHandler)
         .create());
 
@@ -189,7 +190,6 @@ public class AnsibleGalaxyProxyRecipe
         .handler(handlerContributor)
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
-        .handler(lastDownloadedHandler)
         .handler(proxyHandler)
         .create());
 
@@ -204,7 +204,6 @@ public class AnsibleGalaxyProxyRecipe
         .handler(handlerContributor)
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
-        .handler(lastDownloadedHandler)
         .handler(proxyHandler)
         .create());
 
@@ -219,7 +218,6 @@ public class AnsibleGalaxyProxyRecipe
         .handler(handlerContributor)
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
-        .handler(lastDownloadedHandler)
         .handler(proxyHandler)
         .create());
 
@@ -234,7 +232,6 @@ public class AnsibleGalaxyProxyRecipe
         .handler(handlerContributor)
         .handler(conditionalRequestHandler)
         .handler(contentHeadersHandler)
-        .handler(lastDownloadedHandler)
         .handler(proxyHandler)
         .create());
 
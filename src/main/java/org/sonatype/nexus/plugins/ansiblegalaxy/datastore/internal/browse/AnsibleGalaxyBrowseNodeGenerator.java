@@ -4,10 +4,16 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
-import org.sonatype.nexus.repository.content.browse.AssetPathBrowseNodeGenerator;
+import org.sonatype.nexus.repository.content.browse.ComponentPathBrowseNodeGenerator;
 
+/**
+ * Places collection tarballs under a {@code namespace/name/version/} tree built from component coordinates, so
+ * browse folders stay small instead of holding every tarball in {@code /collections/artifacts/}.
+ *
+ * An asset without a component falls back to its asset path layout.
+ */
 @Singleton
 @Named(AnsibleGalaxyFormat.NAME)
 public class AnsibleGalaxyBrowseNodeGenerator
-    extends AssetPathBrowseNodeGenerator {
+    extends ComponentPathBrowseNodeGenerator {
 }
@@ -0,0 +1,47 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.search;
+
+import java.util.function.Consumer;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.CollectionAttributes;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.search.SearchCustomFieldContributor;
+import org.sonatype.nexus.repository.content.search.SearchRecord;
+
+/**
+ * Copies the MANIFEST.json metadata stored by {@link CollectionAttributes} into the format fields of the search
+ * table, in the order declared by {@link AnsibleGalaxySearchMappings}.
+ */
+@Named(AnsibleGalaxyFormat.NAME)
+@Singleton
+public class AnsibleGalaxySearchCustomFieldContributor
+    implements SearchCustomFieldContributor
+{
+  @Override
+  public void populateSearchCustomFields(final SearchRecord searchTableData, final Asset asset) {
+    NestedAttributesMap attributes = asset.attributes().child(AnsibleGalaxyFormat.NAME);
+    if (attributes.isEmpty()) {
+      return;
+    }
+
+    addValue(attributes, CollectionAttributes.TAGS, searchTableData::addFormatFieldValue1);
+    addValue(attributes, CollectionAttributes.DESCRIPTION, searchTableData::addFormatFieldValue2);
+    addValue(attributes, CollectionAttributes.LICENSE, searchTableData::addFormatFieldValue3);
+    addValue(attributes, CollectionAttributes.DEPENDENCIES, searchTableData::addFormatFieldValue4);
+    addValue(attributes, CollectionAttributes.REPOSITORY, searchTableData::addFormatFieldValue5);
+  }
+
+  private static void addValue(final NestedAttributesMap attributes,
+                               final String key,
+                               final Consumer<String> field)
+  {
+    String value = CollectionAttributes.join(attributes.get(key));
+    if (value != null) {
+      field.accept(value);
+    }
+  }
+}
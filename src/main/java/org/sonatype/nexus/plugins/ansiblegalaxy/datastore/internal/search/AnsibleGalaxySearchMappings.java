@@ -0,0 +1,55 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.search;
+
+import java.util.List;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.common.collect.ImmutableList;
+
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.CollectionAttributes;
+import org.sonatype.nexus.repository.rest.SearchMapping;
+import org.sonatype.nexus.repository.rest.SearchMappings;
+import org.sonatype.nexus.repository.rest.sql.SearchField;
+
+import static org.sonatype.nexus.repository.rest.sql.SearchField.FORMAT_FIELD_1;
+import static org.sonatype.nexus.repository.rest.sql.SearchField.FORMAT_FIELD_2;
+import static org.sonatype.nexus.repository.rest.sql.SearchField.FORMAT_FIELD_3;
+import static org.sonatype.nexus.repository.rest.sql.SearchField.FORMAT_FIELD_4;
+import static org.sonatype.nexus.repository.rest.sql.SearchField.FORMAT_FIELD_5;
+
+/**
+ * Exposes the MANIFEST.json metadata stored by {@link CollectionAttributes} as search criteria, for example
+ * {@code ansible-galaxy.dependencies=community.general}.
+ */
+@Named(AnsibleGalaxyFormat.NAME)
+@Singleton
+public class AnsibleGalaxySearchMappings
+    implements SearchMappings
+{
+  private static final String PREFIX = AnsibleGalaxyFormat.NAME + ".";
+
+  private static final String ATTRIBUTES = "assets.attributes." + AnsibleGalaxyFormat.NAME + ".";
+
+  private static final List<SearchMapping> MAPPINGS = ImmutableList.of(
+      mapping(CollectionAttributes.TAGS, "Ansible Galaxy collection tag", FORMAT_FIELD_1),
+      mapping(CollectionAttributes.DESCRIPTION, "Ansible Galaxy collection description", FORMAT_FIELD_2),
+      mapping(CollectionAttributes.LICENSE, "Ansible Galaxy collection license", FORMAT_FIELD_3),
+      mapping(CollectionAttributes.DEPENDENCIES, "Ansible Galaxy collection dependency (namespace.name)",
+          FORMAT_FIELD_4),
+      mapping(CollectionAttributes.REPOSITORY, "Ansible Galaxy collection source repository", FORMAT_FIELD_5)
+  );
+
+  @Override
+  public Iterable<SearchMapping> get() {
+    return MAPPINGS;
+  }
+
+  private static SearchMapping mapping(final String key,
+                                       final String description,
+                                       final SearchField field)
+  {
+    return new SearchMapping(PREFIX + key, ATTRIBUTES + key, description, field);
+  }
+}
@@ -1,6 +1,37 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.store;
 
+import java.time.OffsetDateTime;
+import java.util.List;
+
 import org.sonatype.nexus.repository.content.store.AssetDAO;
 
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * Ansible Galaxy {@link AssetDAO}, extending the asset table with a download count and adding a bulk
+ * last-downloaded update and cache quota queries.
+ */
 public interface AnsibleGalaxyAssetDAO extends AssetDAO {
+
+  /**
+   * Sets the last downloaded time of the given assets, keeping a later time already recorded, and counts one more
+   * download for each. Returns the number of assets updated.
+   */
+  int markAssetsDownloaded(
+      @Param("assetIds") int[] assetIds,
+      @Param("lastDownloaded") OffsetDateTime lastDownloaded);
+
+  /**
+   * Returns the total blob size of the repository's assets of the given kind.
+   */
+  long sumBlobSizes(@Param("repositoryId") int repositoryId, @Param("kind") String kind);
+
+  /**
+   * Returns up to {@code limit} assets of the given kind, least recently downloaded first, leaving out the highest
+   * version of each collection.
+   */
+  List<CachedTarball> browseEvictionCandidates(
+      @Param("repositoryId") int repositoryId,
+      @Param("kind") String kind,
+      @Param("limit") int limit);
 }
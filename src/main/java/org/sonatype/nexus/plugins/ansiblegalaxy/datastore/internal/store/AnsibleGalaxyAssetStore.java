@@ -0,0 +1,53 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.store;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.datastore.api.DataSessionSupplier;
+import org.sonatype.nexus.repository.content.facet.ContentFacetFinder;
+import org.sonatype.nexus.repository.content.store.AssetStore;
+import org.sonatype.nexus.transaction.Transactional;
+
+import com.google.inject.assistedinject.Assisted;
+
+/**
+ * Ansible Galaxy {@link AssetStore}, picked up by {@link AnsibleGalaxyStoreModule} by naming convention.
+ */
+public class AnsibleGalaxyAssetStore
+    extends AssetStore<AnsibleGalaxyAssetDAO>
+{
+  @Inject
+  public AnsibleGalaxyAssetStore(
+      final DataSessionSupplier sessionSupplier,
+      final ContentFacetFinder contentFacetFinder,
+      final EventManager eventManager,
+      @Assisted final String contentStoreName)
+  {
+    super(sessionSupplier, contentFacetFinder, eventManager, contentStoreName, AnsibleGalaxyAssetDAO.class);
+  }
+
+  /**
+   * Sets the last downloaded time of the given assets and counts their download in a single statement.
+   */
+  @Transactional
+  public int markAssetsDownloaded(final int[] assetIds, final OffsetDateTime lastDownloaded) {
+    return dao().markAssetsDownloaded(assetIds, lastDownloaded);
+  }
+
+  @Transactional
+  public long sumBlobSizes(final int repositoryId, final String kind) {
+    return dao().sumBlobSizes(repositoryId, kind);
+  }
+
+  /**
+   * Returns up to {@code limit} assets of the given kind, least recently downloaded first, leaving out the highest
+   * version of each collection.
+   */
+  @Transactional
+  public List<CachedTarball> browseEvictionCandidates(final int repositoryId, final String kind, final int limit) {
+    return dao().browseEvictionCandidates(repositoryId, kind, limit);
+  }
+}
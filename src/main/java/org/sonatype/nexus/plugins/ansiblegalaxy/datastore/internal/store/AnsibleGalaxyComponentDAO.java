@@ -1,6 +1,84 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.store;
 
+import java.util.List;
+
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
 import org.sonatype.nexus.repository.content.store.ComponentDAO;
+import org.sonatype.nexus.repository.content.store.ComponentData;
+
+import org.apache.ibatis.annotations.Param;
 
+/**
+ * Ansible Galaxy {@link ComponentDAO}, extending the component table with a semantic version sort key and adding
+ * a per-collection summary table.
+ */
 public interface AnsibleGalaxyComponentDAO extends ComponentDAO {
+
+  /**
+   * Sets the semantic version sort key of a component.
+   */
+  void updateSemverKey(@Param("componentId") int componentId, @Param("semverKey") String semverKey);
+
+  /**
+   * Returns the versions of a collection ordered by sort key, highest first, followed by versions that are not
+   * semantic versions.
+   */
+  List<String> browseVersionsHighestFirst(
+      @Param("repositoryId") int repositoryId,
+      @Param("namespace") String namespace,
+      @Param("name") String name);
+
+  /**
+   * Returns up to {@code limit} components of the repository that do not have a sort key yet, with only their id
+   * and version populated.
+   */
+  List<ComponentData> browseMissingSemverKeys(
+      @Param("repositoryId") int repositoryId,
+      @Param("limit") int limit);
+
+  /**
+   * Upserts a placeholder summary of the component's collection, taking its row lock until the transaction ends.
+   */
+  void lockCollectionSummary(ComponentData component);
+
+  /**
+   * Recomputes the summary of the component's collection from its current components.
+   */
+  void updateCollectionSummary(ComponentData component);
+
+  /**
+   * Deletes the summary of the component's collection if it no longer has any versions.
+   */
+  void deleteEmptyCollectionSummary(ComponentData component);
+
+  /**
+   * Deletes the summaries of every collection in the repository.
+   */
+  void deleteCollectionSummaries(@Param("repositoryId") int repositoryId);
+
+  /**
+   * Summarises every collection in the repository from its current components.
+   */
+  void insertCollectionSummaries(@Param("repositoryId") int repositoryId);
+
+  int countCollectionSummaries(@Param("repositoryId") int repositoryId);
+
+  /**
+   * Returns a page of collection summaries ordered by namespace and name.
+   */
+  List<CollectionSummary> browseCollectionSummaries(
+      @Param("repositoryId") int repositoryId,
+      @Param("limit") int limit,
+      @Param("offset") int offset);
+
+  CollectionSummary readCollectionSummary(
+      @Param("repositoryId") int repositoryId,
+      @Param("namespace") String namespace,
+      @Param("name") String name);
+
+  /**
+   * Returns the distinct collections of the given components, with only repository id, namespace and name
+   * populated.
+   */
+  List<ComponentData> browseCollectionsOfComponents(@Param("componentIds") int[] componentIds);
 }
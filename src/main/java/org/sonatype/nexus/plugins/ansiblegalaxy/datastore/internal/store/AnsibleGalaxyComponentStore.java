@@ -0,0 +1,132 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.store;
+
+import java.util.List;
+import java.util.Optional;
+
+import javax.inject.Inject;
+
+import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.datastore.api.DataSessionSupplier;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxySemver;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
+import org.sonatype.nexus.repository.content.Component;
+import org.sonatype.nexus.repository.content.facet.ContentFacetFinder;
+import org.sonatype.nexus.repository.content.store.ComponentData;
+import org.sonatype.nexus.repository.content.store.ComponentStore;
+import org.sonatype.nexus.transaction.Transactional;
+
+import com.google.inject.assistedinject.Assisted;
+
+import static org.sonatype.nexus.repository.content.store.InternalIds.internalComponentId;
+
+/**
+ * Ansible Galaxy {@link ComponentStore}, picked up by {@link AnsibleGalaxyStoreModule} by naming convention.
+ *
+ * Every component create and delete also sets the component's semantic version sort key and refreshes the
+ * summary row of its collection, in the same transaction, so collection lists can read the summary table
+ * instead of aggregating every version.
+ */
+public class AnsibleGalaxyComponentStore
+    extends ComponentStore<AnsibleGalaxyComponentDAO>
+{
+  @Inject
+  public AnsibleGalaxyComponentStore(
+      final DataSessionSupplier sessionSupplier,
+      final ContentFacetFinder contentFacetFinder,
+      final EventManager eventManager,
+      @Assisted final String contentStoreName)
+  {
+    super(sessionSupplier, contentFacetFinder, eventManager, contentStoreName, AnsibleGalaxyComponentDAO.class);
+  }
+
+  @Transactional
+  @Override
+  public void createComponent(final ComponentData component) {
+    super.createComponent(component);
+    dao().updateSemverKey(internalComponentId(component), GalaxySemver.sortKey(component.version()));
+    refreshCollectionSummary(component);
+  }
+
+  @Transactional
+  @Override
+  public boolean deleteComponent(final Component component) {
+    ComponentData data = component instanceof ComponentData
+        ? (ComponentData) component
+        : dao().readComponent(internalComponentId(component)).map(ComponentData.class::cast).orElse(null);
+
+    boolean deleted = super.deleteComponent(component);
+    if (deleted && data != null) {
+      refreshCollectionSummary(data);
+    }
+    return deleted;
+  }
+
+  @Transactional
+  @Override
+  public int purge(final int repositoryId, final int[] componentIds) {
+    List<ComponentData> collections = dao().browseCollectionsOfComponents(componentIds);
+    int purged = super.purge(repositoryId, componentIds);
+    collections.forEach(this::refreshCollectionSummary);
+    return purged;
+  }
+
+  @Transactional
+  @Override
+  public int deleteComponents(final int repositoryId) {
+    dao().deleteCollectionSummaries(repositoryId);
+    return super.deleteComponents(repositoryId);
+  }
+
+  @Transactional
+  public void updateSemverKey(final int componentId, final String semverKey) {
+    dao().updateSemverKey(componentId, semverKey);
+  }
+
+  @Transactional
+  public List<String> browseVersionsHighestFirst(final int repositoryId, final String namespace, final String name) {
+    return dao().browseVersionsHighestFirst(repositoryId, namespace, name);
+  }
+
+  @Transactional
+  public List<ComponentData> browseMissingSemverKeys(final int repositoryId, final int limit) {
+    return dao().browseMissingSemverKeys(repositoryId, limit);
+  }
+
+  @Transactional
+  public int countCollectionSummaries(final int repositoryId) {
+    return dao().countCollectionSummaries(repositoryId);
+  }
+
+  @Transactional
+  public List<CollectionSummary> browseCollectionSummaries(final int repositoryId, final int limit, final int offset) {
+    return dao().browseCollectionSummaries(repositoryId, limit, offset);
+  }
+
+  @Transactional
+  public Optional<CollectionSummary> readCollectionSummary(
+      final int repositoryId,
+      final String namespace,
+      final String name)
+  {
+    return Optional.ofNullable(dao().readCollectionSummary(repositoryId, namespace, name));
+  }
+
+  /**
+   * Recomputes every collection summary of the repository from its components.
+   */
+  @Transactional
+  public void rebuildCollectionSummaries(final int repositoryId) {
+    dao().deleteCollectionSummaries(repositoryId);
+    dao().insertCollectionSummaries(repositoryId);
+  }
+
+  /**
+   * Upserts rather than deletes and re-inserts the row, so concurrent refreshes of one collection wait for each other
+   * on its row lock instead of racing to insert it.
+   */
+  private void refreshCollectionSummary(final ComponentData component) {
+    dao().lockCollectionSummary(component);
+    dao().updateCollectionSummary(component);
+    dao().deleteEmptyCollectionSummary(component);
+  }
+}
@@ -0,0 +1,49 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.store;
+
+/**
+ * A stored collection tarball considered for eviction from a proxy cache.
+ */
+public class CachedTarball {
+
+  private String path;
+
+  private long blobSize;
+
+  private int downloadCount;
+
+  public CachedTarball() {
+  }
+
+  public CachedTarball(final String path, final long blobSize, final int downloadCount) {
+    this.path = path;
+    this.blobSize = blobSize;
+    this.downloadCount = downloadCount;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public void setPath(final String path) {
+    this.path = path;
+  }
+
+  public long getBlobSize() {
+    return blobSize;
+  }
+
+  public void setBlobSize(final long blobSize) {
+    this.blobSize = blobSize;
+  }
+
+  /**
+   * Number of last-downloaded flushes that saw the tarball downloaded.
+   */
+  public int getDownloadCount() {
+    return downloadCount;
+  }
+
+  public void setDownloadCount(final int downloadCount) {
+    this.downloadCount = downloadCount;
+  }
+}
@@ -0,0 +1,224 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Named;
+
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.AnsibleGalaxyContentFacetImpl;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.CollectionManifestReader;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionInfo;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.RepositoryTaskSupport;
+import org.sonatype.nexus.repository.types.HostedType;
+import org.sonatype.nexus.repository.view.payloads.StreamPayload;
+
+import static org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.task.AnsibleGalaxyImportTaskDescriptor.DEFAULT_PARALLELISM;
+import static org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.task.AnsibleGalaxyImportTaskDescriptor.DIRECTORY_FIELD_ID;
+import static org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.task.AnsibleGalaxyImportTaskDescriptor.PARALLELISM_FIELD_ID;
+
+/**
+ * Imports pre-staged collection tar.gz files from a server directory into an Ansible Galaxy hosted repository.
+ *
+ * Files are processed in parallel on a dedicated fork-join pool. Each file's MANIFEST.json is read first and
+ * coordinates that already exist in the repository are skipped, so an interrupted or cancelled run can simply
+ * be started again to resume where it stopped.
+ */
+@Named
+public class AnsibleGalaxyImportTask
+    extends RepositoryTaskSupport
+{
+  static final String TARBALL_SUFFIX = ".tar.gz";
+
+  private static final String CONTENT_TYPE = "application/gzip";
+
+  private static final long PROGRESS_INTERVAL_MILLIS = 10_000L;
+
+  @Override
+  protected void execute(final Repository repository) {
+    Path directory = Paths.get(getConfiguration().getString(DIRECTORY_FIELD_ID));
+    int parallelism = getConfiguration().getInteger(PARALLELISM_FIELD_ID, DEFAULT_PARALLELISM);
+
+    ImportProgress progress = importDirectory(repository.facet(AnsibleGalaxyContentFacet.class),
+        directory, Math.max(1, parallelism));
+
+    log.info("Import into {} finished: {}", repository.getName(), progress);
+  }
+
+  @Override
+  protected boolean appliesTo(final Repository repository) {
+    return AnsibleGalaxyFormat.NAME.equals(repository.getFormat().getValue())
+        && HostedType.NAME.equals(repository.getType().getValue());
+  }
+
+  @Override
+  public String getMessage() {
+    return "Importing Ansible Galaxy collections from " + getConfiguration().getString(DIRECTORY_FIELD_ID)
+        + " into " + getRepositoryField();
+  }
+
+  /**
+   * Walks the directory and imports every collection tarball found, using the given parallelism.
+   */
+  ImportProgress importDirectory(final AnsibleGalaxyContentFacet contentFacet,
+                                 final Path directory,
+                                 final int parallelism) {
+    if (!Files.isDirectory(directory)) {
+      throw new IllegalArgumentException("Import directory does not exist: " + directory);
+    }
+
+    List<Path> files;
+    try (Stream<Path> walk = Files.walk(directory)) {
+      files = walk
+          .filter(Files::isRegularFile)
+          .filter(file -> file.getFileName().toString().endsWith(TARBALL_SUFFIX))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Unable to scan import directory " + directory, e);
+    }
+
+    ImportProgress progress = new ImportProgress(files.size());
+    log.info("Importing {} collection files from {} with parallelism {}", files.size(), directory, parallelism);
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new ImportAction(contentFacet, files, 0, files.size(), progress));
+    }
+    finally {
+      pool.shutdown();
+    }
+    return progress;
+  }
+
+  private void importFile(final AnsibleGalaxyContentFacet contentFacet,
+                          final Path file,
+                          final ImportProgress progress) {
+    if (isCanceled()) {
+      return;
+    }
+    try {
+      CollectionInfo info;
+      try (InputStream in = Files.newInputStream(file)) {
+        info = CollectionManifestReader.readCollectionInfo(in);
+      }
+      if (info == null || info.getNamespace() == null || info.getName() == null || info.getVersion() == null) {
+        log.warn("Skipping {}: unable to extract collection metadata from MANIFEST.json", file);
+        progress.failed.incrementAndGet();
+        return;
+      }
+
+      String path = AnsibleGalaxyContentFacetImpl.buildAssetPath(
+          info.getNamespace(), info.getName(), info.getVersion());
+      if (contentFacet.getAsset(path).isPresent()) {
+        log.debug("Skipping {}: {} already exists", file, path);
+        progress.skipped.incrementAndGet();
+        return;
+      }
+
+      contentFacet.putCollection(new StreamPayload(() -> Files.newInputStream(file), Files.size(file), CONTENT_TYPE));
+      progress.imported.incrementAndGet();
+    }
+    catch (IOException | RuntimeException e) {
+      // a file failing for any reason must not escape the fork and abort the other files of the run
+      log.warn("Failed to import {}", file, e);
+      progress.failed.incrementAndGet();
+    }
+    finally {
+      progress.maybeLog();
+    }
+  }
+
+  /**
+   * Splits the file list in halves until a single file remains, then imports it.
+   */
+  private class ImportAction
+      extends RecursiveAction
+  {
+    private final AnsibleGalaxyContentFacet contentFacet;
+
+    private final List<Path> files;
+
+    private final int from;
+
+    private final int to;
+
+    private final ImportProgress progress;
+
+    ImportAction(final AnsibleGalaxyContentFacet contentFacet,
+                 final List<Path> files,
+                 final int from,
+                 final int to,
+                 final ImportProgress progress) {
+      this.contentFacet = contentFacet;
+      this.files = files;
+      this.from = from;
+      this.to = to;
+      this.progress = progress;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= 1) {
+        if (from < to) {
+          importFile(contentFacet, files.get(from), progress);
+        }
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(
+          new ImportAction(contentFacet, files, from, mid, progress),
+          new ImportAction(contentFacet, files, mid, to, progress));
+    }
+  }
+
+  /**
+   * Thread-safe counters for an import run, logged periodically while the run progresses.
+   */
+  class ImportProgress
+  {
+    final int total;
+
+    final AtomicLong imported = new AtomicLong();
+
+    final AtomicLong skipped = new AtomicLong();
+
+    final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong lastLogged = new AtomicLong(System.currentTimeMillis());
+
+    ImportProgress(final int total) {
+      this.total = total;
+    }
+
+    long processed() {
+      return imported.get() + skipped.get() + failed.get();
+    }
+
+    void maybeLog() {
+      long now = System.currentTimeMillis();
+      long last = lastLogged.get();
+      if (now - last >= PROGRESS_INTERVAL_MILLIS && lastLogged.compareAndSet(last, now)) {
+        log.info("Import progress: {}", this);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return processed() + "/" + total + " processed (imported=" + imported.get()
+          + ", skipped=" + skipped.get() + ", failed=" + failed.get() + ")";
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.task;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.common.upgrade.AvailabilityVersion;
+import org.sonatype.nexus.formfields.FormField;
+import org.sonatype.nexus.formfields.NumberTextFormField;
+import org.sonatype.nexus.formfields.RepositoryCombobox;
+import org.sonatype.nexus.formfields.StringTextFormField;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.repository.RepositoryTaskSupport;
+import org.sonatype.nexus.repository.types.HostedType;
+import org.sonatype.nexus.scheduling.TaskDescriptorSupport;
+
+/**
+ * Descriptor for {@link AnsibleGalaxyImportTask}.
+ */
+@AvailabilityVersion(from = "1.0")
+@Named
+@Singleton
+public class AnsibleGalaxyImportTaskDescriptor
+    extends TaskDescriptorSupport
+{
+  public static final String TYPE_ID = "repository.ansible-galaxy.import";
+
+  public static final String DIRECTORY_FIELD_ID = "directory";
+
+  public static final String PARALLELISM_FIELD_ID = "parallelism";
+
+  public static final int DEFAULT_PARALLELISM = 4;
+
+  public AnsibleGalaxyImportTaskDescriptor() {
+    super(TYPE_ID,
+        AnsibleGalaxyImportTask.class,
+        "Ansible Galaxy - Import collections from a server directory",
+        VISIBLE,
+        EXPOSED,
+        new RepositoryCombobox(
+            RepositoryTaskSupport.REPOSITORY_NAME_FIELD_ID,
+            "Repository",
+            "Select the Ansible Galaxy hosted repository to import into",
+            FormField.MANDATORY
+        ).includingAnyOfFormats(AnsibleGalaxyFormat.NAME).includingAnyOfTypes(HostedType.NAME),
+        new StringTextFormField(
+            DIRECTORY_FIELD_ID,
+            "Directory",
+            "Server directory to scan recursively for collection *.tar.gz files",
+            FormField.MANDATORY
+        ),
+        new NumberTextFormField(
+            PARALLELISM_FIELD_ID,
+            "Parallelism",
+            "Number of collection files to import concurrently",
+            FormField.OPTIONAL
+        ).withInitialValue(DEFAULT_PARALLELISM).withMinimumValue(1));
+  }
+}
@@ -0,0 +1,113 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.view.Payload;
+
+/**
+ * Serves bytes held in a {@link ByteBuffer}, typically a direct buffer kept off the heap. Every stream reads its own
+ * view of the buffer, so one buffer can back any number of concurrent responses.
+ */
+public class ByteBufferPayload
+    implements Payload
+{
+  private static final int CHUNK_SIZE = 8192;
+
+  private final ByteBuffer buffer;
+
+  private final String contentType;
+
+  public ByteBufferPayload(final ByteBuffer buffer, @Nullable final String contentType) {
+    this.buffer = buffer.asReadOnlyBuffer();
+    this.contentType = contentType;
+  }
+
+  @Override
+  public InputStream openInputStream() {
+    return new ByteBufferInputStream(buffer.duplicate());
+  }
+
+  @Override
+  public long getSize() {
+    return buffer.remaining();
+  }
+
+  @Nullable
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public void copy(final InputStream input, final OutputStream output) throws IOException {
+    input.transferTo(output);
+  }
+
+  /**
+   * Reads a buffer view from its position to its limit.
+   */
+  static class ByteBufferInputStream
+      extends InputStream
+  {
+    private final ByteBuffer view;
+
+    ByteBufferInputStream(final ByteBuffer view) {
+      this.view = view;
+    }
+
+    @Override
+    public int read() {
+      return view.hasRemaining() ? view.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!view.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, view.remaining());
+      view.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public long skip(final long n) {
+      int skipped = (int) Math.max(0, Math.min(n, view.remaining()));
+      view.position(view.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return view.remaining();
+    }
+
+    @Override
+    public long transferTo(final OutputStream out) throws IOException {
+      long transferred = view.remaining();
+      if (out instanceof WritableByteChannel) {
+        WritableByteChannel channel = (WritableByteChannel) out;
+        // a channel that accepts nothing gets the rest through the chunked copy below
+        while (view.hasRemaining() && channel.write(view) > 0) {
+          // keep writing
+        }
+      }
+      byte[] chunk = new byte[Math.min(CHUNK_SIZE, view.remaining())];
+      while (view.hasRemaining()) {
+        int n = Math.min(chunk.length, view.remaining());
+        view.get(chunk, 0, n);
+        out.write(chunk, 0, n);
+      }
+      return transferred;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionInfo;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionManifest;
+
+/**
+ * Collection metadata taken from MANIFEST.json, stored as asset attributes under the
+ * {@link AnsibleGalaxyFormat#NAME format} key: the searchable collection_info fields, plus the complete manifest
+ * so version details can be answered without reading the tarball.
+ */
+public final class CollectionAttributes {
+
+  public static final String TAGS = "tags";
+
+  public static final String DESCRIPTION = "description";
+
+  public static final String LICENSE = "license";
+
+  /**
+   * The namespace.name of each dependency; version ranges are not searchable.
+   */
+  public static final String DEPENDENCIES = "dependencies";
+
+  public static final String REPOSITORY = "repository";
+
+  /**
+   * The complete MANIFEST.json, holding collection_info and file_manifest_file.
+   */
+  public static final String MANIFEST = "manifest";
+
+  private CollectionAttributes() {
+  }
+
+  /**
+   * Returns the searchable attributes of the collection together with its complete manifest.
+   */
+  public static Map<String, Object> fromManifest(final CollectionManifest manifest) {
+    Map<String, Object> attributes = fromCollectionInfo(manifest.getCollectionInfo());
+    attributes.put(MANIFEST, manifest.getManifest());
+    return attributes;
+  }
+
+  /**
+   * Returns the searchable attributes of the collection, leaving out fields that are missing or empty.
+   */
+  public static Map<String, Object> fromCollectionInfo(final CollectionInfo info) {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    putIfPresent(attributes, TAGS, info.getTags());
+    putIfPresent(attributes, DESCRIPTION, info.getDescription());
+    putIfPresent(attributes, LICENSE, info.getLicense());
+    if (info.getDependencies() != null) {
+      putIfPresent(attributes, DEPENDENCIES, new ArrayList<>(info.getDependencies().keySet()));
+    }
+    putIfPresent(attributes, REPOSITORY, info.getRepository());
+    return attributes;
+  }
+
+  private static void putIfPresent(final Map<String, Object> attributes, final String key, final String value) {
+    if (value != null && !value.trim().isEmpty()) {
+      attributes.put(key, value);
+    }
+  }
+
+  private static void putIfPresent(final Map<String, Object> attributes, final String key, final List<String> values) {
+    if (values != null && !values.isEmpty()) {
+      attributes.put(key, values);
+    }
+  }
+
+  /**
+   * Joins a list attribute into a single space separated value, as stored in a search field.
+   */
+  public static String join(final Object value) {
+    if (value instanceof Collection) {
+      StringBuilder joined = new StringBuilder();
+      for (Object element : (Collection<?>) value) {
+        if (joined.length() > 0) {
+          joined.append(' ');
+        }
+        joined.append(element);
+      }
+      return joined.toString();
+    }
+    return value != null ? value.toString() : null;
+  }
+}
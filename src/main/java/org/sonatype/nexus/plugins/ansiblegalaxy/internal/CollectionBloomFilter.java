@@ -0,0 +1,82 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+/**
+ * Bloom filter of the collections and collection tarballs stored in a repository, answering "definitely not
+ * stored" without a database query.
+ *
+ * Each stored version adds two keys: {@code namespace/name} for the collection and the tarball path for the
+ * version. Bloom filters cannot remove keys, so deleted versions keep answering "maybe" and fall through to the
+ * database; the filter reports itself {@link #isStale() stale} once enough keys were added or removed that it
+ * should be rebuilt. Adding and querying are safe from any thread.
+ */
+public final class CollectionBloomFilter
+{
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  private static final long MINIMUM_CAPACITY = 10_000L;
+
+  private final BloomFilter<CharSequence> filter;
+
+  private final long capacity;
+
+  private final AtomicLong insertions = new AtomicLong();
+
+  private final AtomicLong removals = new AtomicLong();
+
+  private CollectionBloomFilter(final long capacity) {
+    this.capacity = capacity;
+    this.filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), capacity,
+        FALSE_POSITIVE_PROBABILITY);
+  }
+
+  /**
+   * Creates an empty filter sized for the given number of versions, with room for the repository to double.
+   */
+  public static CollectionBloomFilter forVersions(final long expectedVersions) {
+    // two keys per version, doubled for growth
+    return new CollectionBloomFilter(Math.max(MINIMUM_CAPACITY, expectedVersions * 4));
+  }
+
+  public void add(final String namespace, final String name, final String tarballPath) {
+    if (filter.put(collectionKey(namespace, name))) {
+      insertions.incrementAndGet();
+    }
+    if (filter.put(tarballPath)) {
+      insertions.incrementAndGet();
+    }
+  }
+
+  /**
+   * Records that versions were deleted. Their keys stay in the filter and only make it less selective.
+   */
+  public void removed(final int versions) {
+    removals.addAndGet(versions);
+  }
+
+  public boolean mightContainCollection(final String namespace, final String name) {
+    return filter.mightContain(collectionKey(namespace, name));
+  }
+
+  public boolean mightContainTarball(final String tarballPath) {
+    return filter.mightContain(tarballPath);
+  }
+
+  /**
+   * Returns true when the filter holds more keys than it was sized for, or when the versions deleted since it was
+   * built reach a quarter of its capacity, so its false positive rate has drifted above the target.
+   */
+  public boolean isStale() {
+    return insertions.get() > capacity || removals.get() * 4 > capacity;
+  }
+
+  private static String collectionKey(final String namespace, final String name) {
+    // tarball paths always start with '/', so they never collide with collection keys
+    return namespace + "/" + name;
+  }
+}
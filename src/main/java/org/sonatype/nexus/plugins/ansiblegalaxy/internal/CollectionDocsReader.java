@@ -0,0 +1,150 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+/**
+ * Builds the Galaxy docs-blob document from an Ansible Galaxy collection tar.gz stream: the collection README,
+ * Markdown files under docs/, and the DOCUMENTATION, EXAMPLES and RETURN blocks of each plugin.
+ *
+ * Text is kept as found in the tarball; README and docs files are returned as Markdown rather than rendered HTML,
+ * and plugin doc strings as their YAML source.
+ */
+public final class CollectionDocsReader {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  /**
+   * Files larger than this are left out of the docs blob.
+   */
+  private static final long MAX_FILE_SIZE = 1024 * 1024;
+
+  // Entries sit at the archive root, or under a single {namespace}-{name}-{version}/ directory
+  private static final String ROOT = "(?:\\./)?(?:[^/]+-[^/]+-[^/]+/)?";
+
+  private static final Pattern README = Pattern.compile(ROOT + "README\\.md");
+
+  private static final Pattern DOCS_FILE = Pattern.compile(ROOT + "docs/([^/]+\\.md)");
+
+  private static final Pattern PLUGIN = Pattern.compile(ROOT + "plugins/([a-z_]+)/([^/]+)\\.py");
+
+  private static final Pattern DOC_STRING = Pattern.compile(
+      "^(DOCUMENTATION|EXAMPLES|RETURN)\\s*=\\s*[rRuU]?('''|\"\"\")(.*?)\\2", Pattern.MULTILINE | Pattern.DOTALL);
+
+  private CollectionDocsReader() {
+  }
+
+  /**
+   * Reads the collection tar.gz and returns the docs-blob response document as JSON.
+   * The given stream is closed before returning.
+   */
+  public static byte[] readDocsBlob(final InputStream in) throws IOException {
+    Map<String, Object> readme = null;
+    List<Map<String, Object>> documentationFiles = new ArrayList<>();
+    List<Map<String, Object>> contents = new ArrayList<>();
+
+    try (BufferedInputStream bis = new BufferedInputStream(in);
+         GzipCompressorInputStream gzis = new GzipCompressorInputStream(bis);
+         TarArchiveInputStream tais = new TarArchiveInputStream(gzis)) {
+
+      TarArchiveEntry entry;
+      while ((entry = tais.getNextEntry()) != null) {
+        if (!entry.isFile() || entry.getSize() > MAX_FILE_SIZE) {
+          continue;
+        }
+        String entryName = entry.getName();
+
+        if (README.matcher(entryName).matches()) {
+          readme = markdownFile("README.md", readText(tais));
+          continue;
+        }
+
+        Matcher docsFile = DOCS_FILE.matcher(entryName);
+        if (docsFile.matches()) {
+          documentationFiles.add(markdownFile(docsFile.group(1), readText(tais)));
+          continue;
+        }
+
+        Matcher plugin = PLUGIN.matcher(entryName);
+        if (plugin.matches() && !plugin.group(2).equals("__init__")) {
+          Map<String, Object> docStrings = readDocStrings(readText(tais));
+          if (docStrings.containsKey("doc")) {
+            Map<String, Object> content = new LinkedHashMap<>();
+            content.put("content_name", plugin.group(2));
+            content.put("content_type", contentType(plugin.group(1)));
+            content.put("doc_strings", docStrings);
+            contents.add(content);
+          }
+        }
+      }
+    }
+
+    Map<String, Object> docsBlob = new LinkedHashMap<>();
+    docsBlob.put("collection_readme", readme);
+    docsBlob.put("documentation_files", documentationFiles);
+    docsBlob.put("contents", contents);
+    return OBJECT_MAPPER.writeValueAsBytes(Collections.singletonMap("docs_blob", docsBlob));
+  }
+
+  /**
+   * Extracts the DOCUMENTATION, EXAMPLES and RETURN string literals from plugin source, keyed as Galaxy does.
+   */
+  static Map<String, Object> readDocStrings(final String source) {
+    Map<String, Object> docStrings = new LinkedHashMap<>();
+    Matcher matcher = DOC_STRING.matcher(source);
+    while (matcher.find()) {
+      switch (matcher.group(1)) {
+        case "DOCUMENTATION":
+          docStrings.put("doc", matcher.group(3));
+          break;
+        case "EXAMPLES":
+          docStrings.put("examples", matcher.group(3));
+          break;
+        default:
+          docStrings.put("return", matcher.group(3));
+          break;
+      }
+    }
+    return docStrings;
+  }
+
+  /**
+   * Galaxy names module content "module"; other plugin types keep their directory name, such as "lookup".
+   */
+  private static String contentType(final String pluginDirectory) {
+    return "modules".equals(pluginDirectory) ? "module" : pluginDirectory;
+  }
+
+  private static Map<String, Object> markdownFile(final String name, final String markdown) {
+    Map<String, Object> file = new LinkedHashMap<>();
+    file.put("name", name);
+    file.put("markdown", markdown);
+    return file;
+  }
+
+  private static String readText(final InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
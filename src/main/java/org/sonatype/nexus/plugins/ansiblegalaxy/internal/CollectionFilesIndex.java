@@ -0,0 +1,207 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Compact index of a collection's FILES.json, built once at ingest so file listings never need the tarball.
+ *
+ * The index is UTF-8 text with one line per entry: the file type ({@code f} or {@code d}), a tab, the SHA-256 of
+ * the file (empty for directories), a tab and the path. {@link #toFilesJson(InputStream)} turns it back into
+ * FILES.json while reading, one entry at a time, so large listings are never held in memory.
+ */
+public final class CollectionFilesIndex {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final int FORMAT = 1;
+
+  private CollectionFilesIndex() {
+  }
+
+  /**
+   * Builds the index from a FILES.json stream. Entries whose path contains a line break are left out.
+   * The given stream is not closed.
+   */
+  public static byte[] fromFilesJson(final InputStream in) throws IOException {
+    ByteArrayOutputStream index = new ByteArrayOutputStream();
+    try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+      parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("FILES.json is not an object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+        if ("files".equals(field) && value == JsonToken.START_ARRAY) {
+          while (parser.nextToken() == JsonToken.START_OBJECT) {
+            writeEntry(parser, index);
+          }
+        }
+        else {
+          parser.skipChildren();
+        }
+      }
+    }
+    return index.toByteArray();
+  }
+
+  /**
+   * Reads one FILES.json entry object and appends its index line.
+   */
+  private static void writeEntry(final JsonParser parser, final ByteArrayOutputStream index) throws IOException {
+    String name = null;
+    String ftype = null;
+    String sha256 = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "name":
+          name = parser.getValueAsString();
+          break;
+        case "ftype":
+          ftype = parser.getValueAsString();
+          break;
+        case "chksum_sha256":
+          sha256 = parser.getValueAsString();
+          break;
+        default:
+          parser.skipChildren();
+          break;
+      }
+    }
+    if (name == null || name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0) {
+      return;
+    }
+    String line = ("dir".equals(ftype) ? "d" : "f") + '\t' + (sha256 != null ? sha256 : "") + '\t' + name + '\n';
+    index.write(line.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns a stream of the FILES.json document described by the index, generated as it is read.
+   * Closing the returned stream closes the index stream.
+   */
+  public static InputStream toFilesJson(final InputStream index) {
+    return new FilesJsonInputStream(index);
+  }
+
+  /**
+   * Pulls one index line at a time and renders it into a small buffer, so output starts immediately and memory
+   * use does not grow with the number of files.
+   */
+  private static class FilesJsonInputStream
+      extends InputStream
+  {
+    private final BufferedReader reader;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private final JsonGenerator generator;
+
+    private byte[] chunk = new byte[0];
+
+    private int position;
+
+    private boolean finished;
+
+    FilesJsonInputStream(final InputStream index) {
+      this.reader = new BufferedReader(new InputStreamReader(index, StandardCharsets.UTF_8));
+      try {
+        this.generator = JSON_FACTORY.createGenerator(buffer);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("files");
+      }
+      catch (IOException e) {
+        // writing to a ByteArrayOutputStream does not fail
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!fill()) {
+        return -1;
+      }
+      return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1;
+      }
+      int count = Math.min(len, chunk.length - position);
+      System.arraycopy(chunk, position, b, off, count);
+      position += count;
+      return count;
+    }
+
+    /**
+     * Makes sure unread output is buffered; returns false once everything has been read.
+     */
+    private boolean fill() throws IOException {
+      while (position >= chunk.length) {
+        if (finished) {
+          return false;
+        }
+        String line = reader.readLine();
+        if (line == null) {
+          generator.writeEndArray();
+          generator.writeNumberField("format", FORMAT);
+          generator.writeEndObject();
+          finished = true;
+        }
+        else {
+          writeFile(line);
+        }
+        generator.flush();
+        chunk = buffer.toByteArray();
+        buffer.reset();
+        position = 0;
+      }
+      return true;
+    }
+
+    private void writeFile(final String line) throws IOException {
+      int firstTab = line.indexOf('\t');
+      int secondTab = line.indexOf('\t', firstTab + 1);
+      if (firstTab < 0 || secondTab < 0) {
+        return;
+      }
+      boolean dir = line.startsWith("d");
+      String sha256 = line.substring(firstTab + 1, secondTab);
+
+      generator.writeStartObject();
+      generator.writeStringField("name", line.substring(secondTab + 1));
+      generator.writeStringField("ftype", dir ? "dir" : "file");
+      if (sha256.isEmpty()) {
+        generator.writeNullField("chksum_type");
+        generator.writeNullField("chksum_sha256");
+      }
+      else {
+        generator.writeStringField("chksum_type", "sha256");
+        generator.writeStringField("chksum_sha256", sha256);
+      }
+      generator.writeNumberField("format", FORMAT);
+      generator.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+}
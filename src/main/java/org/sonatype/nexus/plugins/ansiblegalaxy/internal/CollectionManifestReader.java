@@ -0,0 +1,85 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionInfo;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionManifest;
+
+/**
+ * Reads the MANIFEST.json from an Ansible Galaxy collection tar.gz stream.
+ */
+public final class CollectionManifestReader {
+
+  // entries are read in place, so parsing one must not close the archive stream
+  private static final ObjectMapper OBJECT_MAPPER =
+      new ObjectMapper().configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+
+  private static final TypeReference<Map<String, Object>> MANIFEST_TYPE = new TypeReference<>() { };
+
+  private CollectionManifestReader() {
+  }
+
+  /**
+   * Extracts CollectionInfo from the MANIFEST.json file inside the collection tar.gz.
+   * Returns null when the archive has no MANIFEST.json with a collection_info section.
+   * The given stream is closed before returning.
+   */
+  public static CollectionInfo readCollectionInfo(final InputStream in) throws IOException {
+    CollectionManifest manifest = readManifest(in);
+    return manifest != null ? manifest.getCollectionInfo() : null;
+  }
+
+  /**
+   * Extracts the complete MANIFEST.json from the collection tar.gz, together with an index of FILES.json.
+   * Returns null when the archive has no MANIFEST.json with a collection_info section.
+   * The given stream is closed before returning.
+   */
+  public static CollectionManifest readManifest(final InputStream in) throws IOException {
+    CollectionInfo info = null;
+    Map<String, Object> manifest = null;
+    byte[] filesIndex = null;
+
+    try (BufferedInputStream bis = new BufferedInputStream(in);
+         GzipCompressorInputStream gzis = new GzipCompressorInputStream(bis);
+         TarArchiveInputStream tais = new TarArchiveInputStream(gzis)) {
+
+      TarArchiveEntry entry;
+      // both files are written first by ansible-galaxy collection build, so this rarely reads further
+      while ((manifest == null || filesIndex == null) && (entry = tais.getNextEntry()) != null) {
+        if (entry.isDirectory()) {
+          continue;
+        }
+        // MANIFEST.json is typically at {namespace}-{name}-{version}/MANIFEST.json
+        String entryName = entry.getName();
+        if (manifest == null && isRootFile(entryName, "MANIFEST.json")) {
+          JsonNode root = OBJECT_MAPPER.readTree(tais);
+          JsonNode collectionInfo = root.get("collection_info");
+          if (collectionInfo != null) {
+            info = OBJECT_MAPPER.treeToValue(collectionInfo, CollectionInfo.class);
+            manifest = OBJECT_MAPPER.convertValue(root, MANIFEST_TYPE);
+          }
+        }
+        else if (filesIndex == null && isRootFile(entryName, "FILES.json")) {
+          filesIndex = CollectionFilesIndex.fromFilesJson(tais);
+        }
+      }
+    }
+    return manifest != null ? new CollectionManifest(info, manifest, filesIndex) : null;
+  }
+
+  private static boolean isRootFile(final String entryName, final String fileName) {
+    return entryName.equals(fileName) || entryName.endsWith("/" + fileName);
+  }
+}
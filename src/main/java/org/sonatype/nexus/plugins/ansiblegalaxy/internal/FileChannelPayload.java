@@ -0,0 +1,134 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.view.Payload;
+
+/**
+ * Serves a file through a {@link FileChannel} instead of buffered stream copies.
+ *
+ * {@link #copy(InputStream, OutputStream)} hands the whole remaining file to {@link FileChannel#transferTo}, which
+ * uses sendfile or mapped buffers when the response stream is a channel the JDK can write to directly, and a single
+ * copy otherwise. The input stream reads at explicit file positions and skips by moving the position, so range
+ * requests cut from it by the partial fetch handler never read the bytes they skip.
+ */
+public class FileChannelPayload
+    implements Payload
+{
+  private final Path file;
+
+  private final long size;
+
+  private final String contentType;
+
+  public FileChannelPayload(final Path file, final long size, @Nullable final String contentType) {
+    this.file = file;
+    this.size = size;
+    this.contentType = contentType;
+  }
+
+  @Override
+  public InputStream openInputStream() throws IOException {
+    return new FileChannelInputStream(FileChannel.open(file, StandardOpenOption.READ), size);
+  }
+
+  @Override
+  public long getSize() {
+    return size;
+  }
+
+  @Nullable
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public void copy(final InputStream input, final OutputStream output) throws IOException {
+    input.transferTo(output);
+  }
+
+  /**
+   * Reads a file channel between its current position and a fixed end.
+   */
+  static class FileChannelInputStream
+      extends InputStream
+  {
+    private final FileChannel channel;
+
+    private final long end;
+
+    private long position;
+
+    FileChannelInputStream(final FileChannel channel, final long end) {
+      this.channel = channel;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == 1 ? b[0] & 0xff : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (position >= end) {
+        return -1;
+      }
+      int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+      if (n > 0) {
+        position += n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(final long n) {
+      long skipped = Math.max(0, Math.min(n, end - position));
+      position += skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public long transferTo(final OutputStream out) throws IOException {
+      WritableByteChannel target = out instanceof WritableByteChannel
+          ? (WritableByteChannel) out
+          : Channels.newChannel(out);
+      long transferred = 0;
+      while (position < end) {
+        long n = channel.transferTo(position, end - position, target);
+        if (n <= 0) {
+          // a target that accepts nothing gets the rest through plain reads rather than a truncated body
+          return transferred + super.transferTo(out);
+        }
+        position += n;
+        transferred += n;
+      }
+      return transferred;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Ansible Galaxy metrics, registered in the Nexus metric registry under {@value #PREFIX} so they are listed by
+ * the Nexus metrics endpoint next to the core metrics.
+ *
+ * Metric names:
+ * - {@code ansiblegalaxy.hosted.<route>}, {@code ansiblegalaxy.proxy.<route>}: request latency per route
+ * - {@code ansiblegalaxy.hosted.in-flight}, {@code ansiblegalaxy.proxy.in-flight}: requests being handled
+ * - {@code ansiblegalaxy.proxy.cache.hit}, {@code ansiblegalaxy.proxy.cache.miss}: artifact cache lookups
+ * - {@code ansiblegalaxy.memory-tier.hit}, {@code .miss}, {@code .eviction}: tarball memory tier lookups and
+ *   evictions; {@code ansiblegalaxy.memory-tier.bytes}: gauge of the bytes it holds
+ * - {@code ansiblegalaxy.upstream.requests}: upstream request latency
+ * - {@code ansiblegalaxy.upstream.status.<code>}: upstream responses per HTTP status
+ * - {@code ansiblegalaxy.upstream.bytes}: bytes read from upstream
+ * - {@code ansiblegalaxy.upstream.rewrite}: time spent rewriting upstream URLs
+ * - {@code ansiblegalaxy.builder.serialize}, {@code ansiblegalaxy.builder.json-size}: response serialization time
+ *   and size in characters
+ */
+@Named
+@Singleton
+public class GalaxyMetrics
+{
+  public static final String PREFIX = "ansiblegalaxy";
+
+  public static final String HOSTED = "hosted";
+
+  public static final String PROXY = "proxy";
+
+  static final String UPSTREAM = "upstream";
+
+  static final String BUILDER = "builder";
+
+  private final MetricRegistry registry;
+
+  @Inject
+  public GalaxyMetrics(final MetricRegistry registry) {
+    this.registry = registry;
+  }
+
+  public Timer timer(final String... names) {
+    return registry.timer(MetricRegistry.name(PREFIX, names));
+  }
+
+  public Counter counter(final String... names) {
+    return registry.counter(MetricRegistry.name(PREFIX, names));
+  }
+
+  public Meter meter(final String... names) {
+    return registry.meter(MetricRegistry.name(PREFIX, names));
+  }
+
+  public Histogram histogram(final String... names) {
+    return registry.histogram(MetricRegistry.name(PREFIX, names));
+  }
+
+  /**
+   * Registers a gauge, or returns the gauge already registered under the name.
+   */
+  public <T> Gauge<T> gauge(final Gauge<T> gauge, final String... names) {
+    return registry.gauge(MetricRegistry.name(PREFIX, names), () -> gauge);
+  }
+}
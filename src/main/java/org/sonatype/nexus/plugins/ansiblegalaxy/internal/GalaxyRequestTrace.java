@@ -0,0 +1,177 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.annotation.Nullable;
+
+/**
+ * Wall-clock time spent in each phase of the Galaxy request handled on the current thread.
+ *
+ * {@link GalaxyRequestTracer} begins a trace around a route; code on the request path marks its work with
+ * {@link #phase(String)}, which costs nothing when no trace is active. A phase opened inside another is subtracted
+ * from the outer one, so phase times never overlap and whatever is left of the total is reported as
+ * {@value #OTHER}.
+ */
+public final class GalaxyRequestTrace
+{
+  public static final String DB = "db";
+
+  public static final String UPSTREAM = "upstream";
+
+  public static final String REWRITE = "rewrite";
+
+  public static final String SEMVER = "semver";
+
+  public static final String SERIALIZE = "serialize";
+
+  static final String OTHER = "other";
+
+  private static final ThreadLocal<GalaxyRequestTrace> CURRENT = new ThreadLocal<>();
+
+  private static final Phase NOT_TRACED = new Phase(null, null, null);
+
+  private final long startNanos = System.nanoTime();
+
+  private long elapsedNanos = -1;
+
+  /**
+   * Phase name to accumulated nanos and count, in the order the phases first completed.
+   */
+  private final Map<String, long[]> phases = new LinkedHashMap<>();
+
+  @Nullable
+  private Phase open;
+
+  /**
+   * Starts tracing the current thread. Must be paired with {@link #end()}.
+   */
+  static GalaxyRequestTrace begin() {
+    GalaxyRequestTrace trace = new GalaxyRequestTrace();
+    CURRENT.set(trace);
+    return trace;
+  }
+
+  @Nullable
+  static GalaxyRequestTrace current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Opens a phase of the current trace, to be closed with try-with-resources.
+   */
+  public static Phase phase(final String name) {
+    GalaxyRequestTrace trace = CURRENT.get();
+    if (trace == null) {
+      return NOT_TRACED;
+    }
+    trace.open = new Phase(trace, name, trace.open);
+    return trace.open;
+  }
+
+  /**
+   * Stops the clock and detaches the trace from the thread.
+   */
+  void end() {
+    if (elapsedNanos < 0) {
+      elapsedNanos = System.nanoTime() - startNanos;
+      CURRENT.remove();
+    }
+  }
+
+  long elapsedNanos() {
+    return elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - startNanos;
+  }
+
+  long phaseNanos(final String name) {
+    long[] phase = phases.get(name);
+    return phase != null ? phase[0] : 0;
+  }
+
+  /**
+   * Phases as {@code name=millis} pairs, with call counts for phases that ran more than once, for the slow request
+   * log.
+   */
+  String breakdown() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("total=").append(millis(elapsedNanos()));
+    for (Entry<String, long[]> phase : phases.entrySet()) {
+      sb.append(' ').append(phase.getKey()).append('=').append(millis(phase.getValue()[0]));
+      if (phase.getValue()[1] > 1) {
+        sb.append('(').append(phase.getValue()[1]).append(')');
+      }
+    }
+    sb.append(' ').append(OTHER).append('=').append(millis(otherNanos()));
+    return sb.toString();
+  }
+
+  /**
+   * Phases in the W3C {@code Server-Timing} header format, durations in milliseconds.
+   */
+  String toServerTiming() {
+    StringBuilder sb = new StringBuilder();
+    for (Entry<String, long[]> phase : phases.entrySet()) {
+      sb.append(phase.getKey()).append(";dur=").append(millis(phase.getValue()[0])).append(", ");
+    }
+    sb.append(OTHER).append(";dur=").append(millis(otherNanos())).append(", ");
+    sb.append("total;dur=").append(millis(elapsedNanos()));
+    return sb.toString();
+  }
+
+  private long otherNanos() {
+    long other = elapsedNanos();
+    for (long[] phase : phases.values()) {
+      other -= phase[0];
+    }
+    return Math.max(0, other);
+  }
+
+  private static String millis(final long nanos) {
+    return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+  }
+
+  /**
+   * A running phase; closing it adds its own time, without nested phases, to the trace.
+   */
+  public static final class Phase
+      implements AutoCloseable
+  {
+    private final GalaxyRequestTrace trace;
+
+    private final String name;
+
+    private final Phase parent;
+
+    private final long startNanos;
+
+    private long nestedNanos;
+
+    private Phase(final GalaxyRequestTrace trace, final String name, final Phase parent) {
+      this.trace = trace;
+      this.name = name;
+      this.parent = parent;
+      this.startNanos = trace != null ? System.nanoTime() : 0;
+    }
+
+    @Override
+    public void close() {
+      if (trace == null) {
+        return;
+      }
+      long elapsed = System.nanoTime() - startNanos;
+      long[] phase = trace.phases.get(name);
+      if (phase == null) {
+        phase = new long[2];
+        trace.phases.put(name, phase);
+      }
+      phase[0] += elapsed - nestedNanos;
+      phase[1]++;
+      if (parent != null) {
+        parent.nestedNanos += elapsed;
+      }
+      trace.open = parent;
+    }
+  }
+}
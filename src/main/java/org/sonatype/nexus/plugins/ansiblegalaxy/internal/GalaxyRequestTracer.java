@@ -0,0 +1,77 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.common.Time;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Response;
+
+/**
+ * Traces the phases of Galaxy requests (see {@link GalaxyRequestTrace}).
+ *
+ * Requests taking at least {@code nexus.ansiblegalaxy.trace.slowThreshold} (default 2s) log their phase breakdown
+ * at WARN. With {@code nexus.ansiblegalaxy.trace.timingHeaders=true} every traced response carries the breakdown in
+ * a {@code Server-Timing} header, which browsers and {@code curl -v} show without access to the server log.
+ */
+@Named
+@Singleton
+public class GalaxyRequestTracer
+    extends ComponentSupport
+{
+  public static final String SERVER_TIMING = "Server-Timing";
+
+  private final long slowThresholdNanos;
+
+  private final boolean timingHeaders;
+
+  @Inject
+  public GalaxyRequestTracer(
+      @Named("${nexus.ansiblegalaxy.trace.slowThreshold:-2s}") final Time slowThreshold,
+      @Named("${nexus.ansiblegalaxy.trace.timingHeaders:-false}") final boolean timingHeaders)
+  {
+    this(slowThreshold.toMillis(), timingHeaders);
+  }
+
+  public GalaxyRequestTracer(final long slowThresholdMillis, final boolean timingHeaders) {
+    this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    this.timingHeaders = timingHeaders;
+  }
+
+  /**
+   * Runs a route under a new trace. A route dispatched while another is traced on the same thread, such as a group
+   * member answering inline, is accounted to the outer trace.
+   */
+  public Response trace(final Context context,
+                        final String scope,
+                        final String route,
+                        final Callable<Response> handler) throws Exception
+  {
+    if (GalaxyRequestTrace.current() != null) {
+      return handler.call();
+    }
+
+    GalaxyRequestTrace trace = GalaxyRequestTrace.begin();
+    Response response = null;
+    try {
+      response = handler.call();
+      return response;
+    }
+    finally {
+      trace.end();
+      if (timingHeaders && response != null) {
+        response.getHeaders().set(SERVER_TIMING, trace.toServerTiming());
+      }
+      if (trace.elapsedNanos() >= slowThresholdNanos) {
+        log.warn("Slow Galaxy request repository={} type={} route={} path={} status={} {}",
+            context.getRepository().getName(), scope, route, context.getRequest().getPath(),
+            response != null ? response.getStatus().getCode() : "failed", trace.breakdown());
+      }
+    }
+  }
+}
@@ -1,19 +1,24 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
 import org.sonatype.nexus.plugins.ansiblegalaxy.model.GalaxyArtifact;
 import org.sonatype.nexus.plugins.ansiblegalaxy.model.GalaxyCollection;
 import org.sonatype.nexus.plugins.ansiblegalaxy.model.GalaxyCollectionVersion;
@@ -23,62 +28,57 @@ import org.sonatype.nexus.plugins.ansiblegalaxy.model.GalaxyPaginatedResponse;
 import org.sonatype.nexus.plugins.ansiblegalaxy.model.GalaxyPaginationLinks;
 import org.sonatype.nexus.plugins.ansiblegalaxy.model.GalaxyPaginationMeta;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
-import org.sonatype.nexus.repository.content.fluent.FluentComponent;
 
 /**
- * Builds Galaxy v3 API JSON responses from stored components and assets.
+ * Builds Galaxy v3 API JSON responses from collection summaries, ordered versions and stored assets.
  */
 @Named
 @Singleton
 public class GalaxyResponseBuilder {
 
-  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final ObjectWriter WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
 
   private static final String API_PREFIX = "/api/v3/plugin/ansible/content/published";
 
   private static final int DEFAULT_PAGE_SIZE = 100;
 
+  private static final List<String> METADATA_FIELDS = Arrays.asList(
+      "authors", "dependencies", "description", "documentation", "homepage", "issues", "license", "repository",
+      "tags");
+
+  private final Timer serializeTimer;
+
+  private final Histogram jsonSize;
+
+  @Inject
+  public GalaxyResponseBuilder(final GalaxyMetrics metrics) {
+    this.serializeTimer = metrics.timer(GalaxyMetrics.BUILDER, "serialize");
+    this.jsonSize = metrics.histogram(GalaxyMetrics.BUILDER, "json-size");
+  }
+
   /**
-   * Builds a paginated collection list from all components.
+   * Builds a paginated collection list from one page of collection summaries. The offset and limit must already
+   * be effective values, see {@link #effectiveOffset(int, int)} and {@link #effectiveLimit(int)}.
    */
   public String buildCollectionList(final String baseUrl,
-                                    final Iterable<FluentComponent> components,
+                                    final List<CollectionSummary> page,
+                                    final int total,
                                     final int offset,
                                     final int limit) throws JsonProcessingException {
-    // Collect unique namespace/name pairs with their highest version
-    Map<String, CollectionEntry> collections = new LinkedHashMap<>();
-
-    for (FluentComponent component : components) {
-      String ns = component.namespace();
-      String name = component.name();
-      String version = component.version();
-      String key = ns + "/" + name;
-
-      CollectionEntry entry = collections.computeIfAbsent(key,
-          k -> new CollectionEntry(ns, name));
-      entry.addVersion(version);
-    }
+    List<GalaxyCollection> data = new ArrayList<>(page.size());
 
-    List<CollectionEntry> allEntries = new ArrayList<>(collections.values());
-    int total = allEntries.size();
-    int effectiveLimit = limit > 0 ? limit : DEFAULT_PAGE_SIZE;
-    int effectiveOffset = Math.max(0, Math.min(offset, total));
-
-    List<GalaxyCollection> data = new ArrayList<>();
-    int end = Math.min(effectiveOffset + effectiveLimit, total);
-
-    for (int i = effectiveOffset; i < end; i++) {
-      CollectionEntry entry = allEntries.get(i);
+    for (CollectionSummary summary : page) {
       GalaxyCollection gc = new GalaxyCollection();
-      gc.setNamespace(entry.namespace);
-      gc.setName(entry.name);
+      gc.setNamespace(summary.getNamespace());
+      gc.setName(summary.getName());
       gc.setDeprecated(false);
 
-      String collectionPath = API_PREFIX + "/collections/index/" + entry.namespace + "/" + entry.name + "/";
+      String collectionPath =
+          API_PREFIX + "/collections/index/" + summary.getNamespace() + "/" + summary.getName() + "/";
       gc.setHref(baseUrl + collectionPath);
       gc.setVersionsUrl(baseUrl + collectionPath + "versions/");
 
-      String highest = entry.getHighestVersion();
+      String highest = summary.getHighestVersion();
       if (highest != null) {
         String versionHref = baseUrl + collectionPath + "versions/" + highest + "/";
         gc.setHighestVersion(new GalaxyCollectionVersion(highest, versionHref));
@@ -88,27 +88,34 @@ public class GalaxyResponseBuilder {
     }
 
     String requestPath = API_PREFIX + "/collections/index/";
-    GalaxyPaginationLinks links = buildLinks(baseUrl, requestPath, total, effectiveOffset, effectiveLimit);
+    GalaxyPaginationLinks links = buildLinks(baseUrl, requestPath, total, offset, limit);
     GalaxyPaginatedResponse<GalaxyCollection> response = new GalaxyPaginatedResponse<>(
         new GalaxyPaginationMeta(total), links, data);
 
-    return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(response);
+    return write(response);
+  }
+
+  /**
+   * Returns the page size to use for a requested limit, applying the default when none was given.
+   */
+  public static int effectiveLimit(final int limit) {
+    return limit > 0 ? limit : DEFAULT_PAGE_SIZE;
   }
 
   /**
-   * Builds a single collection detail response.
+   * Returns the offset to use for a requested offset, clamped to the number of entries.
+   */
+  public static int effectiveOffset(final int offset, final int total) {
+    return Math.max(0, Math.min(offset, total));
+  }
+
+  /**
+   * Builds a single collection detail response for an already known highest version (may be null).
    */
   public String buildCollectionDetail(final String baseUrl,
                                       final String namespace,
                                       final String name,
-                                      final Iterable<FluentComponent> components) throws JsonProcessingException {
-    Set<String> versions = new LinkedHashSet<>();
-    for (FluentComponent component : components) {
-      if (namespace.equals(component.namespace()) && name.equals(component.name())) {
-        versions.add(component.version());
-      }
-    }
-
+                                      final String highestVersion) throws JsonProcessingException {
     String collectionPath = API_PREFIX + "/collections/index/" + namespace + "/" + name + "/";
     GalaxyCollection gc = new GalaxyCollection();
     gc.setNamespace(namespace);
@@ -117,34 +124,26 @@ public class GalaxyResponseBuilder {
     gc.setHref(baseUrl + collectionPath);
     gc.setVersionsUrl(baseUrl + collectionPath + "versions/");
 
-    String highest = highestSemver(versions);
-    if (highest != null) {
-      String versionHref = baseUrl + collectionPath + "versions/" + highest + "/";
-      gc.setHighestVersion(new GalaxyCollectionVersion(highest, versionHref));
+    if (highestVersion != null) {
+      String versionHref = baseUrl + collectionPath + "versions/" + highestVersion + "/";
+      gc.setHighestVersion(new GalaxyCollectionVersion(highestVersion, versionHref));
     }
 
-    return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(gc);
+    return write(gc);
   }
 
   /**
-   * Builds a paginated version list for a specific collection.
+   * Builds a paginated version list from versions that are already filtered and ordered.
    */
   public String buildVersionList(final String baseUrl,
                                  final String namespace,
                                  final String name,
-                                 final Iterable<FluentComponent> components,
+                                 final List<String> versions,
                                  final int offset,
                                  final int limit) throws JsonProcessingException {
-    List<String> versions = new ArrayList<>();
-    for (FluentComponent component : components) {
-      if (namespace.equals(component.namespace()) && name.equals(component.name())) {
-        versions.add(component.version());
-      }
-    }
-
     int total = versions.size();
-    int effectiveLimit = limit > 0 ? limit : DEFAULT_PAGE_SIZE;
-    int effectiveOffset = Math.max(0, Math.min(offset, total));
+    int effectiveLimit = effectiveLimit(limit);
+    int effectiveOffset = effectiveOffset(offset, total);
 
     String collectionPath = API_PREFIX + "/collections/index/" + namespace + "/" + name + "/";
 
@@ -162,7 +161,7 @@ public class GalaxyResponseBuilder {
     GalaxyPaginatedResponse<GalaxyCollectionVersion> response = new GalaxyPaginatedResponse<>(
         new GalaxyPaginationMeta(total), links, data);
 
-    return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(response);
+    return write(response);
   }
 
   /**
@@ -192,18 +191,35 @@ public class GalaxyResponseBuilder {
     detail.setCollection(new GalaxyCollectionRef(
         baseUrl + collectionPath, namespace, name));
 
-    return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(detail);
+    // manifest attributes are captured at ingest; assets stored before that simply omit metadata and manifest
+    Map<String, Object> manifest = extractManifest(asset);
+    if (manifest != null) {
+      detail.setManifest(manifest);
+      detail.setMetadata(buildMetadata(manifest));
+    }
+
+    return write(detail);
   }
 
   public String toJson(final Object obj) throws JsonProcessingException {
-    return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(obj);
+    return write(obj);
   }
 
-  private GalaxyPaginationLinks buildLinks(final String baseUrl,
-                                           final String requestPath,
-                                           final int total,
-                                           final int offset,
-                                           final int limit) {
+  private String write(final Object response) throws JsonProcessingException {
+    String json;
+    try (Timer.Context ignored = serializeTimer.time();
+         GalaxyRequestTrace.Phase phase = GalaxyRequestTrace.phase(GalaxyRequestTrace.SERIALIZE)) {
+      json = WRITER.writeValueAsString(response);
+    }
+    jsonSize.update(json.length());
+    return json;
+  }
+
+  GalaxyPaginationLinks buildLinks(final String baseUrl,
+                                   final String requestPath,
+                                   final int total,
+                                   final int offset,
+                                   final int limit) {
     GalaxyPaginationLinks links = new GalaxyPaginationLinks();
 
     String base = baseUrl + requestPath;
@@ -238,71 +254,38 @@ public class GalaxyResponseBuilder {
         .orElse(null);
   }
 
-  private long extractSize(final FluentAsset asset) {
-    return asset.blob()
-        .map(blob -> blob.blobSize())
-        .orElse(0L);
-  }
-
-  static String highestSemver(final Set<String> versions) {
-    String highest = null;
-    int[] highestParts = null;
-
-    for (String v : versions) {
-      int[] parts = parseSemver(v);
-      if (parts == null) {
-        continue;
-      }
-      if (highestParts == null || compareSemver(parts, highestParts) > 0) {
-        highest = v;
-        highestParts = parts;
-      }
-    }
-    return highest;
-  }
-
-  private static int[] parseSemver(final String version) {
-    String[] parts = version.split("\\.");
-    if (parts.length != 3) {
-      return null;
-    }
-    try {
-      return new int[]{
-          Integer.parseInt(parts[0]),
-          Integer.parseInt(parts[1]),
-          Integer.parseInt(parts[2].replaceAll("[^0-9].*", ""))
-      };
-    }
-    catch (NumberFormatException e) {
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> extractManifest(final FluentAsset asset) {
+    NestedAttributesMap attributes = asset.attributes();
+    if (!attributes.contains(AnsibleGalaxyFormat.NAME)) {
       return null;
     }
+    Object manifest = attributes.child(AnsibleGalaxyFormat.NAME).get(CollectionAttributes.MANIFEST);
+    return manifest instanceof Map ? (Map<String, Object>) manifest : null;
   }
 
-  private static int compareSemver(final int[] a, final int[] b) {
-    for (int i = 0; i < 3; i++) {
-      if (a[i] != b[i]) {
-        return Integer.compare(a[i], b[i]);
+  /**
+   * Copies the Galaxy version metadata fields out of collection_info; dependencies are always present so the CLI
+   * can resolve them.
+   */
+  private Map<String, Object> buildMetadata(final Map<String, Object> manifest) {
+    Map<String, Object> metadata = new LinkedHashMap<>();
+    Object collectionInfo = manifest.get("collection_info");
+    if (collectionInfo instanceof Map) {
+      Map<?, ?> info = (Map<?, ?>) collectionInfo;
+      for (String field : METADATA_FIELDS) {
+        if (info.get(field) != null) {
+          metadata.put(field, info.get(field));
+        }
       }
     }
-    return 0;
+    metadata.putIfAbsent("dependencies", new LinkedHashMap<>());
+    return metadata;
   }
 
-  private static class CollectionEntry {
-    final String namespace;
-    final String name;
-    final Set<String> versions = new LinkedHashSet<>();
-
-    CollectionEntry(final String namespace, final String name) {
-      this.namespace = namespace;
-      this.name = name;
-    }
-
-    void addVersion(final String version) {
-      versions.add(version);
-    }
-
-    String getHighestVersion() {
-      return highestSemver(versions);
-    }
+  private long extractSize(final FluentAsset asset) {
+    return asset.blob()
+        .map(blob -> blob.blobSize())
+        .orElse(0L);
   }
 }
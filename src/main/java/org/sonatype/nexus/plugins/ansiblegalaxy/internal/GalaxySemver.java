@@ -0,0 +1,279 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.util.Comparator;
+
+/**
+ * Semantic version parsing and comparison for Galaxy collection versions.
+ *
+ * Versions are compared through a normalized {@link #sortKey(String) sort key} whose plain string ordering matches
+ * semantic version precedence, including pre-release ordering. The same key is persisted with each component so
+ * the database can order versions without parsing them.
+ *
+ * In-memory comparisons first use the {@link #pack(CharSequence) packed} form, which needs no allocation; the sort
+ * key is only built to break ties between pre-releases of the same x.y.z.
+ */
+public final class GalaxySemver {
+
+  /**
+   * Orders versions highest first; versions that are not semantic versions sort after all valid versions.
+   */
+  public static final Comparator<String> HIGHEST_FIRST = (a, b) -> comparePrecedence(b, pack(b), a, pack(a));
+
+  /**
+   * Returned by {@link #pack(CharSequence)} for versions that are not x.y.z or whose numbers do not fit.
+   */
+  public static final long INVALID = -1L;
+
+  private static final int MAJOR_BITS = 21;
+
+  private static final int MINOR_BITS = 21;
+
+  private static final int PATCH_BITS = 20;
+
+  private static final int CORE_WIDTH = 10;
+
+  private static final int MAX_NUMERIC_IDENTIFIER_LENGTH = 99;
+
+  private GalaxySemver() {
+  }
+
+  /**
+   * Returns true when the version can be parsed as x.y.z with an optional pre-release and build metadata.
+   */
+  public static boolean isValid(final String version) {
+    return !sortKey(version).isEmpty();
+  }
+
+  /**
+   * Compares two versions by semantic version precedence. Both versions must be valid.
+   */
+  public static int compare(final String a, final String b) {
+    long left = pack(a);
+    long right = pack(b);
+    if (!isValid(a, left) || !isValid(b, right)) {
+      throw new IllegalArgumentException("Invalid version: " + (isValid(a, left) ? b : a));
+    }
+    return Integer.signum(comparePrecedence(a, left, b, right));
+  }
+
+  /**
+   * Packs major, minor and patch plus a release flag into a non-negative long without allocating, or returns
+   * {@link #INVALID}. Packed values order by x.y.z and place a pre-release before the release of the same x.y.z;
+   * pre-releases of the same x.y.z pack to the same value.
+   *
+   * Major and minor must fit in 21 bits and patch in 20 bits. The pre-release must follow a {@code -} and be one
+   * or more non-empty {@code [0-9A-Za-z-]} identifiers without leading zeros on numeric ones; anything else,
+   * including versions {@link #sortKey(String)} tolerates such as {@code 1.0.0rc1}, packs to {@link #INVALID} so
+   * packed comparisons never disagree with sort key comparisons.
+   */
+  public static long pack(final CharSequence version) {
+    if (version == null) {
+      return INVALID;
+    }
+    int length = version.length();
+    int pos = 0;
+    long packed = 0L;
+    for (int part = 0; part < 3; part++) {
+      int bits = part == 0 ? MAJOR_BITS : part == 1 ? MINOR_BITS : PATCH_BITS;
+      int start = pos;
+      long number = 0L;
+      while (pos < length && isDigit(version.charAt(pos))) {
+        number = number * 10 + (version.charAt(pos) - '0');
+        if (number >= 1L << bits) {
+          return INVALID;
+        }
+        pos++;
+      }
+      if (pos == start) {
+        return INVALID;
+      }
+      packed = (packed << bits) | number;
+
+      if (part < 2) {
+        if (pos >= length || version.charAt(pos) != '.') {
+          return INVALID;
+        }
+        pos++;
+      }
+    }
+    boolean release = pos == length || version.charAt(pos) == '+';
+    if (!release && (version.charAt(pos) != '-' || !isPreRelease(version, pos + 1, length))) {
+      return INVALID;
+    }
+    return (packed << 1) | (release ? 1L : 0L);
+  }
+
+  /**
+   * Returns true when the characters from {@code start} up to the end or a {@code +} are a well formed pre-release.
+   */
+  private static boolean isPreRelease(final CharSequence version, final int start, final int length) {
+    int identifierStart = start;
+    boolean numeric = true;
+    for (int pos = start; ; pos++) {
+      char c = pos < length ? version.charAt(pos) : '+';
+      if (c == '.' || c == '+') {
+        int identifierLength = pos - identifierStart;
+        if (identifierLength == 0
+            || (numeric && identifierLength > 1 && version.charAt(identifierStart) == '0')) {
+          return false;
+        }
+        if (c == '+') {
+          return true;
+        }
+        identifierStart = pos + 1;
+        numeric = true;
+      }
+      else if (!isDigit(c)) {
+        if (!isLetter(c) && c != '-') {
+          return false;
+        }
+        numeric = false;
+      }
+    }
+  }
+
+  /**
+   * Returns true when the packed value is a release rather than a pre-release.
+   */
+  public static boolean isRelease(final long packed) {
+    return packed != INVALID && (packed & 1L) == 1L;
+  }
+
+  /**
+   * Returns true when the version is valid, given its packed value. Only pre-releases and versions too large to
+   * pack need the full parse.
+   */
+  public static boolean isValid(final String version, final long packed) {
+    return isRelease(packed) || isValid(version);
+  }
+
+  /**
+   * Compares two versions given their packed values; invalid versions order before every valid version.
+   * Allocation free unless both versions are pre-releases of the same x.y.z or one of them could not be packed.
+   */
+  public static int comparePrecedence(final String a, final long packedA, final String b, final long packedB) {
+    if (packedA != INVALID && packedB != INVALID) {
+      int cmp = Long.compare(packedA, packedB);
+      if (cmp != 0 || isRelease(packedA)) {
+        return cmp;
+      }
+    }
+    String left = sortKey(a);
+    String right = sortKey(b);
+    if (left.isEmpty() || right.isEmpty()) {
+      return left.isEmpty() ? (right.isEmpty() ? 0 : -1) : 1;
+    }
+    return left.compareTo(right);
+  }
+
+  /**
+   * Builds a key whose string ordering matches semantic version precedence, or an empty string when the version
+   * is not x.y.z with an optional pre-release. Build metadata is ignored.
+   *
+   * The key only uses digits and lowercase letters so it orders the same under any database collation:
+   * - major, minor and patch are zero padded to ten digits;
+   * - a release is followed by {@code 1}, a pre-release by {@code 0} and its identifiers, so pre-releases sort
+   *   before the release;
+   * - numeric identifiers are {@code 1}, a two digit length and the digits, so they compare numerically;
+   * - other identifiers are {@code 2}, each character as two letters {@code b}-{@code q}, and a terminating
+   *   {@code a}, so they compare in ASCII order with shorter prefixes first.
+   */
+  public static String sortKey(final String version) {
+    if (version == null) {
+      return "";
+    }
+    int plus = version.indexOf('+');
+    String value = plus >= 0 ? version.substring(0, plus) : version;
+
+    StringBuilder key = new StringBuilder(3 * CORE_WIDTH + 1);
+    int pos = 0;
+    for (int part = 0; part < 3; part++) {
+      int start = pos;
+      while (pos < value.length() && isDigit(value.charAt(pos))) {
+        pos++;
+      }
+      if (pos == start || pos - start > CORE_WIDTH) {
+        return "";
+      }
+      long number = Long.parseLong(value.substring(start, pos));
+      if (number > Integer.MAX_VALUE) {
+        return "";
+      }
+      appendPadded(key, Long.toString(number), CORE_WIDTH);
+
+      if (part < 2) {
+        if (pos >= value.length() || value.charAt(pos) != '.') {
+          return "";
+        }
+        pos++;
+      }
+    }
+
+    if (pos == value.length()) {
+      return key.append('1').toString();
+    }
+
+    // Tolerate a missing '-' before the pre-release, as in 1.0.0rc1
+    String preRelease = value.substring(value.charAt(pos) == '-' ? pos + 1 : pos);
+    if (preRelease.isEmpty()) {
+      return "";
+    }
+
+    key.append('0');
+    for (String identifier : preRelease.split("\\.", -1)) {
+      if (identifier.isEmpty()) {
+        return "";
+      }
+      if (isNumeric(identifier) && identifier.length() <= MAX_NUMERIC_IDENTIFIER_LENGTH) {
+        String digits = stripLeadingZeros(identifier);
+        key.append('1');
+        appendPadded(key, Integer.toString(digits.length()), 2);
+        key.append(digits);
+      }
+      else {
+        key.append('2');
+        for (int i = 0; i < identifier.length(); i++) {
+          char c = identifier.charAt(i);
+          if (c > 0x7F) {
+            return "";
+          }
+          key.append((char) ('b' + (c >> 4))).append((char) ('b' + (c & 0xF)));
+        }
+        key.append('a');
+      }
+    }
+    return key.toString();
+  }
+
+  private static void appendPadded(final StringBuilder key, final String digits, final int width) {
+    for (int i = digits.length(); i < width; i++) {
+      key.append('0');
+    }
+    key.append(digits);
+  }
+
+  private static boolean isNumeric(final String identifier) {
+    for (int i = 0; i < identifier.length(); i++) {
+      if (!isDigit(identifier.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String stripLeadingZeros(final String digits) {
+    int start = 0;
+    while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+      start++;
+    }
+    return digits.substring(start);
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isLetter(final char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+}
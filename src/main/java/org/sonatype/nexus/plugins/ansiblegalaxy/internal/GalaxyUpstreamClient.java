@@ -1,17 +1,22 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.util.EntityUtils;
 
 import org.sonatype.goodies.common.ComponentSupport;
@@ -33,6 +38,22 @@ public class GalaxyUpstreamClient
    */
   static final String UPSTREAM_PREFIX = "/api/v3/plugin/ansible/content/published";
 
+  private final GalaxyMetrics metrics;
+
+  private final Timer requestTimer;
+
+  private final Timer rewriteTimer;
+
+  private final Meter bytesRead;
+
+  @Inject
+  public GalaxyUpstreamClient(final GalaxyMetrics metrics) {
+    this.metrics = metrics;
+    this.requestTimer = metrics.timer(GalaxyMetrics.UPSTREAM, "requests");
+    this.rewriteTimer = metrics.timer(GalaxyMetrics.UPSTREAM, "rewrite");
+    this.bytesRead = metrics.meter(GalaxyMetrics.UPSTREAM, "bytes");
+  }
+
   /**
    * Fetch the version list from upstream, rewriting hrefs and pagination links.
    *
@@ -56,8 +77,7 @@ public class GalaxyUpstreamClient
       url = url + "?" + queryString;
     }
 
-    String json = fetchJson(httpClient, url);
-    return rewriteUrls(json, extractBaseUrl(remoteUrl), repoUrl);
+    return fetchAndRewrite(httpClient, url, remoteUrl, repoUrl);
   }
 
   /**
@@ -72,8 +92,7 @@ public class GalaxyUpstreamClient
     String path = UPSTREAM_PREFIX + "/collections/index/" + namespace + "/" + name + "/versions/" + version + "/";
     String url = buildUpstreamUrl(remoteUrl, path);
 
-    String json = fetchJson(httpClient, url);
-    return rewriteUrls(json, extractBaseUrl(remoteUrl), repoUrl);
+    return fetchAndRewrite(httpClient, url, remoteUrl, repoUrl);
   }
 
   /**
@@ -87,8 +106,7 @@ public class GalaxyUpstreamClient
     String path = UPSTREAM_PREFIX + "/collections/index/" + namespace + "/" + name + "/";
     String url = buildUpstreamUrl(remoteUrl, path);
 
-    String json = fetchJson(httpClient, url);
-    return rewriteUrls(json, extractBaseUrl(remoteUrl), repoUrl);
+    return fetchAndRewrite(httpClient, url, remoteUrl, repoUrl);
   }
 
   /**
@@ -104,8 +122,7 @@ public class GalaxyUpstreamClient
       url = url + "?" + queryString;
     }
 
-    String json = fetchJson(httpClient, url);
-    return rewriteUrls(json, extractBaseUrl(remoteUrl), repoUrl);
+    return fetchAndRewrite(httpClient, url, remoteUrl, repoUrl);
   }
 
   /**
@@ -117,9 +134,11 @@ public class GalaxyUpstreamClient
     String path = UPSTREAM_PREFIX + "/collections/artifacts/" + filename;
     String url = buildUpstreamUrl(remoteUrl, path);
 
-    HttpClient client = httpClient.getHttpClient();
-    HttpGet request = new HttpGet(url);
-    HttpResponse response = client.execute(request);
+    // only the wait for response headers is traced, the body is streamed into the blob store by the caller
+    HttpResponse response;
+    try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.UPSTREAM)) {
+      response = execute(httpClient, new HttpGet(url));
+    }
 
     int statusCode = response.getStatusLine().getStatusCode();
     if (statusCode != HttpStatus.SC_OK) {
@@ -137,7 +156,7 @@ public class GalaxyUpstreamClient
         ? entity.getContentType().getValue()
         : "application/gzip";
 
-    InputStream inputStream = entity.getContent();
+    InputStream inputStream = new MeteredInputStream(entity.getContent(), bytesRead);
     return new Content(new StreamPayload(
         () -> inputStream,
         contentLength >= 0 ? contentLength : -1,
@@ -206,14 +225,28 @@ public class GalaxyUpstreamClient
     }
   }
 
+  private String fetchAndRewrite(final HttpClientFacet httpClient,
+                                 final String url,
+                                 final String remoteUrl,
+                                 final String repoUrl) throws IOException
+  {
+    String json;
+    try (GalaxyRequestTrace.Phase ignored = GalaxyRequestTrace.phase(GalaxyRequestTrace.UPSTREAM)) {
+      json = fetchJson(httpClient, url);
+    }
+    try (Timer.Context ignored = rewriteTimer.time();
+         GalaxyRequestTrace.Phase phase = GalaxyRequestTrace.phase(GalaxyRequestTrace.REWRITE)) {
+      return rewriteUrls(json, extractBaseUrl(remoteUrl), repoUrl);
+    }
+  }
+
   private String fetchJson(final HttpClientFacet httpClient, final String url) throws IOException {
-    HttpClient client = httpClient.getHttpClient();
     HttpGet request = new HttpGet(url);
     request.setHeader("Accept", "application/json");
 
-    HttpResponse response = client.execute(request);
+    HttpResponse response = execute(httpClient, request);
     int statusCode = response.getStatusLine().getStatusCode();
-    HttpEntity entity = response.getEntity();
+    HttpEntity entity = response.getEntity() != null ? new MeteredEntity(response.getEntity(), bytesRead) : null;
 
     if (statusCode != HttpStatus.SC_OK) {
       String body = entity != null ? EntityUtils.toString(entity) : "";
@@ -226,4 +259,66 @@ public class GalaxyUpstreamClient
 
     return EntityUtils.toString(entity);
   }
+
+  /**
+   * Executes an upstream request, timing it until the response headers arrive and counting its status code.
+   */
+  private HttpResponse execute(final HttpClientFacet httpClient, final HttpGet request) throws IOException {
+    HttpClient client = httpClient.getHttpClient();
+    HttpResponse response;
+    try (Timer.Context ignored = requestTimer.time()) {
+      response = client.execute(request);
+    }
+    metrics.meter(GalaxyMetrics.UPSTREAM, "status", Integer.toString(response.getStatusLine().getStatusCode()))
+        .mark();
+    return response;
+  }
+
+  private static class MeteredEntity
+      extends HttpEntityWrapper
+  {
+    private final Meter meter;
+
+    MeteredEntity(final HttpEntity entity, final Meter meter) {
+      super(entity);
+      this.meter = meter;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+      return new MeteredInputStream(super.getContent(), meter);
+    }
+  }
+
+  /**
+   * Marks every byte read from the wrapped stream on a meter.
+   */
+  private static class MeteredInputStream
+      extends FilterInputStream
+  {
+    private final Meter meter;
+
+    MeteredInputStream(final InputStream in, final Meter meter) {
+      super(in);
+      this.meter = meter;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        meter.mark();
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        meter.mark(n);
+      }
+      return n;
+    }
+  }
 }
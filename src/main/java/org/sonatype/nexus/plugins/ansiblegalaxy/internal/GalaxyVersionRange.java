@@ -0,0 +1,119 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A Galaxy version requirement such as {@code >=1.0.0,<2.0.0}, using the same syntax as
+ * {@code ansible-galaxy collection install}.
+ *
+ * Supported operators are {@code ==}, {@code !=}, {@code >=}, {@code >}, {@code <=} and {@code <}; a bare version
+ * means {@code ==} and {@code *} matches every version. Versions that are not x.y.z only match {@code *} and
+ * exact {@code ==} requirements.
+ */
+public final class GalaxyVersionRange
+    implements Predicate<String>
+{
+  private static final String[] OPERATORS = {"==", "!=", ">=", "<=", ">", "<"};
+
+  private final String spec;
+
+  private final List<Constraint> constraints;
+
+  private GalaxyVersionRange(final String spec, final List<Constraint> constraints) {
+    this.spec = spec;
+    this.constraints = constraints;
+  }
+
+  /**
+   * Parses a comma-separated requirement.
+   *
+   * @throws IllegalArgumentException if the requirement is empty or contains an invalid version
+   */
+  public static GalaxyVersionRange parse(final String spec) {
+    if (spec == null || spec.trim().isEmpty()) {
+      throw new IllegalArgumentException("Version range is empty");
+    }
+
+    List<Constraint> constraints = new ArrayList<>();
+    for (String part : spec.split(",")) {
+      String clause = part.trim();
+      if (clause.isEmpty()) {
+        throw new IllegalArgumentException("Invalid version range: " + spec);
+      }
+      if ("*".equals(clause)) {
+        continue;
+      }
+
+      String operator = "==";
+      for (String candidate : OPERATORS) {
+        if (clause.startsWith(candidate)) {
+          operator = candidate;
+          clause = clause.substring(candidate.length()).trim();
+          break;
+        }
+      }
+
+      boolean exactMatch = "==".equals(operator) || "!=".equals(operator);
+      if (clause.isEmpty() || (!exactMatch && !GalaxySemver.isValid(clause))) {
+        throw new IllegalArgumentException("Invalid version range: " + spec);
+      }
+      constraints.add(new Constraint(operator, clause));
+    }
+    return new GalaxyVersionRange(spec, constraints);
+  }
+
+  @Override
+  public boolean test(final String version) {
+    for (Constraint constraint : constraints) {
+      if (!constraint.matches(version)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return spec;
+  }
+
+  private static final class Constraint
+  {
+    private final String operator;
+
+    private final String version;
+
+    private Constraint(final String operator, final String version) {
+      this.operator = operator;
+      this.version = version;
+    }
+
+    private boolean matches(final String candidate) {
+      switch (operator) {
+        case "==":
+          return version.equals(candidate);
+        case "!=":
+          return !version.equals(candidate);
+        default:
+          break;
+      }
+
+      if (!GalaxySemver.isValid(candidate)) {
+        return false;
+      }
+      int cmp = GalaxySemver.compare(candidate, version);
+      switch (operator) {
+        case ">=":
+          return cmp >= 0;
+        case "<=":
+          return cmp <= 0;
+        case ">":
+          return cmp > 0;
+        default:
+          return cmp < 0;
+      }
+    }
+  }
+}
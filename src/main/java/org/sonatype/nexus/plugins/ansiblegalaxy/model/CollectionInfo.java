@@ -1,5 +1,8 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.model;
 
+import java.util.List;
+import java.util.Map;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -21,6 +24,21 @@ public class CollectionInfo {
   @JsonProperty("description")
   private String description;
 
+  @JsonProperty("tags")
+  private List<String> tags;
+
+  @JsonProperty("license")
+  private List<String> license;
+
+  /**
+   * Collection dependencies, keyed by namespace.name with a version range as value.
+   */
+  @JsonProperty("dependencies")
+  private Map<String, String> dependencies;
+
+  @JsonProperty("repository")
+  private String repository;
+
   public CollectionInfo() {
   }
 
@@ -61,4 +79,36 @@ public class CollectionInfo {
   public void setDescription(final String description) {
     this.description = description;
   }
+
+  public List<String> getTags() {
+    return tags;
+  }
+
+  public void setTags(final List<String> tags) {
+    this.tags = tags;
+  }
+
+  public List<String> getLicense() {
+    return license;
+  }
+
+  public void setLicense(final List<String> license) {
+    this.license = license;
+  }
+
+  public Map<String, String> getDependencies() {
+    return dependencies;
+  }
+
+  public void setDependencies(final Map<String, String> dependencies) {
+    this.dependencies = dependencies;
+  }
+
+  public String getRepository() {
+    return repository;
+  }
+
+  public void setRepository(final String repository) {
+    this.repository = repository;
+  }
 }
@@ -0,0 +1,44 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.model;
+
+import java.util.Map;
+
+/**
+ * The MANIFEST.json of a collection tar.gz: the typed collection_info used for coordinates, plus the complete
+ * document (collection_info, file_manifest_file and format) as read. Also carries the compact index of FILES.json
+ * when the tarball has one.
+ */
+public class CollectionManifest {
+
+  private final CollectionInfo collectionInfo;
+
+  private final Map<String, Object> manifest;
+
+  private final byte[] filesIndex;
+
+  public CollectionManifest(final CollectionInfo collectionInfo, final Map<String, Object> manifest) {
+    this(collectionInfo, manifest, null);
+  }
+
+  public CollectionManifest(final CollectionInfo collectionInfo,
+                            final Map<String, Object> manifest,
+                            final byte[] filesIndex) {
+    this.collectionInfo = collectionInfo;
+    this.manifest = manifest;
+    this.filesIndex = filesIndex;
+  }
+
+  public CollectionInfo getCollectionInfo() {
+    return collectionInfo;
+  }
+
+  public Map<String, Object> getManifest() {
+    return manifest;
+  }
+
+  /**
+   * The FILES.json index built by CollectionFilesIndex, or null when the tarball has no FILES.json.
+   */
+  public byte[] getFilesIndex() {
+    return filesIndex;
+  }
+}
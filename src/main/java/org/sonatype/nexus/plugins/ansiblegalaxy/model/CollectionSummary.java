@@ -0,0 +1,64 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.model;
+
+/**
+ * Per-collection summary kept alongside the components of a repository: the highest version and the number of
+ * versions, so collection lists do not have to aggregate every version.
+ */
+public class CollectionSummary {
+
+  private String namespace;
+
+  private String name;
+
+  private String highestVersion;
+
+  private int versionCount;
+
+  public CollectionSummary() {
+  }
+
+  public CollectionSummary(final String namespace,
+                           final String name,
+                           final String highestVersion,
+                           final int versionCount) {
+    this.namespace = namespace;
+    this.name = name;
+    this.highestVersion = highestVersion;
+    this.versionCount = versionCount;
+  }
+
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public void setNamespace(final String namespace) {
+    this.namespace = namespace;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(final String name) {
+    this.name = name;
+  }
+
+  /**
+   * The highest semantic version of the collection, or null when none of its versions is a semantic version.
+   */
+  public String getHighestVersion() {
+    return highestVersion;
+  }
+
+  public void setHighestVersion(final String highestVersion) {
+    this.highestVersion = highestVersion;
+  }
+
+  public int getVersionCount() {
+    return versionCount;
+  }
+
+  public void setVersionCount(final int versionCount) {
+    this.versionCount = versionCount;
+  }
+}
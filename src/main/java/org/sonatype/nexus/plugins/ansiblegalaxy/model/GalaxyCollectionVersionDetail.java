@@ -1,5 +1,7 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.model;
 
+import java.util.Map;
+
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -30,6 +32,12 @@ public class GalaxyCollectionVersionDetail {
   @JsonProperty("collection")
   private GalaxyCollectionRef collection;
 
+  @JsonProperty("metadata")
+  private Map<String, Object> metadata;
+
+  @JsonProperty("manifest")
+  private Map<String, Object> manifest;
+
   public GalaxyCollectionVersionDetail() {
   }
 
@@ -89,6 +97,25 @@ public class GalaxyCollectionVersionDetail {
     this.collection = collection;
   }
 
+  /**
+   * Collection metadata from collection_info, including the dependencies the CLI resolves.
+   */
+  public Map<String, Object> getMetadata() {
+    return metadata;
+  }
+
+  public void setMetadata(final Map<String, Object> metadata) {
+    this.metadata = metadata;
+  }
+
+  public Map<String, Object> getManifest() {
+    return manifest;
+  }
+
+  public void setManifest(final Map<String, Object> manifest) {
+    this.manifest = manifest;
+  }
+
   /**
    * Nested reference to the parent collection.
    */
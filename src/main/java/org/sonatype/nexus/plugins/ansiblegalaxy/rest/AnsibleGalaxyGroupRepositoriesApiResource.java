@@ -0,0 +1,55 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.rest;
+
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.core.Response;
+
+import org.sonatype.nexus.repository.rest.api.AbstractGroupRepositoriesApiResource;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import static org.sonatype.nexus.rest.ApiDocConstants.API_REPOSITORY_MANAGEMENT;
+import static org.sonatype.nexus.rest.ApiDocConstants.AUTHENTICATION_REQUIRED;
+import static org.sonatype.nexus.rest.ApiDocConstants.BAD_REQUEST;
+import static org.sonatype.nexus.rest.ApiDocConstants.INSUFFICIENT_PERMISSIONS;
+import static org.sonatype.nexus.rest.ApiDocConstants.REPOSITORY_CREATED;
+import static org.sonatype.nexus.rest.ApiDocConstants.REPOSITORY_UPDATED;
+
+@Api(value = API_REPOSITORY_MANAGEMENT)
+public abstract class AnsibleGalaxyGroupRepositoriesApiResource
+    extends AbstractGroupRepositoriesApiResource<AnsibleGalaxyGroupRepositoryApiRequest>
+{
+  @ApiOperation("Create ansible-galaxy group repository")
+  @ApiResponses(value = {
+      @ApiResponse(code = 201, message = REPOSITORY_CREATED),
+      @ApiResponse(code = 401, message = AUTHENTICATION_REQUIRED),
+      @ApiResponse(code = 403, message = INSUFFICIENT_PERMISSIONS)
+  })
+  @POST
+  @Override
+  public Response createRepository(AnsibleGalaxyGroupRepositoryApiRequest request) {
+    return super.createRepository(request);
+  }
+
+  @ApiOperation("Update ansible-galaxy group repository")
+  @ApiResponses(value = {
+      @ApiResponse(code = 204, message = REPOSITORY_UPDATED),
+      @ApiResponse(code = 400, message = BAD_REQUEST),
+      @ApiResponse(code = 401, message = AUTHENTICATION_REQUIRED),
+      @ApiResponse(code = 403, message = INSUFFICIENT_PERMISSIONS)
+  })
+  @PUT
+  @Path("/{repositoryName}")
+  @Override
+  public Response updateRepository(
+      final AnsibleGalaxyGroupRepositoryApiRequest request,
+      @ApiParam(value = "Name of the repository to update") @PathParam("repositoryName") final String repositoryName) {
+    return super.updateRepository(request, repositoryName);
+  }
+}
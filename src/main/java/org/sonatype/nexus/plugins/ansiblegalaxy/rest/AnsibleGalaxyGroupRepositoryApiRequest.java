@@ -0,0 +1,24 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.rest;
+
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.repository.rest.api.model.GroupAttributes;
+import org.sonatype.nexus.repository.rest.api.model.GroupRepositoryApiRequest;
+import org.sonatype.nexus.repository.rest.api.model.StorageAttributes;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties({"format", "type"})
+public class AnsibleGalaxyGroupRepositoryApiRequest
+    extends GroupRepositoryApiRequest
+{
+  @JsonCreator
+  public AnsibleGalaxyGroupRepositoryApiRequest(
+      @JsonProperty("name") final String name,
+      @JsonProperty("online") final Boolean online,
+      @JsonProperty("storage") final StorageAttributes storage,
+      @JsonProperty("group") final GroupAttributes group) {
+    super(name, AnsibleGalaxyFormat.NAME, online, storage, group);
+  }
+}
@@ -0,0 +1,11 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.rest;
+
+import javax.inject.Named;
+
+import org.sonatype.nexus.repository.rest.api.GroupRepositoryApiRequestToConfigurationConverter;
+
+@Named
+public class AnsibleGalaxyGroupRepositoryApiRequestToConfigurationConverter
+    extends GroupRepositoryApiRequestToConfigurationConverter<AnsibleGalaxyGroupRepositoryApiRequest>
+{
+}
@@ -15,6 +15,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public class AnsibleGalaxyProxyApiRepository
     extends SimpleApiProxyRepository
 {
+  private final AnsibleGalaxyProxyAttributes ansibleGalaxy;
+
   @JsonCreator
   public AnsibleGalaxyProxyApiRepository(
       @JsonProperty("name") final String name,
@@ -25,8 +27,14 @@ public class AnsibleGalaxyProxyApiRepository
       @JsonProperty("proxy") final ProxyAttributes proxy,
       @JsonProperty("negativeCache") final NegativeCacheAttributes negativeCache,
       @JsonProperty("httpClient") final HttpClientAttributes httpClient,
-      @JsonProperty("routingRuleName") final String routingRuleName) {
+      @JsonProperty("routingRuleName") final String routingRuleName,
+      @JsonProperty("ansibleGalaxy") final AnsibleGalaxyProxyAttributes ansibleGalaxy) {
     super(name, AnsibleGalaxyFormat.NAME, url, online, storage, cleanup, proxy, negativeCache,
         httpClient, routingRuleName, null);
+    this.ansibleGalaxy = ansibleGalaxy;
+  }
+
+  public AnsibleGalaxyProxyAttributes getAnsibleGalaxy() {
+    return ansibleGalaxy;
   }
 }
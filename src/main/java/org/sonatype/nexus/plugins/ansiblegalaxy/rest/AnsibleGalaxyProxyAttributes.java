@@ -0,0 +1,27 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.rest;
+
+import javax.validation.constraints.PositiveOrZero;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Ansible Galaxy specific settings of a proxy repository.
+ */
+public class AnsibleGalaxyProxyAttributes
+{
+  @ApiModelProperty(value = "Maximum bytes of collection tarballs to keep cached; unset or 0 for no limit",
+      example = "10737418240")
+  @PositiveOrZero
+  private final Long cacheQuotaBytes;
+
+  @JsonCreator
+  public AnsibleGalaxyProxyAttributes(@JsonProperty("cacheQuotaBytes") final Long cacheQuotaBytes) {
+    this.cacheQuotaBytes = cacheQuotaBytes;
+  }
+
+  public Long getCacheQuotaBytes() {
+    return cacheQuotaBytes;
+  }
+}
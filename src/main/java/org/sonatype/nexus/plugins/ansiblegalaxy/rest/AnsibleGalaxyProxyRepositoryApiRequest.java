@@ -1,5 +1,7 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.rest;
 
+import javax.validation.Valid;
+
 import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
 import org.sonatype.nexus.repository.rest.api.model.CleanupPolicyAttributes;
 import org.sonatype.nexus.repository.rest.api.model.HttpClientAttributes;
@@ -17,6 +19,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public class AnsibleGalaxyProxyRepositoryApiRequest
     extends ProxyRepositoryApiRequest
 {
+  @Valid
+  private final AnsibleGalaxyProxyAttributes ansibleGalaxy;
+
   @JsonCreator
   public AnsibleGalaxyProxyRepositoryApiRequest(
       @JsonProperty("name") final String name,
@@ -27,8 +32,14 @@ public class AnsibleGalaxyProxyRepositoryApiRequest
       @JsonProperty("negativeCache") final NegativeCacheAttributes negativeCache,
       @JsonProperty("httpClient") final HttpClientAttributes httpClient,
       @JsonProperty("routingRuleName") final String routingRule,
-      @JsonProperty("replication") final ReplicationAttributes replication) {
+      @JsonProperty("replication") final ReplicationAttributes replication,
+      @JsonProperty("ansibleGalaxy") final AnsibleGalaxyProxyAttributes ansibleGalaxy) {
     super(name, AnsibleGalaxyFormat.NAME, online, storage, cleanup, proxy, negativeCache,
         httpClient, routingRule, replication);
+    this.ansibleGalaxy = ansibleGalaxy;
+  }
+
+  public AnsibleGalaxyProxyAttributes getAnsibleGalaxy() {
+    return ansibleGalaxy;
   }
 }
@@ -3,6 +3,8 @@ package org.sonatype.nexus.plugins.ansiblegalaxy.rest;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.AnsibleGalaxyCacheQuotaFacet;
+import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.rest.api.ProxyRepositoryApiRequestToConfigurationConverter;
 import org.sonatype.nexus.repository.routing.RoutingRuleStore;
 
@@ -15,4 +17,15 @@ public class AnsibleGalaxyProxyRepositoryApiRequestToConfigurationConverter
       final RoutingRuleStore routingRuleStore) {
     super(routingRuleStore);
   }
+
+  @Override
+  public Configuration convert(final AnsibleGalaxyProxyRepositoryApiRequest request) {
+    Configuration configuration = super.convert(request);
+    AnsibleGalaxyProxyAttributes ansibleGalaxy = request.getAnsibleGalaxy();
+    if (ansibleGalaxy != null && ansibleGalaxy.getCacheQuotaBytes() != null) {
+      configuration.attributes(AnsibleGalaxyCacheQuotaFacet.CONFIG_KEY)
+          .set(AnsibleGalaxyCacheQuotaFacet.CACHE_QUOTA_BYTES, ansibleGalaxy.getCacheQuotaBytes());
+    }
+    return configuration;
+  }
 }
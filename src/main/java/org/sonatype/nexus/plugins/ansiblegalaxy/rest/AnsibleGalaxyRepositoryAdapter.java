@@ -3,6 +3,7 @@ package org.sonatype.nexus.plugins.ansiblegalaxy.rest;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.AnsibleGalaxyCacheQuotaFacet;
 import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.rest.api.SimpleApiRepositoryAdapter;
@@ -41,8 +42,15 @@ public class AnsibleGalaxyRepositoryAdapter
           getProxyAttributes(repository),
           getNegativeCacheAttributes(repository),
           getHttpClientAttributes(repository),
-          getRoutingRuleName(repository));
+          getRoutingRuleName(repository),
+          getAnsibleGalaxyAttributes(repository));
     }
     return super.adapt(repository);
   }
+
+  private static AnsibleGalaxyProxyAttributes getAnsibleGalaxyAttributes(final Repository repository) {
+    Number quota = repository.getConfiguration().attributes(AnsibleGalaxyCacheQuotaFacet.CONFIG_KEY)
+        .get(AnsibleGalaxyCacheQuotaFacet.CACHE_QUOTA_BYTES, Number.class);
+    return new AnsibleGalaxyProxyAttributes(quota != null ? quota.longValue() : null);
+  }
 }
@@ -0,0 +1,93 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.repository.Repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnsibleGalaxyCacheQuotaEnforcerTest
+    extends TestSupport
+{
+  @Mock private ScheduledExecutorService scheduler;
+  @Mock private Repository small;
+  @Mock private Repository large;
+  @Mock private AnsibleGalaxyContentFacet smallFacet;
+  @Mock private AnsibleGalaxyContentFacet largeFacet;
+
+  private AnsibleGalaxyCacheQuotaEnforcer underTest;
+
+  @Before
+  public void setUp() {
+    when(small.getName()).thenReturn("galaxy-proxy-ssd");
+    when(large.getName()).thenReturn("galaxy-proxy");
+    when(small.facet(AnsibleGalaxyContentFacet.class)).thenReturn(smallFacet);
+    when(large.facet(AnsibleGalaxyContentFacet.class)).thenReturn(largeFacet);
+    underTest = new AnsibleGalaxyCacheQuotaEnforcer(scheduler, 60_000L, 100);
+  }
+
+  @Test
+  public void enforcementIsScheduledOnStart() throws Exception {
+    verify(scheduler, never()).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(),
+        any(TimeUnit.class));
+
+    underTest.start();
+
+    verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), eq(60_000L), eq(60_000L),
+        eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void schedulerIsShutDownOnStop() throws Exception {
+    underTest.start();
+
+    underTest.stop();
+
+    verify(scheduler).shutdownNow();
+  }
+
+  @Test
+  public void registeredRepositoriesAreKeptWithinTheirQuota() {
+    underTest.register(small, 1_000_000L);
+    underTest.register(large, 50_000_000L);
+
+    underTest.enforce();
+
+    verify(smallFacet).evictTarballs(1_000_000L, 100);
+    verify(largeFacet).evictTarballs(50_000_000L, 100);
+  }
+
+  @Test
+  public void unregisteredRepositoriesAreLeftAlone() {
+    underTest.register(small, 1_000_000L);
+    underTest.unregister(small);
+
+    underTest.enforce();
+
+    verify(smallFacet, never()).evictTarballs(anyLong(), anyInt());
+  }
+
+  @Test
+  public void failingRepositoryDoesNotAffectOthers() {
+    when(smallFacet.evictTarballs(anyLong(), anyInt())).thenThrow(new IllegalStateException("database unavailable"));
+    underTest.register(small, 1_000_000L);
+    underTest.register(large, 50_000_000L);
+
+    underTest.enforce();
+
+    verify(largeFacet).evictTarballs(50_000_000L, 100);
+  }
+}
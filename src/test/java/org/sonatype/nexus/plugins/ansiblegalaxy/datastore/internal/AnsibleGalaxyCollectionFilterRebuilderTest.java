@@ -0,0 +1,75 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.Component;
+import org.sonatype.nexus.repository.content.event.component.ComponentCreatedEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnsibleGalaxyCollectionFilterRebuilderTest
+    extends TestSupport
+{
+  @Mock private ExecutorService executor;
+  @Mock private Repository repository;
+  @Mock private AnsibleGalaxyContentFacet contentFacet;
+  @Mock private Component component;
+  @Mock private ComponentCreatedEvent event;
+
+  private AnsibleGalaxyCollectionFilterRebuilder underTest;
+
+  @Before
+  public void setUp() {
+    when(repository.optionalFacet(AnsibleGalaxyContentFacet.class)).thenReturn(Optional.of(contentFacet));
+    when(component.namespace()).thenReturn("testns");
+    when(component.name()).thenReturn("testcol");
+    when(component.version()).thenReturn("1.0.0");
+    when(event.getComponent()).thenReturn(component);
+    when(event.getRepository()).thenReturn(Optional.of(repository));
+    underTest = new AnsibleGalaxyCollectionFilterRebuilder(executor);
+  }
+
+  @Test
+  public void componentsCreatedOutsideTheFacetAreRemembered() {
+    when(event.getFormat()).thenReturn(AnsibleGalaxyFormat.NAME);
+
+    underTest.on(event);
+
+    verify(contentFacet).rememberVersion("testns", "testcol", "1.0.0");
+  }
+
+  @Test
+  public void componentsOfOtherFormatsAreIgnored() {
+    when(event.getFormat()).thenReturn("maven2");
+
+    underTest.on(event);
+
+    verify(contentFacet, never()).rememberVersion(any(), any(), any());
+  }
+
+  @Test
+  public void rebuildsAreRefusedOnceStopped() {
+    doThrow(new RejectedExecutionException()).when(executor).execute(any());
+
+    underTest.stop();
+
+    verify(executor).shutdownNow();
+    assertThat(underTest.submit(() -> { }), is(false));
+  }
+}
@@ -0,0 +1,529 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.entity.Continuation;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxySemver;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.SyntheticCollectionCorpus;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.SyntheticCollectionCorpus.CollectionVersion;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.Component;
+import org.sonatype.nexus.repository.content.fluent.FluentAsset;
+import org.sonatype.nexus.repository.content.fluent.FluentAssetBuilder;
+import org.sonatype.nexus.repository.content.fluent.FluentAssets;
+import org.sonatype.nexus.repository.content.fluent.FluentBlobs;
+import org.sonatype.nexus.repository.content.fluent.FluentComponent;
+import org.sonatype.nexus.repository.content.fluent.FluentComponentBuilder;
+import org.sonatype.nexus.repository.content.fluent.FluentComponents;
+import org.sonatype.nexus.repository.content.store.FormatStoreManager;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+import org.sonatype.nexus.repository.view.payloads.TempBlob;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+import static org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.AnsibleGalaxyContentFacetImpl.buildAssetPath;
+
+/**
+ * Uploads, deletes, re-uploads and lists collection versions from many threads through the real content facet and
+ * checks the store is consistent afterwards: every component has its tarball, every asset has its component, and no
+ * version is stored twice. Throughput is logged per operation.
+ *
+ * The facet runs against an in-memory store that behaves like the database where it matters here: getOrCreate is a
+ * lookup followed by an insert that fails on a duplicate key, and saving an asset fails once its component is gone.
+ * A small set of hot versions keeps threads colliding. Scale the run with {@code -Dgalaxy.stress.threads} and
+ * {@code -Dgalaxy.stress.operations} (per thread).
+ *
+ * Listings go through {@code countCollections}, {@code browseCollections} and {@code versionsHighestFirst} like the
+ * hosted handler's, but the in-memory store answers them from its components on every call. The test therefore
+ * covers the facet's locking only: the collection summaries and semver ordering the database maintains are not
+ * exercised here.
+ */
+public class AnsibleGalaxyContentFacetStressTest
+    extends TestSupport
+{
+  private static final int THREADS =
+      Integer.getInteger("galaxy.stress.threads", Math.max(8, Runtime.getRuntime().availableProcessors()));
+
+  private static final int OPERATIONS = Integer.getInteger("galaxy.stress.operations", 300);
+
+  private static final String TARBALL_KIND = "collection-tarball";
+
+  private final InMemoryStore store = new InMemoryStore();
+
+  private final List<CollectionVersion> versions = new ArrayList<>();
+
+  private final Map<CollectionVersion, byte[]> tarballs = new ConcurrentHashMap<>();
+
+  private AnsibleGalaxyContentFacetImpl underTest;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws Exception {
+    SyntheticCollectionCorpus corpus = new SyntheticCollectionCorpus(7L, 2, 2, 4).withFiles(2, 256);
+    for (CollectionVersion version : corpus) {
+      versions.add(version);
+      try (InputStream in = corpus.openTarball(version)) {
+        tarballs.put(version, in.readAllBytes());
+      }
+    }
+
+    underTest = new AnsibleGalaxyContentFacetImpl(mock(FormatStoreManager.class),
+        mock(AnsibleGalaxyDocsExtractor.class), mock(AnsibleGalaxyFileBlobResolver.class),
+        mock(AnsibleGalaxyMemoryTier.class), mock(AnsibleGalaxyCollectionFilterRebuilder.class))
+    {
+      @Override
+      public FluentComponents components() {
+        return store.components;
+      }
+
+      @Override
+      public FluentAssets assets() {
+        return store.assets;
+      }
+
+      @Override
+      public FluentBlobs blobs() {
+        return store.blobs;
+      }
+
+      @Override
+      public int countCollections() {
+        return store.summaries().size();
+      }
+
+      @Override
+      public List<CollectionSummary> browseCollections(final int offset, final int limit) {
+        List<CollectionSummary> summaries = store.summaries();
+        return summaries.subList(Math.min(offset, summaries.size()), Math.min(offset + limit, summaries.size()));
+      }
+
+      @Override
+      public List<String> versionsHighestFirst(final String namespace, final String name) {
+        return store.versionsHighestFirst(namespace, name);
+      }
+    };
+    underTest.attach(mock(Repository.class, withSettings().stubOnly()));
+
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void concurrentUploadsOfTheSameVersionCreateOneComponent() throws Exception {
+    CollectionVersion version = versions.get(0);
+    CountDownLatch start = new CountDownLatch(1);
+
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        return underTest.putCollection(payload(version));
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(1, TimeUnit.MINUTES);
+    }
+
+    assertThat(store.componentKeys(), is(Set.of(key(version))));
+    assertConsistent();
+  }
+
+  @Test
+  public void uploadsDeletesAndListsKeepTheStoreConsistent() throws Exception {
+    Stats uploads = new Stats();
+    Stats deletes = new Stats();
+    Stats lists = new Stats();
+    CountDownLatch start = new CountDownLatch(1);
+
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      SplittableRandom random = new SplittableRandom(i);
+      futures.add(executor.submit(() -> {
+        start.await();
+        for (int op = 0; op < OPERATIONS; op++) {
+          CollectionVersion version = versions.get(random.nextInt(versions.size()));
+          int dice = random.nextInt(4);
+          long began = System.nanoTime();
+          if (dice < 2) {
+            underTest.putCollection(payload(version));
+            uploads.record(began);
+          }
+          else if (dice == 2) {
+            underTest.delete(buildAssetPath(version.namespace, version.name, version.version));
+            deletes.record(began);
+          }
+          else {
+            assertListingsConsistent();
+            lists.record(began);
+          }
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.MINUTES);
+    }
+
+    log.info("{} threads over {} hot versions: uploads {}, deletes {}, lists {}", THREADS, versions.size(), uploads,
+        deletes, lists);
+    assertThat(uploads.count.get(), is(greaterThan(0L)));
+    assertConsistent();
+
+    // whatever survived must still re-upload and delete cleanly
+    for (CollectionVersion version : versions) {
+      underTest.putCollection(payload(version));
+    }
+    assertThat(store.componentKeys().size(), is(versions.size()));
+    for (CollectionVersion version : versions) {
+      assertThat(underTest.delete(buildAssetPath(version.namespace, version.name, version.version)), is(true));
+    }
+    assertThat(store.componentKeys(), is(empty()));
+    assertThat(store.assetPaths(), is(empty()));
+  }
+
+  private void assertConsistent() {
+    assertListingsConsistent();
+
+    // at rest, every stored version is listed exactly once under its collection
+    Set<String> listed = new HashSet<>();
+    for (CollectionSummary summary : underTest.browseCollections(0, versions.size())) {
+      List<String> collectionVersions = underTest.versionsHighestFirst(summary.getNamespace(), summary.getName());
+      assertThat(summary.getVersionCount(), is(collectionVersions.size()));
+      for (String version : collectionVersions) {
+        listed.add(key(summary.getNamespace(), summary.getName(), version));
+      }
+    }
+    assertThat(listed, is(store.componentKeys()));
+    assertThat(underTest.countCollections(),
+        is((int) listed.stream().map(key -> key.substring(0, key.indexOf(':'))).distinct().count()));
+
+    Set<String> tarballComponents = new HashSet<>();
+    for (String path : store.assetPaths()) {
+      StoredAsset asset = store.assetsByPath.get(path);
+      assertThat("orphan asset " + path, store.componentsByKey.containsKey(asset.componentKey), is(true));
+      if (TARBALL_KIND.equals(asset.kind)) {
+        tarballComponents.add(asset.componentKey);
+      }
+    }
+    assertThat("components without a tarball", store.componentKeys(), is(tarballComponents));
+  }
+
+  /**
+   * Lists collections and their versions the way the hosted handler does. Each call may see a different moment of
+   * the run, so only what must hold within one answer is checked.
+   */
+  private void assertListingsConsistent() {
+    List<CollectionSummary> page = underTest.browseCollections(0, versions.size());
+    assertThat(page.size(), is(lessThanOrEqualTo(versions.size())));
+    Set<String> seen = new HashSet<>();
+    for (CollectionSummary summary : page) {
+      String collection = summary.getNamespace() + "." + summary.getName();
+      assertThat("duplicate collection " + collection, seen.add(collection), is(true));
+
+      List<String> listed = underTest.versionsHighestFirst(summary.getNamespace(), summary.getName());
+      assertThat("duplicate version of " + collection, new HashSet<>(listed).size(), is(listed.size()));
+      List<String> ordered = new ArrayList<>(listed);
+      ordered.sort(GalaxySemver.HIGHEST_FIRST);
+      assertThat("versions of " + collection + " out of order", listed, is(ordered));
+    }
+  }
+
+  private Payload payload(final CollectionVersion version) {
+    return new BytesPayload(tarballs.get(version), "application/gzip");
+  }
+
+  private static String key(final CollectionVersion version) {
+    return key(version.namespace, version.name, version.version);
+  }
+
+  private static String key(final String namespace, final String name, final String version) {
+    return namespace + "." + name + ":" + version;
+  }
+
+  /**
+   * Operation count and mean latency, updated by every worker.
+   */
+  private static class Stats
+  {
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final long started = System.nanoTime();
+
+    void record(final long began) {
+      count.incrementAndGet();
+      nanos.addAndGet(System.nanoTime() - began);
+    }
+
+    @Override
+    public String toString() {
+      double elapsed = (System.nanoTime() - started) / 1e9;
+      return String.format("%d (%.0f/s, mean %.3f ms)", count.get(), count.get() / elapsed,
+          count.get() == 0 ? 0 : nanos.get() / 1e6 / count.get());
+    }
+  }
+
+  private static class StoredAsset
+  {
+    private final String kind;
+
+    private final String componentKey;
+
+    StoredAsset(final String kind, final String componentKey) {
+      this.kind = kind;
+      this.componentKey = componentKey;
+    }
+  }
+
+  /**
+   * Components and assets held in concurrent maps behind mocked fluent APIs. Builders collect their arguments by
+   * method name, so only the calls the facet makes need handling.
+   */
+  private static class InMemoryStore
+  {
+    private final Map<String, FluentComponent> componentsByKey = new ConcurrentHashMap<>();
+
+    private final Map<String, StoredAsset> assetsByPath = new ConcurrentHashMap<>();
+
+    private final FluentComponents components = mock(FluentComponents.class, withSettings().stubOnly()
+        .defaultAnswer(invocation -> {
+          switch (invocation.getMethod().getName()) {
+            case "name":
+              return componentBuilder(invocation.getArgument(0));
+            case "browse":
+              return continuation(new ArrayList<>(componentsByKey.values()));
+            case "count":
+              return componentsByKey.size();
+            default:
+              throw new UnsupportedOperationException(invocation.getMethod().getName());
+          }
+        }));
+
+    private final FluentAssets assets = mock(FluentAssets.class, withSettings().stubOnly()
+        .defaultAnswer(invocation -> {
+          if ("path".equals(invocation.getMethod().getName())) {
+            return assetBuilder(invocation.getArgument(0));
+          }
+          throw new UnsupportedOperationException(invocation.getMethod().getName());
+        }));
+
+    private final FluentBlobs blobs = mock(FluentBlobs.class, withSettings().stubOnly()
+        .defaultAnswer(invocation -> {
+          if (!"ingest".equals(invocation.getMethod().getName())) {
+            throw new UnsupportedOperationException(invocation.getMethod().getName());
+          }
+          byte[] bytes;
+          try (InputStream in = invocation.<Payload>getArgument(0).openInputStream()) {
+            bytes = in.readAllBytes();
+          }
+          return mock(TempBlob.class, withSettings().stubOnly().defaultAnswer(blobInvocation ->
+              "get".equals(blobInvocation.getMethod().getName()) ? new ByteArrayInputStream(bytes) : null));
+        }));
+
+    Set<String> componentKeys() {
+      return new HashSet<>(componentsByKey.keySet());
+    }
+
+    Set<String> assetPaths() {
+      return new HashSet<>(assetsByPath.keySet());
+    }
+
+    /**
+     * Summaries of the stored collections ordered by namespace and name, like the collection summary table.
+     */
+    List<CollectionSummary> summaries() {
+      Map<String, List<FluentComponent>> byCollection = componentsByKey.values().stream()
+          .collect(Collectors.groupingBy(component -> component.namespace() + "/" + component.name()));
+      List<CollectionSummary> summaries = new ArrayList<>();
+      for (List<FluentComponent> collection : byCollection.values()) {
+        FluentComponent first = collection.get(0);
+        List<String> versions = versionsHighestFirst(collection);
+        String highest = versions.stream().filter(GalaxySemver::isValid).findFirst().orElse(null);
+        summaries.add(new CollectionSummary(first.namespace(), first.name(), highest, versions.size()));
+      }
+      summaries.sort(Comparator.comparing(CollectionSummary::getNamespace).thenComparing(CollectionSummary::getName));
+      return summaries;
+    }
+
+    List<String> versionsHighestFirst(final String namespace, final String name) {
+      return versionsHighestFirst(componentsByKey.values().stream()
+          .filter(component -> namespace.equals(component.namespace()) && name.equals(component.name()))
+          .collect(Collectors.toList()));
+    }
+
+    private static List<String> versionsHighestFirst(final List<FluentComponent> components) {
+      return components.stream()
+          .map(FluentComponent::version)
+          .sorted(GalaxySemver.HIGHEST_FIRST.thenComparing(Comparator.naturalOrder()))
+          .collect(Collectors.toList());
+    }
+
+    private FluentComponentBuilder componentBuilder(final String name) {
+      String[] coordinates = {null, name, null};
+      FluentComponentBuilder[] builder = new FluentComponentBuilder[1];
+      builder[0] = mock(FluentComponentBuilder.class, withSettings().stubOnly().defaultAnswer(invocation -> {
+        String key = key(coordinates[0], coordinates[1], coordinates[2]);
+        switch (invocation.getMethod().getName()) {
+          case "namespace":
+            coordinates[0] = invocation.getArgument(0);
+            return builder[0];
+          case "version":
+            coordinates[2] = invocation.getArgument(0);
+            return builder[0];
+          case "find":
+            return Optional.ofNullable(componentsByKey.get(key));
+          case "getOrCreate":
+            return getOrCreate(key, coordinates);
+          default:
+            throw new UnsupportedOperationException(invocation.getMethod().getName());
+        }
+      }));
+      return builder[0];
+    }
+
+    /**
+     * Looks up, then inserts, the way a database round trip does; a concurrent insert in between is a duplicate key.
+     */
+    private FluentComponent getOrCreate(final String key, final String[] coordinates) {
+      FluentComponent existing = componentsByKey.get(key);
+      if (existing != null) {
+        return existing;
+      }
+      Thread.yield();
+      FluentComponent created = component(key, coordinates[0], coordinates[1], coordinates[2]);
+      if (componentsByKey.putIfAbsent(key, created) != null) {
+        throw new IllegalStateException("Duplicate key inserting component " + key);
+      }
+      return created;
+    }
+
+    private FluentComponent component(final String key,
+                                      final String namespace,
+                                      final String name,
+                                      final String version)
+    {
+      return mock(FluentComponent.class, withSettings().stubOnly().defaultAnswer(invocation -> {
+        switch (invocation.getMethod().getName()) {
+          case "namespace":
+            return namespace;
+          case "name":
+            return name;
+          case "version":
+            return version;
+          case "delete":
+            // deleting a component takes its assets with it
+            assetsByPath.values().removeIf(asset -> asset.componentKey.equals(key));
+            return componentsByKey.remove(key) != null;
+          case "toString":
+            return key;
+          default:
+            throw new UnsupportedOperationException(invocation.getMethod().getName());
+        }
+      }));
+    }
+
+    private FluentAssetBuilder assetBuilder(final String path) {
+      String[] state = {null, null};
+      FluentAssetBuilder[] builder = new FluentAssetBuilder[1];
+      builder[0] = mock(FluentAssetBuilder.class, withSettings().stubOnly().defaultAnswer(invocation -> {
+        switch (invocation.getMethod().getName()) {
+          case "kind":
+            state[0] = invocation.getArgument(0);
+            return builder[0];
+          case "component":
+            Component component = invocation.getArgument(0);
+            state[1] = key(component.namespace(), component.name(), component.version());
+            return builder[0];
+          case "blob":
+            return builder[0];
+          case "save":
+            if (!componentsByKey.containsKey(state[1])) {
+              throw new IllegalStateException("Asset " + path + " references missing component " + state[1]);
+            }
+            StoredAsset saved = new StoredAsset(state[0], state[1]);
+            assetsByPath.put(path, saved);
+            return asset(path, saved);
+          case "find":
+            return Optional.ofNullable(assetsByPath.get(path)).map(stored -> asset(path, stored));
+          default:
+            throw new UnsupportedOperationException(invocation.getMethod().getName());
+        }
+      }));
+      return builder[0];
+    }
+
+    private FluentAsset asset(final String path, final StoredAsset stored) {
+      FluentAsset[] asset = new FluentAsset[1];
+      asset[0] = mock(FluentAsset.class, withSettings().stubOnly().defaultAnswer(invocation -> {
+        switch (invocation.getMethod().getName()) {
+          case "path":
+            return path;
+          case "kind":
+            return stored.kind;
+          case "component":
+            return Optional.ofNullable(componentsByKey.get(stored.componentKey));
+          case "withAttribute":
+            return asset[0];
+          case "delete":
+            return assetsByPath.remove(path) != null;
+          default:
+            throw new UnsupportedOperationException(invocation.getMethod().getName());
+        }
+      }));
+      return asset[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Continuation<T> continuation(final List<T> items) {
+      return mock(Continuation.class, withSettings().stubOnly().defaultAnswer(invocation -> {
+        switch (invocation.getMethod().getName()) {
+          case "iterator":
+            return items.iterator();
+          case "isEmpty":
+            return items.isEmpty();
+          case "nextContinuationToken":
+            return null;
+          default:
+            throw new UnsupportedOperationException(invocation.getMethod().getName());
+        }
+      }));
+    }
+  }
+}
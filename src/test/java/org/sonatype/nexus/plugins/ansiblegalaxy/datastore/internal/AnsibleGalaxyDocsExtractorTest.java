@@ -0,0 +1,89 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.repository.Repository;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnsibleGalaxyDocsExtractorTest
+    extends TestSupport
+{
+  @Mock private Repository repository;
+  @Mock private AnsibleGalaxyContentFacet contentFacet;
+
+  private AnsibleGalaxyDocsExtractor underTest;
+
+  @Before
+  public void setUp() {
+    when(repository.facet(AnsibleGalaxyContentFacet.class)).thenReturn(contentFacet);
+    when(repository.getName()).thenReturn("hosted");
+    underTest = new AnsibleGalaxyDocsExtractor(MoreExecutors.newDirectExecutorService());
+  }
+
+  @Test
+  public void submitStoresDocsForVersion() throws Exception {
+    when(contentFacet.putDocs("testns", "testcol", "1.0.0")).thenReturn(true);
+
+    underTest.submit(repository, "testns", "testcol", "1.0.0");
+
+    verify(contentFacet).putDocs("testns", "testcol", "1.0.0");
+  }
+
+  @Test
+  public void extractionFailureIsContained() throws Exception {
+    when(contentFacet.putDocs("testns", "testcol", "1.0.0")).thenThrow(new IOException("corrupt tarball"));
+
+    underTest.submit(repository, "testns", "testcol", "1.0.0");
+
+    verify(contentFacet).putDocs("testns", "testcol", "1.0.0");
+  }
+
+  @Test
+  public void waitingSubmitsOfOneVersionAreCoalesced() throws Exception {
+    ExecutorService executor = mock(ExecutorService.class);
+    underTest = new AnsibleGalaxyDocsExtractor(executor);
+
+    underTest.submit(repository, "testns", "testcol", "1.0.0");
+    underTest.submit(repository, "testns", "testcol", "1.0.0");
+
+    ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+    verify(executor).execute(task.capture());
+    task.getValue().run();
+    verify(contentFacet).putDocs("testns", "testcol", "1.0.0");
+  }
+
+  @Test
+  public void versionUploadedDuringExtractionIsExtractedAgain() throws Exception {
+    when(contentFacet.putDocs("testns", "testcol", "1.0.0")).thenAnswer(invocation -> {
+      underTest.submit(repository, "testns", "testcol", "1.0.0");
+      return true;
+    }).thenReturn(true);
+
+    underTest.submit(repository, "testns", "testcol", "1.0.0");
+
+    verify(contentFacet, times(2)).putDocs("testns", "testcol", "1.0.0");
+  }
+
+  @Test
+  public void stoppingShutsDownThePool() {
+    ExecutorService executor = mock(ExecutorService.class);
+    underTest = new AnsibleGalaxyDocsExtractor(executor);
+
+    underTest.stop();
+
+    verify(executor).shutdownNow();
+  }
+}
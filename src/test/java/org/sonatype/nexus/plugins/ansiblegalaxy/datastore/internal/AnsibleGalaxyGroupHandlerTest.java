@@ -0,0 +1,401 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.AttributesMap;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyMetrics;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyResponseBuilder;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.group.GroupFacet;
+import org.sonatype.nexus.repository.group.GroupHandler.DispatchedRepositories;
+import org.sonatype.nexus.repository.http.HttpResponses;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Parameters;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.ViewFacet;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.http.HttpStatus.*;
+
+public class AnsibleGalaxyGroupHandlerTest
+    extends TestSupport
+{
+  private static final String GROUP_URL = "http://nexus/repository/galaxy-group";
+
+  private static final String PREFIX = AnsibleGalaxyGroupHandler.PREFIX;
+
+  @Mock private Context context;
+  @Mock private Request request;
+  @Mock private Repository group;
+  @Mock private GroupFacet groupFacet;
+  @Mock private TokenMatcher.State tokenState;
+
+  private ExecutorService executor;
+
+  private AnsibleGalaxyGroupMemberMemo memberMemo;
+
+  private AnsibleGalaxyGroupHandler underTest;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newCachedThreadPool();
+    memberMemo = new AnsibleGalaxyGroupMemberMemo(100);
+    underTest = new AnsibleGalaxyGroupHandler(new GalaxyResponseBuilder(new GalaxyMetrics(new MetricRegistry())), memberMemo, 500L, executor);
+
+    when(context.getRequest()).thenReturn(request);
+    when(context.getRepository()).thenReturn(group);
+    when(request.getParameters()).thenReturn(new Parameters());
+    when(group.getName()).thenReturn("galaxy-group");
+    when(group.getUrl()).thenReturn(GROUP_URL);
+    when(group.facet(GroupFacet.class)).thenReturn(groupFacet);
+
+    AttributesMap attributes = new AttributesMap();
+    attributes.set(TokenMatcher.State.class, tokenState);
+    when(context.getAttributes()).thenReturn(attributes);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private void setTokens(final Map<String, String> tokens) {
+    when(tokenState.getTokens()).thenReturn(tokens);
+  }
+
+  private Repository member(final String name, final Map<String, String> responses) throws Exception {
+    return member(name, responses, 0L);
+  }
+
+  /**
+   * Mocks a member whose view answers the given paths with JSON and every other path with 404.
+   */
+  private Repository member(final String name, final Map<String, String> responses, final long delayMillis)
+      throws Exception
+  {
+    Repository member = mock(Repository.class);
+    ViewFacet viewFacet = mock(ViewFacet.class);
+    when(member.getName()).thenReturn(name);
+    when(member.getUrl()).thenReturn("http://nexus/repository/" + name);
+    when(member.facet(ViewFacet.class)).thenReturn(viewFacet);
+    when(viewFacet.dispatch(any(Request.class), any(Context.class))).thenAnswer(invocation -> {
+      if (delayMillis > 0) {
+        Thread.sleep(delayMillis);
+      }
+      Request memberRequest = invocation.getArgument(0);
+      String json = responses.get(memberRequest.getPath());
+      return json != null
+          ? HttpResponses.ok(new StringPayload(json, "application/json"))
+          : HttpResponses.notFound();
+    });
+    return member;
+  }
+
+  private static String versionListJson(final String... versions) {
+    StringBuilder json = new StringBuilder("{\"meta\": {\"count\": " + versions.length + "}, ")
+        .append("\"links\": {}, \"data\": [");
+    for (int i = 0; i < versions.length; i++) {
+      json.append(i > 0 ? ", " : "").append("{\"version\": \"").append(versions[i]).append("\"}");
+    }
+    return json.append("]}").toString();
+  }
+
+  private static String body(final Response response) throws Exception {
+    try (InputStream in = response.getPayload().openInputStream()) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  // -- API root --
+
+  @Test
+  public void stoppingTheHandlerShutsDownTheMemberPool() {
+    underTest.stop();
+
+    assertThat(executor.isShutdown(), is(true));
+  }
+
+  @Test
+  public void apiRootReturnsStaticJson() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("api_root", "api");
+    setTokens(tokens);
+
+    Response response = underTest.doGet(context, new DispatchedRepositories());
+    assertThat(response.getStatus().getCode(), is(OK));
+    assertThat(body(response), containsString("\"v3\""));
+  }
+
+  // -- Version list --
+
+  @Test
+  public void versionListMergesMembersHighestFirst() throws Exception {
+    String path = PREFIX + "/collections/index/community/general/versions/";
+    Map<String, String> hosted = new HashMap<>();
+    hosted.put(path, versionListJson("1.0.0", "2.0.0"));
+    Map<String, String> proxy = new HashMap<>();
+    proxy.put(path, versionListJson("1.10.0", "1.0.0", "2.0.0+build5"));
+    when(groupFacet.members()).thenReturn(Arrays.asList(member("hosted", hosted), member("proxy", proxy)));
+
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "community");
+    tokens.put("name", "general");
+    tokens.put("version_marker", "versions");
+    setTokens(tokens);
+
+    Response response = underTest.doGet(context, new DispatchedRepositories());
+    assertThat(response.getStatus().getCode(), is(OK));
+
+    String json = body(response);
+    assertThat(json, containsString("\"count\" : 3"));
+    assertThat(json.indexOf("\"2.0.0\"") < json.indexOf("\"1.10.0\""), is(true));
+    assertThat(json.indexOf("\"1.10.0\"") < json.indexOf("\"1.0.0\""), is(true));
+    assertThat(json, not(containsString("2.0.0+build5")));
+    assertThat(json, containsString(GROUP_URL + PREFIX));
+  }
+
+  @Test
+  public void versionListReturns404WhenNoMemberHasCollection() throws Exception {
+    when(groupFacet.members()).thenReturn(Arrays.asList(
+        member("hosted", new HashMap<>()), member("proxy", new HashMap<>())));
+
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "community");
+    tokens.put("name", "missing");
+    tokens.put("version_marker", "versions");
+    setTokens(tokens);
+
+    Response response = underTest.doGet(context, new DispatchedRepositories());
+    assertThat(response.getStatus().getCode(), is(NOT_FOUND));
+  }
+
+  @Test
+  public void mergeVersionsDeduplicatesBuildMetadata() {
+    List<String> merged = AnsibleGalaxyGroupHandler.mergeVersions(Arrays.asList(
+        Arrays.asList("1.0.0", "1.2.0+abc"),
+        Arrays.asList("1.2.0", "0.9.0", "latest")));
+    assertThat(merged, contains("1.2.0+abc", "1.0.0", "0.9.0", "latest"));
+  }
+
+  // -- Collection detail --
+
+  @Test
+  public void collectionDetailUsesHighestVersionAcrossMembers() throws Exception {
+    String path = PREFIX + "/collections/index/community/general/";
+    Map<String, String> hosted = new HashMap<>();
+    hosted.put(path, "{\"highest_version\": {\"version\": \"1.2.0\"}}");
+    Map<String, String> proxy = new HashMap<>();
+    proxy.put(path, "{\"highest_version\": {\"version\": \"1.10.0\"}}");
+    when(groupFacet.members()).thenReturn(Arrays.asList(member("hosted", hosted), member("proxy", proxy)));
+
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "community");
+    tokens.put("name", "general");
+    setTokens(tokens);
+
+    Response response = underTest.doGet(context, new DispatchedRepositories());
+    assertThat(response.getStatus().getCode(), is(OK));
+    assertThat(body(response), containsString(GROUP_URL + path + "versions/1.10.0/"));
+  }
+
+  // -- Version detail --
+
+  @Test
+  public void versionDetailComesFromFirstMemberAndIsRewritten() throws Exception {
+    String path = PREFIX + "/collections/index/community/general/versions/1.0.0/";
+    Map<String, String> hosted = new HashMap<>();
+    hosted.put(path, "{\"href\": \"http://nexus/repository/hosted" + path + "\", \"source\": \"hosted\"}");
+    Map<String, String> proxy = new HashMap<>();
+    proxy.put(path, "{\"href\": \"http://nexus/repository/proxy" + path + "\", \"source\": \"proxy\"}");
+    when(groupFacet.members()).thenReturn(Arrays.asList(member("hosted", hosted), member("proxy", proxy)));
+
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "community");
+    tokens.put("name", "general");
+    tokens.put("version", "1.0.0");
+    setTokens(tokens);
+
+    Response response = underTest.doGet(context, new DispatchedRepositories());
+    assertThat(response.getStatus().getCode(), is(OK));
+
+    String json = body(response);
+    assertThat(json, containsString("\"hosted\""));
+    assertThat(json, containsString(GROUP_URL + path));
+  }
+
+  @Test
+  public void versionDetailSkipsMemberThatTimesOut() throws Exception {
+    String path = PREFIX + "/collections/index/community/general/versions/1.0.0/";
+    Map<String, String> slow = new HashMap<>();
+    slow.put(path, "{\"source\": \"slow\"}");
+    Map<String, String> fast = new HashMap<>();
+    fast.put(path, "{\"source\": \"fast\"}");
+    when(groupFacet.members()).thenReturn(Arrays.asList(member("slow", slow, 5_000L), member("fast", fast)));
+
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "community");
+    tokens.put("name", "general");
+    tokens.put("version", "1.0.0");
+    setTokens(tokens);
+
+    Response response = underTest.doGet(context, new DispatchedRepositories());
+    assertThat(response.getStatus().getCode(), is(OK));
+    assertThat(body(response), containsString("\"fast\""));
+  }
+
+  @Test
+  public void saturatedMemberPoolDoesNotStallTheResponse() throws Exception {
+    ThreadPoolExecutor pool = AnsibleGalaxyGroupHandler.fanoutPool(1, 1);
+    CountDownLatch busy = new CountDownLatch(1);
+    try {
+      pool.execute(() -> {
+        try {
+          busy.await();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      underTest = new AnsibleGalaxyGroupHandler(new GalaxyResponseBuilder(new GalaxyMetrics(new MetricRegistry())),
+          memberMemo, 500L, pool);
+
+      String path = PREFIX + "/collections/index/community/general/versions/1.0.0/";
+      Map<String, String> responses = new HashMap<>();
+      responses.put(path, "{\"source\": \"member\"}");
+      when(groupFacet.members()).thenReturn(Arrays.asList(member("queued", responses, 5_000L),
+          member("rejected", responses, 5_000L)));
+
+      Map<String, String> tokens = new HashMap<>();
+      tokens.put("namespace", "community");
+      tokens.put("name", "general");
+      tokens.put("version", "1.0.0");
+      setTokens(tokens);
+
+      long start = System.nanoTime();
+      Response response = underTest.doGet(context, new DispatchedRepositories());
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      assertThat(response.getStatus().getCode(), is(NOT_FOUND));
+      assertThat(elapsedMillis, is(lessThan(2_000L)));
+    }
+    finally {
+      busy.countDown();
+      pool.shutdownNow();
+    }
+  }
+
+  // -- Member memo --
+
+  @Test
+  public void versionDetailRemembersAnsweringMember() throws Exception {
+    String path = PREFIX + "/collections/index/community/general/versions/1.0.0/";
+    Map<String, String> proxy = new HashMap<>();
+    proxy.put(path, "{\"source\": \"proxy\"}");
+    Repository hostedMember = member("hosted", new HashMap<>());
+    Repository proxyMember = member("proxy", proxy);
+    List<Repository> members = Arrays.asList(hostedMember, proxyMember);
+    when(groupFacet.members()).thenReturn(members);
+
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "community");
+    tokens.put("name", "general");
+    tokens.put("version", "1.0.0");
+    setTokens(tokens);
+
+    Response response = underTest.doGet(context, new DispatchedRepositories());
+    assertThat(response.getStatus().getCode(), is(OK));
+    assertThat(memberMemo.get("galaxy-group", "community", "general", members), is(sameInstance(proxyMember)));
+  }
+
+  @Test
+  public void versionDetailGoesStraightToRememberedMember() throws Exception {
+    String path = PREFIX + "/collections/index/community/general/versions/1.0.0/";
+    Map<String, String> hosted = new HashMap<>();
+    hosted.put(path, "{\"source\": \"hosted\"}");
+    Map<String, String> proxy = new HashMap<>();
+    proxy.put(path, "{\"source\": \"proxy\"}");
+    Repository hostedMember = member("hosted", hosted);
+    Repository proxyMember = member("proxy", proxy);
+    when(groupFacet.members()).thenReturn(Arrays.asList(hostedMember, proxyMember));
+    memberMemo.remember("galaxy-group", "community", "general", proxyMember);
+
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "community");
+    tokens.put("name", "general");
+    tokens.put("version", "1.0.0");
+    setTokens(tokens);
+
+    Response response = underTest.doGet(context, new DispatchedRepositories());
+    assertThat(response.getStatus().getCode(), is(OK));
+    assertThat(body(response), containsString("\"proxy\""));
+    verify(hostedMember.facet(ViewFacet.class), never()).dispatch(any(Request.class), any(Context.class));
+  }
+
+  @Test
+  public void artifactFallsBackWhenRememberedMemberMisses() throws Exception {
+    String path = PREFIX + "/collections/artifacts/community-general-1.0.0.tar.gz";
+    when(request.getPath()).thenReturn(path);
+    Map<String, String> hosted = new HashMap<>();
+    hosted.put(path, "artifact");
+    Repository hostedMember = member("hosted", hosted);
+    Repository proxyMember = member("proxy", new HashMap<>());
+    List<Repository> members = Arrays.asList(proxyMember, hostedMember);
+    when(groupFacet.members()).thenReturn(members);
+    memberMemo.remember("galaxy-group", "community", "general", proxyMember);
+
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("filename", "community-general-1.0.0.tar.gz");
+    setTokens(tokens);
+
+    Response response = underTest.doGet(context, new DispatchedRepositories());
+    assertThat(response.getStatus().getCode(), is(OK));
+    assertThat(memberMemo.get("galaxy-group", "community", "general", members), is(sameInstance(hostedMember)));
+  }
+
+  @Test
+  public void artifactReturns404WhenNoMemberHasIt() throws Exception {
+    when(request.getPath()).thenReturn(PREFIX + "/collections/artifacts/community-general-9.9.9.tar.gz");
+    List<Repository> members = Arrays.asList(member("hosted", new HashMap<>()), member("proxy", new HashMap<>()));
+    when(groupFacet.members()).thenReturn(members);
+
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("filename", "community-general-9.9.9.tar.gz");
+    setTokens(tokens);
+
+    Response response = underTest.doGet(context, new DispatchedRepositories());
+    assertThat(response.getStatus().getCode(), is(NOT_FOUND));
+    assertThat(memberMemo.get("galaxy-group", "community", "general", members), is(nullValue()));
+  }
+}
@@ -0,0 +1,130 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.event.asset.AssetCreatedEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetDeletedEvent;
+import org.sonatype.nexus.repository.content.event.asset.AssetPurgedEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnsibleGalaxyGroupMemberMemoTest
+    extends TestSupport
+{
+  @Mock private Repository hosted;
+  @Mock private Repository proxy;
+  @Mock private Asset asset;
+
+  private List<Repository> members;
+
+  private AnsibleGalaxyGroupMemberMemo underTest;
+
+  @Before
+  public void setUp() {
+    when(hosted.getName()).thenReturn("hosted");
+    when(proxy.getName()).thenReturn("proxy");
+    members = Arrays.asList(hosted, proxy);
+    underTest = new AnsibleGalaxyGroupMemberMemo(100);
+  }
+
+  @Test
+  public void rememberedMemberIsReturned() {
+    underTest.remember("group", "community", "general", proxy);
+    assertThat(underTest.get("group", "community", "general", members), is(sameInstance(proxy)));
+  }
+
+  @Test
+  public void memoIsScopedPerGroup() {
+    underTest.remember("group", "community", "general", proxy);
+    assertThat(underTest.get("other-group", "community", "general", members), is(nullValue()));
+  }
+
+  @Test
+  public void memberNoLongerInGroupIsIgnored() {
+    underTest.remember("group", "community", "general", proxy);
+    assertThat(underTest.get("group", "community", "general", Collections.singletonList(hosted)), is(nullValue()));
+  }
+
+  @Test
+  public void forgetDropsEntry() {
+    underTest.remember("group", "community", "general", proxy);
+    underTest.forget("group", "community", "general");
+    assertThat(underTest.get("group", "community", "general", members), is(nullValue()));
+  }
+
+  @Test
+  public void assetCreatedInvalidatesCollection() {
+    underTest.remember("group", "community", "general", proxy);
+    underTest.remember("group", "community", "crypto", proxy);
+    when(asset.path()).thenReturn("/collections/artifacts/community-general-2.0.0.tar.gz");
+    AssetCreatedEvent event = mock(AssetCreatedEvent.class);
+    when(event.getAsset()).thenReturn(asset);
+    when(event.getFormat()).thenReturn(AnsibleGalaxyFormat.NAME);
+
+    underTest.on(event);
+
+    assertThat(underTest.get("group", "community", "general", members), is(nullValue()));
+    assertThat(underTest.get("group", "community", "crypto", members), is(sameInstance(proxy)));
+  }
+
+  @Test
+  public void assetDeletedInvalidatesCollection() {
+    underTest.remember("group", "community", "general", hosted);
+    when(asset.path()).thenReturn("/collections/artifacts/community-general-1.0.0.tar.gz");
+    AssetDeletedEvent event = mock(AssetDeletedEvent.class);
+    when(event.getAsset()).thenReturn(asset);
+    when(event.getFormat()).thenReturn(AnsibleGalaxyFormat.NAME);
+
+    underTest.on(event);
+
+    assertThat(underTest.get("group", "community", "general", members), is(nullValue()));
+  }
+
+  @Test
+  public void assetPurgedInvalidatesEverything() {
+    underTest.remember("group", "community", "general", hosted);
+    underTest.remember("group", "community", "crypto", proxy);
+
+    AssetPurgedEvent event = mock(AssetPurgedEvent.class);
+    when(event.getFormat()).thenReturn(AnsibleGalaxyFormat.NAME);
+
+    underTest.on(event);
+
+    assertThat(underTest.get("group", "community", "general", members), is(nullValue()));
+    assertThat(underTest.get("group", "community", "crypto", members), is(nullValue()));
+  }
+
+  @Test
+  public void eventsOfOtherFormatsAreIgnored() {
+    underTest.remember("group", "community", "general", hosted);
+    when(asset.path()).thenReturn("/collections/artifacts/community-general-1.0.0.tar.gz");
+    AssetDeletedEvent deleted = mock(AssetDeletedEvent.class);
+    when(deleted.getAsset()).thenReturn(asset);
+    when(deleted.getFormat()).thenReturn("raw");
+    AssetPurgedEvent purged = mock(AssetPurgedEvent.class);
+    when(purged.getFormat()).thenReturn("maven2");
+
+    underTest.on(deleted);
+    underTest.on(purged);
+
+    verify(asset, never()).path();
+    assertThat(underTest.get("group", "community", "general", members), is(sameInstance(hosted)));
+  }
+}
@@ -0,0 +1,74 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxySecurityFacet;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.group.GroupFacetImpl;
+import org.sonatype.nexus.repository.security.SecurityHandler;
+import org.sonatype.nexus.repository.types.GroupType;
+import org.sonatype.nexus.repository.view.ConfigurableViewFacet;
+import org.sonatype.nexus.repository.view.handlers.ExceptionHandler;
+import org.sonatype.nexus.repository.view.handlers.HandlerContributor;
+import org.sonatype.nexus.repository.view.handlers.TimingHandler;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+
+public class AnsibleGalaxyGroupRecipeTest
+    extends TestSupport
+{
+  @Mock private Repository repository;
+  @Mock private AnsibleGalaxySecurityFacet ansibleGalaxySecurityFacet;
+  @Mock private ConfigurableViewFacet viewFacet;
+  @Mock private GroupFacetImpl groupFacet;
+  @Mock private TimingHandler timingHandler;
+  @Mock private SecurityHandler securityHandler;
+  @Mock private ExceptionHandler exceptionHandler;
+  @Mock private HandlerContributor handlerContributor;
+  @Mock private AnsibleGalaxyGroupHandler groupHandler;
+
+  private AnsibleGalaxyGroupRecipe underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new AnsibleGalaxyGroupRecipe(new GroupType(), new AnsibleGalaxyFormat());
+
+    underTest.securityFacet = () -> ansibleGalaxySecurityFacet;
+    underTest.viewFacet = () -> viewFacet;
+    underTest.groupFacet = () -> groupFacet;
+    underTest.timingHandler = timingHandler;
+    underTest.securityHandler = securityHandler;
+    underTest.exceptionHandler = exceptionHandler;
+    underTest.handlerContributor = handlerContributor;
+    underTest.groupHandler = groupHandler;
+  }
+
+  @Test
+  public void recipeNameIsCorrect() {
+    assertThat(AnsibleGalaxyGroupRecipe.NAME, is("ansible-galaxy-group"));
+  }
+
+  @Test
+  public void applyAttachesGroupFacet() throws Exception {
+    underTest.apply(repository);
+    verify(repository).attach(groupFacet);
+  }
+
+  @Test
+  public void applyAttachesSecurityFacet() throws Exception {
+    underTest.apply(repository);
+    verify(repository).attach(ansibleGalaxySecurityFacet);
+  }
+
+  @Test
+  public void applyAttachesViewFacet() throws Exception {
+    underTest.apply(repository);
+    verify(repository).attach(viewFacet);
+  }
+}
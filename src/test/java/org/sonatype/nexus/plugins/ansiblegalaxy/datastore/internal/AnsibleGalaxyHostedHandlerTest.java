@@ -1,5 +1,8 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -7,25 +10,39 @@ import java.util.Map;
 import java.util.Optional;
 
 import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyMetrics;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyRequestTracer;
 import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyResponseBuilder;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.content.AssetBlob;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
 import org.sonatype.nexus.repository.content.fluent.FluentComponent;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Parameters;
 import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
 
+import com.codahale.metrics.MetricRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonatype.nexus.repository.http.HttpStatus.*;
@@ -44,13 +61,16 @@ public class AnsibleGalaxyHostedHandlerTest
   @Mock private AssetBlob blob;
   @Mock private FluentComponent component;
 
+  private MetricRegistry metricRegistry;
   private GalaxyResponseBuilder responseBuilder;
   private AnsibleGalaxyHostedHandler underTest;
 
   @Before
   public void setUp() {
-    responseBuilder = new GalaxyResponseBuilder();
-    underTest = new AnsibleGalaxyHostedHandler(responseBuilder);
+    metricRegistry = new MetricRegistry();
+    GalaxyMetrics metrics = new GalaxyMetrics(metricRegistry);
+    responseBuilder = new GalaxyResponseBuilder(metrics);
+    underTest = new AnsibleGalaxyHostedHandler(responseBuilder, metrics, new GalaxyRequestTracer(2000L, false));
 
     when(context.getRequest()).thenReturn(request);
     when(context.getRepository()).thenReturn(repository);
@@ -58,12 +78,21 @@ public class AnsibleGalaxyHostedHandlerTest
     when(repository.getUrl()).thenReturn("http://nexus/repository/ansible-galaxy-test");
     when(context.getAttributes()).thenReturn(new org.sonatype.nexus.common.collect.AttributesMap());
     context.getAttributes().set(TokenMatcher.State.class, tokenState);
+    when(request.getParameters()).thenReturn(new Parameters());
+    when(contentFacet.mayContainCollection(anyString(), anyString())).thenReturn(true);
+    when(contentFacet.mayContainTarball(anyString())).thenReturn(true);
   }
 
   private void setTokens(Map<String, String> tokens) {
     when(tokenState.getTokens()).thenReturn(tokens);
   }
 
+  private static String readBody(final Response response) throws Exception {
+    try (InputStream in = response.getPayload().openInputStream()) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
   // -- POST upload tests --
 
   @Test
@@ -103,19 +132,46 @@ public class AnsibleGalaxyHostedHandlerTest
     assertThat(response.getStatus().getCode(), is(OK));
   }
 
+  @Test
+  public void getDownloadRecordsRouteLatency() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("filename", "testns-testcol-1.0.0.tar.gz");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.get("/collections/artifacts/testns-testcol-1.0.0.tar.gz")).thenReturn(Optional.of(content));
+
+    underTest.handle(context);
+
+    assertThat(metricRegistry.timer("ansiblegalaxy.hosted.download").getCount(), is(1L));
+    assertThat(metricRegistry.counter("ansiblegalaxy.hosted.in-flight").getCount(), is(0L));
+  }
+
   @Test
   public void getDownloadReturns404WhenNotFound() throws Exception {
     Map<String, String> tokens = new HashMap<>();
     tokens.put("filename", "testns-testcol-9.9.9.tar.gz");
     setTokens(tokens);
     when(request.getAction()).thenReturn("GET");
-    when(contentFacet.get("/collections/artifacts/testns-testcol-9.9.9.tar.gz"))
+    when(contentFacet.getAsset("/collections/artifacts/testns-testcol-9.9.9.tar.gz"))
         .thenReturn(Optional.empty());
 
     Response response = underTest.handle(context);
     assertThat(response.getStatus().getCode(), is(NOT_FOUND));
   }
 
+  @Test
+  public void getDownloadSkipsLookupWhenFilterRulesItOut() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("filename", "otherns-othercol-1.0.0.tar.gz");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.mayContainTarball("/collections/artifacts/otherns-othercol-1.0.0.tar.gz")).thenReturn(false);
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(NOT_FOUND));
+    verify(contentFacet, never()).get(anyString());
+  }
+
   // -- GET collection list --
 
   @Test
@@ -123,10 +179,34 @@ public class AnsibleGalaxyHostedHandlerTest
     Map<String, String> tokens = new HashMap<>();
     setTokens(tokens);
     when(request.getAction()).thenReturn("GET");
-    when(contentFacet.browseComponents()).thenReturn(Collections.emptyList());
+    when(contentFacet.countCollections()).thenReturn(0);
+    when(contentFacet.browseCollections(0, 100)).thenReturn(Collections.emptyList());
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(OK));
+  }
+
+  @Test
+  public void getCollectionListHonoursOffsetAndLimitParameters() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    Parameters parameters = new Parameters();
+    parameters.set("offset", "1");
+    parameters.set("limit", "1");
+    when(request.getParameters()).thenReturn(parameters);
+
+    when(contentFacet.countCollections()).thenReturn(2);
+    when(contentFacet.browseCollections(1, 1))
+        .thenReturn(Collections.singletonList(new CollectionSummary("testns", "second", "1.0.0", 1)));
 
     Response response = underTest.handle(context);
     assertThat(response.getStatus().getCode(), is(OK));
+
+    String json = readBody(response);
+    assertThat(json, containsString("\"second\""));
+    assertThat(json, containsString("\"count\" : 2"));
+    verify(contentFacet, never()).browseComponents();
   }
 
   // -- GET collection detail --
@@ -138,12 +218,26 @@ public class AnsibleGalaxyHostedHandlerTest
     tokens.put("name", "noexist");
     setTokens(tokens);
     when(request.getAction()).thenReturn("GET");
-    when(contentFacet.browseComponents()).thenReturn(Collections.emptyList());
+    when(contentFacet.getCollection("noexist", "noexist")).thenReturn(Optional.empty());
 
     Response response = underTest.handle(context);
     assertThat(response.getStatus().getCode(), is(NOT_FOUND));
   }
 
+  @Test
+  public void getCollectionDetailSkipsLookupWhenFilterRulesItOut() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "otherns");
+    tokens.put("name", "othercol");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.mayContainCollection("otherns", "othercol")).thenReturn(false);
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(NOT_FOUND));
+    verify(contentFacet, never()).getCollection(anyString(), anyString());
+  }
+
   @Test
   public void getCollectionDetailReturns200WhenFound() throws Exception {
     Map<String, String> tokens = new HashMap<>();
@@ -151,13 +245,70 @@ public class AnsibleGalaxyHostedHandlerTest
     tokens.put("name", "testcol");
     setTokens(tokens);
     when(request.getAction()).thenReturn("GET");
-    when(component.namespace()).thenReturn("testns");
-    when(component.name()).thenReturn("testcol");
-    when(component.version()).thenReturn("1.0.0");
-    when(contentFacet.browseComponents()).thenReturn(Arrays.asList(component));
+    when(contentFacet.getCollection("testns", "testcol"))
+        .thenReturn(Optional.of(new CollectionSummary("testns", "testcol", "1.0.0", 1)));
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(OK));
+  }
+
+  @Test
+  public void getCollectionDetailReportsSummaryHighestVersion() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.getCollection("testns", "testcol"))
+        .thenReturn(Optional.of(new CollectionSummary("testns", "testcol", "2.0.0", 3)));
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(OK));
+    assertThat(readBody(response), containsString("versions/2.0.0/"));
+    verify(contentFacet, never()).versionsHighestFirst(anyString(), anyString());
+  }
+
+  // -- GET version list --
+
+  @Test
+  public void getVersionListKeepsStoreOrder() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    tokens.put("version_marker", "versions");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.versionsHighestFirst("testns", "testcol"))
+        .thenReturn(Arrays.asList("1.10.0", "1.2.0", "1.2.0-beta"));
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(OK));
+
+    String json = readBody(response);
+    assertThat(json.indexOf("\"1.10.0\"") < json.indexOf("\"1.2.0\""), is(true));
+    assertThat(json.indexOf("\"1.2.0\"") < json.indexOf("\"1.2.0-beta\""), is(true));
+    assertThat(response.getHeaders().get(GalaxyRequestTracer.SERVER_TIMING), is(nullValue()));
+  }
+
+  @Test
+  public void getVersionListReportsPhaseTimingsWhenEnabled() throws Exception {
+    underTest = new AnsibleGalaxyHostedHandler(responseBuilder, new GalaxyMetrics(metricRegistry),
+        new GalaxyRequestTracer(2000L, true));
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    tokens.put("version_marker", "versions");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.versionsHighestFirst("testns", "testcol")).thenReturn(Arrays.asList("1.0.0"));
 
     Response response = underTest.handle(context);
     assertThat(response.getStatus().getCode(), is(OK));
+
+    String timing = response.getHeaders().get(GalaxyRequestTracer.SERVER_TIMING);
+    assertThat(timing, startsWith("db;dur="));
+    assertThat(timing, containsString("serialize;dur="));
+    assertThat(timing, containsString("total;dur="));
   }
 
   // -- GET version detail --
@@ -170,13 +321,28 @@ public class AnsibleGalaxyHostedHandlerTest
     tokens.put("version", "9.9.9");
     setTokens(tokens);
     when(request.getAction()).thenReturn("GET");
-    when(contentFacet.get("/collections/artifacts/testns-testcol-9.9.9.tar.gz"))
+    when(contentFacet.getAsset("/collections/artifacts/testns-testcol-9.9.9.tar.gz"))
         .thenReturn(Optional.empty());
 
     Response response = underTest.handle(context);
     assertThat(response.getStatus().getCode(), is(NOT_FOUND));
   }
 
+  @Test
+  public void getVersionDetailSkipsLookupWhenFilterRulesItOut() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    tokens.put("version", "9.9.9");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.mayContainTarball("/collections/artifacts/testns-testcol-9.9.9.tar.gz")).thenReturn(false);
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(NOT_FOUND));
+    verify(contentFacet, never()).getAsset(anyString());
+  }
+
   @Test
   public void getVersionDetailReturns200WhenFound() throws Exception {
     Map<String, String> tokens = new HashMap<>();
@@ -185,17 +351,88 @@ public class AnsibleGalaxyHostedHandlerTest
     tokens.put("version", "1.0.0");
     setTokens(tokens);
     when(request.getAction()).thenReturn("GET");
-    when(contentFacet.get("/collections/artifacts/testns-testcol-1.0.0.tar.gz"))
-        .thenReturn(Optional.of(content));
+    when(contentFacet.getAsset("/collections/artifacts/testns-testcol-1.0.0.tar.gz"))
+        .thenReturn(Optional.of(asset));
 
     when(asset.path()).thenReturn("/collections/artifacts/testns-testcol-1.0.0.tar.gz");
+    when(asset.attributes()).thenReturn(new NestedAttributesMap("attributes", new HashMap<>()));
     when(asset.blob()).thenReturn(Optional.of(blob));
     when(blob.checksums()).thenReturn(Collections.singletonMap("sha256", "abc123"));
     when(blob.blobSize()).thenReturn(12345L);
-    when(contentFacet.browseAssets()).thenReturn(Arrays.asList(asset));
 
     Response response = underTest.handle(context);
     assertThat(response.getStatus().getCode(), is(OK));
+    verify(contentFacet, never()).browseAssets();
+  }
+
+  // -- GET docs-blob --
+
+  @Test
+  public void getDocsBlobReturnsSidecarWhenReady() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    tokens.put("version", "1.0.0");
+    tokens.put("docs_marker", "docs-blob");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.get("/collections/docs/testns-testcol-1.0.0.json")).thenReturn(Optional.of(content));
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(OK));
+    verify(contentFacet, never()).getAsset(anyString());
+  }
+
+  @Test
+  public void getDocsBlobReturns404UntilExtracted() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    tokens.put("version", "1.0.0");
+    tokens.put("docs_marker", "docs-blob");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.get("/collections/docs/testns-testcol-1.0.0.json")).thenReturn(Optional.empty());
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(NOT_FOUND));
+  }
+
+  // -- GET files --
+
+  @Test
+  public void getFilesStreamsListingFromIndex() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    tokens.put("version", "1.0.0");
+    tokens.put("files_marker", "files");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.get("/collections/files/testns-testcol-1.0.0.tsv")).thenReturn(Optional.of(content));
+    when(content.openInputStream())
+        .thenReturn(new ByteArrayInputStream("f\tabc123\tREADME.md\n".getBytes(StandardCharsets.UTF_8)));
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(OK));
+    String json = readBody(response);
+    assertThat(json, containsString("\"name\":\"README.md\""));
+    assertThat(json, containsString("\"chksum_sha256\":\"abc123\""));
+  }
+
+  @Test
+  public void getFilesReturns404WithoutIndex() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    tokens.put("version", "1.0.0");
+    tokens.put("files_marker", "files");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    when(contentFacet.get("/collections/files/testns-testcol-1.0.0.tsv")).thenReturn(Optional.empty());
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(NOT_FOUND));
   }
 
   // -- DELETE tests --
@@ -228,6 +465,70 @@ public class AnsibleGalaxyHostedHandlerTest
     assertThat(response.getStatus().getCode(), is(NOT_FOUND));
   }
 
+  @Test
+  public void deleteCollectionRemovesAllVersions() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("DELETE");
+    when(request.getParameters()).thenReturn(new Parameters());
+    when(contentFacet.deleteCollection("testns", "testcol")).thenReturn(400);
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(NO_CONTENT));
+    verify(contentFacet).deleteCollection("testns", "testcol");
+  }
+
+  @Test
+  public void deleteCollectionReturns404WhenNothingDeleted() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "noexist");
+    tokens.put("name", "noexist");
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("DELETE");
+    when(request.getParameters()).thenReturn(new Parameters());
+    when(contentFacet.deleteCollection("noexist", "noexist")).thenReturn(0);
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(NOT_FOUND));
+  }
+
+  @Test
+  public void deleteVersionRangeRemovesMatchingVersions() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    setTokens(tokens);
+    Parameters parameters = new Parameters();
+    parameters.set("version_range", ">=1.0.0,<2.0.0");
+    when(request.getAction()).thenReturn("DELETE");
+    when(request.getParameters()).thenReturn(parameters);
+    when(contentFacet.deleteVersions(eq("testns"), eq("testcol"), any())).thenReturn(3);
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(NO_CONTENT));
+    verify(contentFacet).deleteVersions(eq("testns"), eq("testcol"),
+        argThat(range -> range.test("1.5.0") && !range.test("2.0.0")));
+    verify(contentFacet, never()).deleteCollection(anyString(), anyString());
+  }
+
+  @Test
+  public void deleteVersionRangeReturns400ForInvalidRange() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    tokens.put("namespace", "testns");
+    tokens.put("name", "testcol");
+    setTokens(tokens);
+    Parameters parameters = new Parameters();
+    parameters.set("version_range", ">=banana");
+    when(request.getAction()).thenReturn("DELETE");
+    when(request.getParameters()).thenReturn(parameters);
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(BAD_REQUEST));
+    verify(contentFacet, never()).deleteVersions(anyString(), anyString(), any());
+  }
+
   // -- Unsupported method --
 
   @Test
@@ -16,7 +16,6 @@ import org.sonatype.nexus.repository.view.handlers.ConditionalRequestHandler;
 import org.sonatype.nexus.repository.view.handlers.ContentHeadersHandler;
 import org.sonatype.nexus.repository.view.handlers.ExceptionHandler;
 import org.sonatype.nexus.repository.view.handlers.HandlerContributor;
-import org.sonatype.nexus.repository.view.handlers.LastDownloadedHandler;
 import org.sonatype.nexus.repository.view.handlers.TimingHandler;
 
 import org.junit.Before;
@@ -44,7 +43,7 @@ public class AnsibleGalaxyHostedRecipeTest
   @Mock private ConditionalRequestHandler conditionalRequestHandler;
   @Mock private PartialFetchHandler partialFetchHandler;
   @Mock private ContentHeadersHandler contentHeadersHandler;
-  @Mock private LastDownloadedHandler lastDownloadedHandler;
+  @Mock private AnsibleGalaxyLastDownloadedHandler lastDownloadedHandler;
   @Mock private AnsibleGalaxyHostedHandler hostedHandler;
 
   private AnsibleGalaxyHostedRecipe underTest;
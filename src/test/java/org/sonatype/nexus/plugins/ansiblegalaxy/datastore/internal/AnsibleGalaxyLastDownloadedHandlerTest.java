@@ -0,0 +1,125 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.store.AssetData;
+import org.sonatype.nexus.repository.http.HttpResponses;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnsibleGalaxyLastDownloadedHandlerTest
+    extends TestSupport
+{
+  @Mock private ScheduledExecutorService scheduler;
+  @Mock private Context context;
+  @Mock private Request request;
+  @Mock private Repository hosted;
+  @Mock private Repository proxy;
+  @Mock private AnsibleGalaxyContentFacet hostedFacet;
+  @Mock private AnsibleGalaxyContentFacet proxyFacet;
+
+  private AnsibleGalaxyLastDownloadedHandler underTest;
+
+  @Before
+  public void setUp() {
+    when(hosted.facet(AnsibleGalaxyContentFacet.class)).thenReturn(hostedFacet);
+    when(proxy.facet(AnsibleGalaxyContentFacet.class)).thenReturn(proxyFacet);
+    when(context.getRequest()).thenReturn(request);
+    when(request.getAction()).thenReturn("GET");
+    underTest = new AnsibleGalaxyLastDownloadedHandler(scheduler, 10_000L);
+  }
+
+  @Test
+  public void repeatedDownloadsAreFlushedOnce() throws Exception {
+    download(hosted, 7);
+    download(hosted, 7);
+    download(hosted, 8);
+
+    underTest.flush();
+    underTest.flush();
+
+    verify(hostedFacet).markAssetsDownloaded(new int[]{7, 8});
+  }
+
+  @Test
+  public void downloadsAreFlushedPerRepository() throws Exception {
+    download(hosted, 7);
+    download(proxy, 9);
+
+    underTest.flush();
+
+    verify(hostedFacet).markAssetsDownloaded(new int[]{7});
+    verify(proxyFacet).markAssetsDownloaded(new int[]{9});
+  }
+
+  @Test
+  public void headRequestsAndGeneratedResponsesAreNotRecorded() throws Exception {
+    when(request.getAction()).thenReturn("HEAD");
+    download(hosted, 7);
+    when(request.getAction()).thenReturn("GET");
+    when(context.getRepository()).thenReturn(hosted);
+    when(context.proceed()).thenReturn(HttpResponses.ok(new Content(new StringPayload("{}", "application/json"))));
+    underTest.handle(context);
+
+    underTest.flush();
+
+    verify(hostedFacet, never()).markAssetsDownloaded(any());
+  }
+
+  @Test
+  public void failedFlushDoesNotAffectOtherRepositories() throws Exception {
+    when(hostedFacet.markAssetsDownloaded(any())).thenThrow(new IllegalStateException("database unavailable"));
+    download(hosted, 7);
+    download(proxy, 9);
+
+    underTest.flush();
+
+    verify(proxyFacet).markAssetsDownloaded(new int[]{9});
+  }
+
+  @Test
+  public void flushesAreScheduledOnStart() throws Exception {
+    underTest.start();
+
+    verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), eq(10_000L), eq(10_000L),
+        eq(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void pendingDownloadsAreFlushedOnStop() throws Exception {
+    underTest.start();
+    download(hosted, 7);
+
+    underTest.stop();
+
+    verify(scheduler).shutdown();
+    verify(hostedFacet).markAssetsDownloaded(new int[]{7});
+  }
+
+  private void download(final Repository repository, final int assetId) throws Exception {
+    AssetData asset = new AssetData();
+    asset.setAssetId(assetId);
+    Content content = new Content(new StringPayload("tarball", "application/gzip"));
+    content.getAttributes().set(Asset.class, asset);
+    when(context.getRepository()).thenReturn(repository);
+    when(context.proceed()).thenReturn(HttpResponses.ok(content));
+    underTest.handle(context);
+  }
+}
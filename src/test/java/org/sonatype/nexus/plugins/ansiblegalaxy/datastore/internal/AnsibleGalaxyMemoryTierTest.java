@@ -0,0 +1,171 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.ByteBufferPayload;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyMetrics;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.event.asset.AssetDeletedEvent;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnsibleGalaxyMemoryTierTest
+    extends TestSupport
+{
+  private static final String REPOSITORY = "galaxy-hosted";
+
+  private static final String ETAG = "etag";
+
+  private MetricRegistry registry;
+
+  private AnsibleGalaxyMemoryTier underTest;
+
+  @Before
+  public void setUp() {
+    registry = new MetricRegistry();
+    underTest = new AnsibleGalaxyMemoryTier(new GalaxyMetrics(registry), 1000, 800);
+  }
+
+  @Test
+  public void admittedTarballIsServedFromMemory() throws Exception {
+    Asset asset = asset("community-general-9.4.0.tar.gz");
+    byte[] bytes = bytes(600, 1);
+    Content stored = content(bytes);
+    stored.getAttributes().set(ETAG, "\"abc\"");
+
+    Content offered = underTest.offer(REPOSITORY, asset, "default@1", stored);
+    Content held = underTest.get(REPOSITORY, asset, "default@1").get();
+
+    assertThat(offered.getPayload(), is(instanceOf(ByteBufferPayload.class)));
+    assertThat(read(offered), is(bytes));
+    assertThat(read(held), is(bytes));
+    assertThat(held.getAttributes().get(ETAG), is("\"abc\""));
+    assertThat(held.getAttributes().get(Asset.class), is(sameInstance(asset)));
+    assertThat(underTest.usedBytes(), is(600L));
+  }
+
+  @Test
+  public void assetPointingAtAnotherBlobIsAMiss() {
+    Asset asset = asset("community-general-9.4.0.tar.gz");
+    underTest.offer(REPOSITORY, asset, "default@1", content(bytes(600, 1)));
+
+    assertThat(underTest.get(REPOSITORY, asset, "default@2").isPresent(), is(false));
+    assertThat(underTest.usedBytes(), is(0L));
+  }
+
+  @Test
+  public void assetEventsDropTheEntry() {
+    Asset asset = asset("community-general-9.4.0.tar.gz");
+    underTest.offer(REPOSITORY, asset, "default@1", content(bytes(600, 1)));
+    underTest.offer("galaxy-proxy", asset, "default@2", content(bytes(200, 2)));
+
+    underTest.on(deleted(asset, AnsibleGalaxyFormat.NAME));
+
+    assertThat(underTest.get(REPOSITORY, asset, "default@1").isPresent(), is(false));
+    assertThat(underTest.get("galaxy-proxy", asset, "default@2").isPresent(), is(false));
+    assertThat(underTest.usedBytes(), is(0L));
+  }
+
+  @Test
+  public void assetEventsOfOtherFormatsAreIgnored() {
+    Asset asset = asset("community-general-9.4.0.tar.gz");
+    underTest.offer(REPOSITORY, asset, "default@1", content(bytes(600, 1)));
+
+    underTest.on(deleted(asset, "raw"));
+
+    assertThat(underTest.get(REPOSITORY, asset, "default@1").isPresent(), is(true));
+    assertThat(underTest.usedBytes(), is(600L));
+  }
+
+  @Test
+  public void heldBytesArePublishedAsAGauge() {
+    underTest.offer(REPOSITORY, asset("community-general-9.4.0.tar.gz"), "default@1", content(bytes(600, 1)));
+
+    assertThat(registry.getGauges().get("ansiblegalaxy.memory-tier.bytes").getValue(), is(600L));
+  }
+
+  @Test
+  public void oneOffDownloadsDoNotDisplaceFrequentTarballs() {
+    Asset hot = asset("ansible-posix-1.6.2.tar.gz");
+    for (int i = 0; i < 5; i++) {
+      underTest.get(REPOSITORY, hot, "default@1");
+    }
+    underTest.offer(REPOSITORY, hot, "default@1", content(bytes(600, 1)));
+
+    Asset cold = asset("acme-internal-0.1.0.tar.gz");
+    underTest.get(REPOSITORY, cold, "default@2");
+    Content stored = content(bytes(600, 2));
+
+    assertThat(underTest.offer(REPOSITORY, cold, "default@2", stored), is(sameInstance(stored)));
+    assertThat(underTest.get(REPOSITORY, hot, "default@1").isPresent(), is(true));
+  }
+
+  @Test
+  public void moreFrequentTarballDisplacesLeastRecentlyUsed() {
+    Asset first = asset("ansible-posix-1.6.2.tar.gz");
+    underTest.get(REPOSITORY, first, "default@1");
+    underTest.offer(REPOSITORY, first, "default@1", content(bytes(600, 1)));
+
+    Asset popular = asset("community-docker-4.1.0.tar.gz");
+    for (int i = 0; i < 5; i++) {
+      underTest.get(REPOSITORY, popular, "default@2");
+    }
+    underTest.offer(REPOSITORY, popular, "default@2", content(bytes(600, 2)));
+
+    assertThat(underTest.get(REPOSITORY, first, "default@1").isPresent(), is(false));
+    assertThat(underTest.get(REPOSITORY, popular, "default@2").isPresent(), is(true));
+    assertThat(underTest.usedBytes(), is(600L));
+  }
+
+  @Test
+  public void tarballsAboveTheEntryLimitAreNotHeld() {
+    Asset asset = asset("community-general-9.4.0.tar.gz");
+    Content stored = content(bytes(900, 1));
+
+    assertThat(underTest.offer(REPOSITORY, asset, "default@1", stored), is(sameInstance(stored)));
+    assertThat(underTest.usedBytes(), is(0L));
+  }
+
+  private static Asset asset(final String filename) {
+    Asset asset = mock(Asset.class);
+    when(asset.path()).thenReturn("/collections/artifacts/" + filename);
+    return asset;
+  }
+
+  private static AssetDeletedEvent deleted(final Asset asset, final String format) {
+    AssetDeletedEvent event = mock(AssetDeletedEvent.class);
+    when(event.getAsset()).thenReturn(asset);
+    when(event.getFormat()).thenReturn(format);
+    return event;
+  }
+
+  private static Content content(final byte[] bytes) {
+    return new Content(new BytesPayload(bytes, "application/gzip"));
+  }
+
+  private static byte[] bytes(final int size, final int seed) {
+    byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte) seed);
+    return bytes;
+  }
+
+  private static byte[] read(final Content content) throws Exception {
+    try (InputStream in = content.openInputStream()) {
+      return in.readAllBytes();
+    }
+  }
+}
@@ -7,15 +7,19 @@ import java.util.Optional;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyMetrics;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyRequestTracer;
 import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyUpstreamClient;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.httpclient.HttpClientFacet;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Parameters;
 import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
 
+import com.codahale.metrics.MetricRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -45,11 +49,15 @@ public class AnsibleGalaxyProxyHandlerTest
   @Mock private Content content;
   @Mock private TokenMatcher.State tokenState;
 
+  private MetricRegistry metricRegistry;
+
   private AnsibleGalaxyProxyHandler underTest;
 
   @Before
   public void setUp() {
-    underTest = new AnsibleGalaxyProxyHandler(upstreamClient);
+    metricRegistry = new MetricRegistry();
+    underTest = new AnsibleGalaxyProxyHandler(upstreamClient, new GalaxyMetrics(metricRegistry),
+        new GalaxyRequestTracer(2000L, false));
 
     when(context.getRequest()).thenReturn(request);
     when(context.getRepository()).thenReturn(repository);
@@ -69,6 +77,7 @@ public class AnsibleGalaxyProxyHandlerTest
     attributes.set(TokenMatcher.State.class, tokenState);
     when(context.getAttributes()).thenReturn(attributes);
     when(request.getPath()).thenReturn("/api/v3/collections/");
+    when(request.getParameters()).thenReturn(new Parameters());
   }
 
   private void setTokens(Map<String, String> tokens) {
@@ -111,6 +120,8 @@ public class AnsibleGalaxyProxyHandlerTest
     Response response = underTest.handle(context);
     assertThat(response.getStatus().getCode(), is(OK));
     verify(upstreamClient, never()).fetchArtifact(any(), anyString(), anyString());
+    assertThat(metricRegistry.counter("ansiblegalaxy.proxy.cache.hit").getCount(), is(1L));
+    assertThat(metricRegistry.timer("ansiblegalaxy.proxy.artifact").getCount(), is(1L));
   }
 
   // -- Artifact download: cache miss, upstream found --
@@ -133,6 +144,7 @@ public class AnsibleGalaxyProxyHandlerTest
     assertThat(response.getStatus().getCode(), is(OK));
     verify(contentFacet).putCollection(eq("/collections/artifacts/community-general-5.0.0.tar.gz"),
         eq(content), eq("community"), eq("general"), eq("5.0.0"));
+    assertThat(metricRegistry.counter("ansiblegalaxy.proxy.cache.miss").getCount(), is(1L));
   }
 
   // -- Artifact download: cache miss, upstream not found --
@@ -220,6 +232,23 @@ public class AnsibleGalaxyProxyHandlerTest
     assertThat(response.getStatus().getCode(), is(OK));
   }
 
+  @Test
+  public void collectionListForwardsQueryParameters() throws Exception {
+    Map<String, String> tokens = new HashMap<>();
+    setTokens(tokens);
+    when(request.getAction()).thenReturn("GET");
+    Parameters parameters = new Parameters();
+    parameters.set("offset", "10");
+    parameters.set("limit", "5");
+    when(request.getParameters()).thenReturn(parameters);
+    when(upstreamClient.fetchCollectionList(eq(httpClientFacet), eq("https://galaxy.ansible.com"),
+        eq("http://nexus/repository/galaxy-proxy"), eq("offset=10&limit=5")))
+        .thenReturn("{\"data\": []}");
+
+    Response response = underTest.handle(context);
+    assertThat(response.getStatus().getCode(), is(OK));
+  }
+
   // -- parseFilename tests --
 
   @Test
@@ -0,0 +1,137 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.GalaxyInstallLoadGenerator.Report;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.FakeGalaxyServer;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyMetrics;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyRequestTracer;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.GalaxyUpstreamClient;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.config.Configuration;
+import org.sonatype.nexus.repository.httpclient.HttpClientFacet;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Drives the proxy handler with replayed CLI installs against {@link FakeGalaxyServer}, reporting throughput,
+ * latency percentiles and upstream calls for cold and warm caches.
+ *
+ * The defaults keep the run short enough for every build. Scale it up with {@code -Dgalaxy.load.clients},
+ * {@code -Dgalaxy.load.installs} and {@code -Dgalaxy.load.latencyMillis}, and read the reports in the test log.
+ */
+public class AnsibleGalaxyProxyLoadTest
+    extends TestSupport
+{
+  private static final int CLIENTS = Integer.getInteger("galaxy.load.clients", 4);
+
+  private static final int INSTALLS = Integer.getInteger("galaxy.load.installs", 25);
+
+  private static final long LATENCY_MILLIS = Long.getLong("galaxy.load.latencyMillis", 0L);
+
+  private final Map<String, byte[]> cache = new ConcurrentHashMap<>();
+
+  private FakeGalaxyServer upstream;
+
+  private CloseableHttpClient httpClient;
+
+  private GalaxyInstallLoadGenerator generator;
+
+  @Before
+  public void setUp() throws Exception {
+    upstream = new FakeGalaxyServer(20, 15, 30).start();
+    upstream.setLatencyMillis(LATENCY_MILLIS);
+    httpClient = HttpClients.custom().setMaxConnTotal(CLIENTS * 2).setMaxConnPerRoute(CLIENTS * 2).build();
+
+    HttpClientFacet httpClientFacet = mock(HttpClientFacet.class, withSettings().stubOnly());
+    when(httpClientFacet.getHttpClient()).thenReturn(httpClient);
+
+    AnsibleGalaxyContentFacet contentFacet = mock(AnsibleGalaxyContentFacet.class, withSettings().stubOnly());
+    when(contentFacet.get(anyString())).thenAnswer(invocation -> Optional.ofNullable(
+        cache.get(invocation.<String>getArgument(0)))
+        .map(bytes -> new Content(new BytesPayload(bytes, "application/gzip"))));
+    when(contentFacet.putCollection(anyString(), any(Payload.class), anyString(), anyString(), anyString()))
+        .thenAnswer(invocation -> {
+          try (InputStream in = invocation.<Payload>getArgument(1).openInputStream()) {
+            cache.put(invocation.getArgument(0), in.readAllBytes());
+          }
+          return null;
+        });
+
+    Map<String, Object> proxy = new HashMap<>();
+    proxy.put("remoteUrl", upstream.getUrl());
+    Configuration configuration = mock(Configuration.class, withSettings().stubOnly());
+    when(configuration.attributes("proxy")).thenReturn(new NestedAttributesMap("proxy", proxy));
+
+    Repository repository = mock(Repository.class, withSettings().stubOnly());
+    when(repository.getUrl()).thenReturn("http://nexus/repository/galaxy-proxy");
+    when(repository.getConfiguration()).thenReturn(configuration);
+    when(repository.facet(HttpClientFacet.class)).thenReturn(httpClientFacet);
+    when(repository.facet(AnsibleGalaxyContentFacet.class)).thenReturn(contentFacet);
+
+    GalaxyMetrics metrics = new GalaxyMetrics(new MetricRegistry());
+    AnsibleGalaxyProxyHandler handler = new AnsibleGalaxyProxyHandler(new GalaxyUpstreamClient(metrics), metrics,
+        new GalaxyRequestTracer(2000L, false));
+    generator = new GalaxyInstallLoadGenerator(handler, repository, upstream);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    httpClient.close();
+    upstream.close();
+  }
+
+  @Test
+  public void warmCacheServesArtifactsWithoutUpstreamCalls() throws Exception {
+    Report cold = generator.run("cold", CLIENTS, INSTALLS, 1L);
+    Report warm = generator.run("warm", CLIENTS, INSTALLS, 1L);
+    log.info("{}", cold);
+    log.info("{}", warm);
+
+    assertThat(cold.errors, is(0));
+    assertThat(cold.installs, is(CLIENTS * INSTALLS));
+    assertThat(cold.upstreamCalls(FakeGalaxyServer.ARTIFACT), is(greaterThan(0L)));
+
+    assertThat(warm.errors, is(0));
+    assertThat(warm.requests, is(cold.requests));
+    assertThat(warm.upstreamCalls(FakeGalaxyServer.ARTIFACT), is(0L));
+    // metadata is never cached, so every install still asks upstream for it
+    assertThat(warm.upstreamCalls(FakeGalaxyServer.VERSION_DETAIL),
+        is(cold.upstreamCalls(FakeGalaxyServer.VERSION_DETAIL)));
+  }
+
+  @Test
+  public void upstreamErrorsAreCountedAsFailedRequests() throws Exception {
+    upstream.setErrorRate(0.3);
+
+    Report report = generator.run("errors", CLIENTS, INSTALLS, 2L);
+    log.info("{}", report);
+
+    assertThat(report.errors, is(greaterThan(0)));
+    assertThat(report.upstreamCalls(FakeGalaxyServer.ERROR), is(greaterThan(0L)));
+  }
+}
@@ -18,7 +18,6 @@ import org.sonatype.nexus.repository.view.handlers.ConditionalRequestHandler;
 import org.sonatype.nexus.repository.view.handlers.ContentHeadersHandler;
 import org.sonatype.nexus.repository.view.handlers.ExceptionHandler;
 import org.sonatype.nexus.repository.view.handlers.HandlerContributor;
-import org.sonatype.nexus.repository.view.handlers.LastDownloadedHandler;
 import org.sonatype.nexus.repository.view.handlers.TimingHandler;
 
 import org.junit.Before;
@@ -41,6 +40,7 @@ public class AnsibleGalaxyProxyRecipeTest
   @Mock private SearchFacet searchFacet;
   @Mock private ContentMaintenanceFacet maintenanceFacet;
   @Mock private PurgeUnusedFacet purgeUnusedFacet;
+  @Mock private AnsibleGalaxyCacheQuotaFacet cacheQuotaFacet;
   @Mock private TimingHandler timingHandler;
   @Mock private SecurityHandler securityHandler;
   @Mock private ExceptionHandler exceptionHandler;
@@ -48,7 +48,7 @@ public class AnsibleGalaxyProxyRecipeTest
   @Mock private ConditionalRequestHandler conditionalRequestHandler;
   @Mock private PartialFetchHandler partialFetchHandler;
   @Mock private ContentHeadersHandler contentHeadersHandler;
-  @Mock private LastDownloadedHandler lastDownloadedHandler;
+  @Mock private AnsibleGalaxyLastDownloadedHandler lastDownloadedHandler;
   @Mock private AnsibleGalaxyProxyHandler proxyHandler;
 
   private AnsibleGalaxyProxyRecipe underTest;
@@ -65,6 +65,7 @@ public class AnsibleGalaxyProxyRecipeTest
     underTest.searchFacet = () -> searchFacet;
     underTest.maintenanceFacet = () -> maintenanceFacet;
     underTest.purgeUnusedFacet = () -> purgeUnusedFacet;
+    underTest.cacheQuotaFacet = () -> cacheQuotaFacet;
     underTest.timingHandler = timingHandler;
     underTest.securityHandler = securityHandler;
     underTest.exceptionHandler = exceptionHandler;
@@ -116,4 +117,10 @@ public class AnsibleGalaxyProxyRecipeTest
     underTest.apply(repository);
     verify(repository).attach(purgeUnusedFacet);
   }
+
+  @Test
+  public void applyAttachesCacheQuotaFacet() throws Exception {
+    underTest.apply(repository);
+    verify(repository).attach(cacheQuotaFacet);
+  }
 }
@@ -0,0 +1,296 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal;
+
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.FakeGalaxyServer;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.sonatype.nexus.repository.http.HttpMethods.GET;
+
+/**
+ * Replays {@code ansible-galaxy collection install} traffic against a proxy handler in-process.
+ *
+ * Each install follows the CLI: API root, version list, version detail of the highest version, then the artifact
+ * from the rewritten {@code download_url}, repeated for every dependency in the version detail metadata. Requests
+ * are routed with the same token patterns as the proxy recipe. Collections are picked with a skewed popularity so a
+ * few are installed far more often than the rest, as on a real proxy.
+ */
+class GalaxyInstallLoadGenerator
+{
+  private static final String PREFIX = "/api/v3/plugin/ansible/content/published";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final TokenMatcher API_ROOT = new TokenMatcher("/{api_root:api}/");
+
+  private static final TokenMatcher VERSION_LIST =
+      new TokenMatcher(PREFIX + "/collections/index/{namespace}/{name}/{version_marker:versions}/");
+
+  private static final TokenMatcher VERSION_DETAIL =
+      new TokenMatcher(PREFIX + "/collections/index/{namespace}/{name}/versions/{version}/");
+
+  private static final TokenMatcher ARTIFACT = new TokenMatcher(PREFIX + "/collections/artifacts/{filename}");
+
+  private static final List<String> UPSTREAM_ROUTES = Arrays.asList(FakeGalaxyServer.VERSION_LIST,
+      FakeGalaxyServer.VERSION_DETAIL, FakeGalaxyServer.ARTIFACT, FakeGalaxyServer.ERROR);
+
+  private final AnsibleGalaxyProxyHandler handler;
+
+  private final Repository repository;
+
+  private final FakeGalaxyServer upstream;
+
+  GalaxyInstallLoadGenerator(final AnsibleGalaxyProxyHandler handler,
+                             final Repository repository,
+                             final FakeGalaxyServer upstream)
+  {
+    this.handler = handler;
+    this.repository = repository;
+    this.upstream = upstream;
+  }
+
+  /**
+   * Runs {@code installsPerClient} installs on each of {@code clients} threads and waits for all of them.
+   */
+  Report run(final String scenario, final int clients, final int installsPerClient, final long seed)
+      throws Exception
+  {
+    Map<String, Long> callsBefore = upstreamCalls();
+    ExecutorService executor = Executors.newFixedThreadPool(clients);
+    long start = System.nanoTime();
+    try {
+      List<Future<Client>> futures = new ArrayList<>();
+      for (int i = 0; i < clients; i++) {
+        Client client = new Client(new Random(seed + i));
+        futures.add(executor.submit(() -> client.install(installsPerClient)));
+      }
+
+      Report report = new Report(scenario);
+      for (Future<Client> future : futures) {
+        Client client = future.get(10, TimeUnit.MINUTES);
+        report.add(client);
+      }
+      report.elapsedNanos = System.nanoTime() - start;
+
+      Map<String, Long> callsAfter = upstreamCalls();
+      for (String route : UPSTREAM_ROUTES) {
+        report.upstreamCalls.put(route, callsAfter.get(route) - callsBefore.get(route));
+      }
+      return report;
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Map<String, Long> upstreamCalls() {
+    Map<String, Long> calls = new LinkedHashMap<>();
+    for (String route : UPSTREAM_ROUTES) {
+      calls.put(route, upstream.calls(route));
+    }
+    return calls;
+  }
+
+  /**
+   * One simulated CLI, recording the latency of every request it makes.
+   */
+  private class Client
+  {
+    private final Random random;
+
+    private long[] latencies = new long[256];
+
+    private int requests;
+
+    private int errors;
+
+    private int installs;
+
+    Client(final Random random) {
+      this.random = random;
+    }
+
+    Client install(final int count) {
+      for (int i = 0; i < count; i++) {
+        String[] collection = upstream.collection(pickCollection());
+        if (installOne(collection[0], collection[1])) {
+          installs++;
+        }
+      }
+      return this;
+    }
+
+    /**
+     * Squares a uniform pick so the lowest catalog indexes are the most popular.
+     */
+    private int pickCollection() {
+      double uniform = random.nextDouble();
+      return (int) (uniform * uniform * upstream.collectionCount());
+    }
+
+    private boolean installOne(final String namespace, final String name) {
+      if (get("/api/", API_ROOT) == null) {
+        return false;
+      }
+      Set<String> resolved = new HashSet<>();
+      Deque<String[]> pending = new ArrayDeque<>();
+      pending.add(new String[]{namespace, name});
+      while (!pending.isEmpty()) {
+        String[] next = pending.poll();
+        if (!resolved.add(next[0] + "." + next[1])) {
+          continue;
+        }
+        String collectionPath = PREFIX + "/collections/index/" + next[0] + "/" + next[1] + "/";
+
+        JsonNode versions = json(get(collectionPath + "versions/", VERSION_LIST));
+        if (versions == null || versions.path("data").size() == 0) {
+          return false;
+        }
+        String version = versions.path("data").get(0).path("version").asText();
+
+        JsonNode detail = json(get(collectionPath + "versions/" + version + "/", VERSION_DETAIL));
+        if (detail == null) {
+          return false;
+        }
+        String downloadUrl = detail.path("download_url").asText();
+        String artifactPath = downloadUrl.substring(repository.getUrl().length());
+        if (get(artifactPath, ARTIFACT) == null) {
+          return false;
+        }
+
+        Iterator<String> dependencies = detail.path("metadata").path("dependencies").fieldNames();
+        while (dependencies.hasNext()) {
+          String[] dependency = dependencies.next().split("\\.", 2);
+          pending.add(dependency);
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Dispatches a GET and reads the whole body, returning it or null when the request failed.
+     */
+    private byte[] get(final String path, final TokenMatcher matcher) {
+      long start = System.nanoTime();
+      byte[] body = null;
+      try {
+        Context context = new Context(repository, new Request.Builder().action(GET).path(path).build());
+        if (!matcher.matches(context)) {
+          throw new IllegalStateException("No route for " + path);
+        }
+        Response response = handler.handle(context);
+        Payload payload = response.getPayload();
+        if (response.getStatus().isSuccessful() && payload != null) {
+          try (InputStream in = payload.openInputStream()) {
+            body = in.readAllBytes();
+          }
+        }
+      }
+      catch (Exception e) {
+        // upstream failures surface as exceptions, mapped to 5xx by the exception handler in a real route
+        body = null;
+      }
+      record(System.nanoTime() - start, body == null);
+      return body;
+    }
+
+    private JsonNode json(final byte[] body) {
+      try {
+        return body != null ? MAPPER.readTree(body) : null;
+      }
+      catch (Exception e) {
+        return null;
+      }
+    }
+
+    private void record(final long nanos, final boolean failed) {
+      if (requests == latencies.length) {
+        latencies = Arrays.copyOf(latencies, requests * 2);
+      }
+      latencies[requests++] = nanos;
+      if (failed) {
+        errors++;
+      }
+    }
+  }
+
+  /**
+   * Outcome of a run: throughput and latency percentiles over every request, and upstream calls by route.
+   */
+  static class Report
+  {
+    final String scenario;
+
+    final Map<String, Long> upstreamCalls = new LinkedHashMap<>();
+
+    long elapsedNanos;
+
+    int installs;
+
+    int requests;
+
+    int errors;
+
+    private long[] latencies = new long[0];
+
+    Report(final String scenario) {
+      this.scenario = scenario;
+    }
+
+    private void add(final Client client) {
+      installs += client.installs;
+      errors += client.errors;
+      latencies = Arrays.copyOf(latencies, requests + client.requests);
+      System.arraycopy(client.latencies, 0, latencies, requests, client.requests);
+      requests += client.requests;
+      Arrays.sort(latencies);
+    }
+
+    double throughput() {
+      return requests / (elapsedNanos / 1e9);
+    }
+
+    double percentileMillis(final double percentile) {
+      if (requests == 0) {
+        return 0;
+      }
+      int index = (int) Math.min(requests - 1, Math.ceil(percentile / 100 * requests) - 1);
+      return latencies[Math.max(0, index)] / 1e6;
+    }
+
+    long upstreamCalls(final String route) {
+      return upstreamCalls.getOrDefault(route, 0L);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %d installs, %d requests (%d failed) in %.0f ms, %.0f req/s, p50 %.2f ms, "
+              + "p99 %.2f ms, upstream calls %s",
+          scenario, installs, requests, errors, elapsedNanos / 1e6, throughput(), percentileMillis(50),
+          percentileMillis(99), upstreamCalls);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.browse;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.browse.node.BrowsePath;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.Component;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.Mockito.when;
+
+public class AnsibleGalaxyBrowseNodeGeneratorTest
+    extends TestSupport
+{
+  @Mock private Asset asset;
+  @Mock private Component component;
+
+  private AnsibleGalaxyBrowseNodeGenerator underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new AnsibleGalaxyBrowseNodeGenerator();
+  }
+
+  @Test
+  public void tarballIsPlacedUnderNamespaceNameAndVersion() {
+    when(asset.path()).thenReturn("/collections/artifacts/testns-testcol-1.0.0.tar.gz");
+    when(asset.component()).thenReturn(Optional.of(component));
+    when(component.namespace()).thenReturn("testns");
+    when(component.name()).thenReturn("testcol");
+    when(component.version()).thenReturn("1.0.0");
+
+    assertThat(displayNames(underTest.computeAssetPaths(asset)),
+        contains("testns", "testcol", "1.0.0", "testns-testcol-1.0.0.tar.gz"));
+    assertThat(displayNames(underTest.computeComponentPaths(asset)), contains("testns", "testcol", "1.0.0"));
+  }
+
+  @Test
+  public void assetWithoutComponentKeepsPathLayout() {
+    when(asset.path()).thenReturn("/collections/artifacts/orphan.tar.gz");
+    when(asset.component()).thenReturn(Optional.empty());
+
+    assertThat(displayNames(underTest.computeAssetPaths(asset)),
+        contains("collections", "artifacts", "orphan.tar.gz"));
+  }
+
+  private static List<String> displayNames(final List<BrowsePath> paths) {
+    return paths.stream().map(BrowsePath::getDisplayName).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,66 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.AnsibleGalaxyFormat;
+import org.sonatype.nexus.repository.content.Asset;
+import org.sonatype.nexus.repository.content.search.SearchRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnsibleGalaxySearchCustomFieldContributorTest
+    extends TestSupport
+{
+  @Mock private Asset asset;
+  @Mock private SearchRecord searchRecord;
+
+  private NestedAttributesMap attributes;
+
+  private AnsibleGalaxySearchCustomFieldContributor underTest;
+
+  @Before
+  public void setUp() {
+    attributes = new NestedAttributesMap("attributes", new HashMap<>());
+    when(asset.attributes()).thenReturn(attributes);
+    underTest = new AnsibleGalaxySearchCustomFieldContributor();
+  }
+
+  @Test
+  public void populatesFormatFieldsFromCollectionAttributes() {
+    Map<String, Object> galaxy = attributes.child(AnsibleGalaxyFormat.NAME).backing();
+    galaxy.put("tags", Arrays.asList("cloud", "aws"));
+    galaxy.put("description", "AWS modules");
+    galaxy.put("license", Arrays.asList("GPL-3.0-or-later"));
+    galaxy.put("dependencies", Arrays.asList("community.general", "ansible.utils"));
+    galaxy.put("repository", "https://github.com/example/aws");
+
+    underTest.populateSearchCustomFields(searchRecord, asset);
+
+    verify(searchRecord).addFormatFieldValue1("cloud aws");
+    verify(searchRecord).addFormatFieldValue2("AWS modules");
+    verify(searchRecord).addFormatFieldValue3("GPL-3.0-or-later");
+    verify(searchRecord).addFormatFieldValue4("community.general ansible.utils");
+    verify(searchRecord).addFormatFieldValue5("https://github.com/example/aws");
+  }
+
+  @Test
+  public void skipsMissingAttributes() {
+    attributes.child(AnsibleGalaxyFormat.NAME).set("tags", Arrays.asList("cloud"));
+
+    underTest.populateSearchCustomFields(searchRecord, asset);
+
+    verify(searchRecord).addFormatFieldValue1("cloud");
+    verify(searchRecord, never()).addFormatFieldValue4(anyString());
+  }
+}
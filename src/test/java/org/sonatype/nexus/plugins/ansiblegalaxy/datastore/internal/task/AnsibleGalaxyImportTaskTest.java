@@ -0,0 +1,132 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.datastore.internal.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.repository.content.fluent.FluentAsset;
+import org.sonatype.nexus.repository.view.Payload;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnsibleGalaxyImportTaskTest
+    extends TestSupport
+{
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock private AnsibleGalaxyContentFacet contentFacet;
+  @Mock private FluentAsset existingAsset;
+
+  private AnsibleGalaxyImportTask underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new AnsibleGalaxyImportTask();
+    when(contentFacet.getAsset(anyString())).thenReturn(Optional.empty());
+  }
+
+  @Test
+  public void importsAllTarballsRecursively() throws Exception {
+    File root = temporaryFolder.getRoot();
+    writeCollection(new File(root, "testns-one-1.0.0.tar.gz"), "testns", "one", "1.0.0");
+    writeCollection(new File(temporaryFolder.newFolder("nested"), "testns-two-2.0.0.tar.gz"), "testns", "two", "2.0.0");
+    Files.write(new File(root, "README.txt").toPath(), "ignored".getBytes(StandardCharsets.UTF_8));
+
+    AnsibleGalaxyImportTask.ImportProgress progress = underTest.importDirectory(contentFacet, root.toPath(), 2);
+
+    assertThat(progress.total, is(2));
+    assertThat(progress.imported.get(), is(2L));
+    assertThat(progress.skipped.get(), is(0L));
+    verify(contentFacet, times(2)).putCollection(any(Payload.class));
+  }
+
+  @Test
+  public void skipsCoordinatesThatAlreadyExist() throws Exception {
+    Path root = temporaryFolder.getRoot().toPath();
+    writeCollection(root.resolve("testns-one-1.0.0.tar.gz").toFile(), "testns", "one", "1.0.0");
+    writeCollection(root.resolve("testns-one-1.1.0.tar.gz").toFile(), "testns", "one", "1.1.0");
+    when(contentFacet.getAsset("/collections/artifacts/testns-one-1.0.0.tar.gz"))
+        .thenReturn(Optional.of(existingAsset));
+
+    AnsibleGalaxyImportTask.ImportProgress progress = underTest.importDirectory(contentFacet, root, 4);
+
+    assertThat(progress.imported.get(), is(1L));
+    assertThat(progress.skipped.get(), is(1L));
+    verify(contentFacet, times(1)).putCollection(any(Payload.class));
+  }
+
+  @Test
+  public void countsFilesWithoutManifestAsFailed() throws Exception {
+    Path root = temporaryFolder.getRoot().toPath();
+    Files.write(root.resolve("broken-1.0.0.tar.gz"), "not a tarball".getBytes(StandardCharsets.UTF_8));
+
+    AnsibleGalaxyImportTask.ImportProgress progress = underTest.importDirectory(contentFacet, root, 1);
+
+    assertThat(progress.failed.get(), is(1L));
+    verify(contentFacet, times(0)).putCollection(any(Payload.class));
+  }
+
+  @Test
+  public void runtimeFailureOfOneFileDoesNotAbortTheRun() throws Exception {
+    Path root = temporaryFolder.getRoot().toPath();
+    writeCollection(root.resolve("testns-one-1.0.0.tar.gz").toFile(), "testns", "one", "1.0.0");
+    writeCollection(root.resolve("testns-two-1.0.0.tar.gz").toFile(), "testns", "two", "1.0.0");
+    writeCollection(root.resolve("testns-three-1.0.0.tar.gz").toFile(), "testns", "three", "1.0.0");
+    when(contentFacet.getAsset("/collections/artifacts/testns-two-1.0.0.tar.gz"))
+        .thenThrow(new IllegalStateException("duplicate key"));
+
+    AnsibleGalaxyImportTask.ImportProgress progress = underTest.importDirectory(contentFacet, root, 2);
+
+    assertThat(progress.imported.get(), is(2L));
+    assertThat(progress.failed.get(), is(1L));
+    verify(contentFacet, times(2)).putCollection(any(Payload.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsMissingDirectory() {
+    underTest.importDirectory(contentFacet, temporaryFolder.getRoot().toPath().resolve("missing"), 1);
+  }
+
+  private static void writeCollection(final File file,
+                                      final String namespace,
+                                      final String name,
+                                      final String version) throws IOException {
+    String manifest = "{\"collection_info\": {"
+        + "\"namespace\": \"" + namespace + "\","
+        + "\"name\": \"" + name + "\","
+        + "\"version\": \"" + version + "\"}}";
+    byte[] bytes = manifest.getBytes(StandardCharsets.UTF_8);
+
+    try (OutputStream out = Files.newOutputStream(file.toPath());
+         GzipCompressorOutputStream gzos = new GzipCompressorOutputStream(out);
+         TarArchiveOutputStream taos = new TarArchiveOutputStream(gzos)) {
+      TarArchiveEntry entry = new TarArchiveEntry(namespace + "-" + name + "-" + version + "/MANIFEST.json");
+      entry.setSize(bytes.length);
+      taos.putArchiveEntry(entry);
+      taos.write(bytes);
+      taos.closeArchiveEntry();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionInfo;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionManifest;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CollectionAttributesTest
+    extends TestSupport
+{
+  @Test
+  public void dependenciesAreStoredByName() {
+    Map<String, String> dependencies = new LinkedHashMap<>();
+    dependencies.put("community.general", ">=1.0.0");
+    dependencies.put("ansible.utils", "*");
+    CollectionInfo info = new CollectionInfo("testns", "testcol", "1.0.0");
+    info.setDependencies(dependencies);
+
+    Map<String, Object> attributes = CollectionAttributes.fromCollectionInfo(info);
+
+    assertThat(attributes, hasEntry(CollectionAttributes.DEPENDENCIES,
+        (Object) Arrays.asList("community.general", "ansible.utils")));
+  }
+
+  @Test
+  public void emptyFieldsAreLeftOut() {
+    CollectionInfo info = new CollectionInfo("testns", "testcol", "1.0.0");
+    info.setTags(Collections.emptyList());
+    info.setDescription(" ");
+    info.setRepository("https://github.com/example/testcol");
+
+    Map<String, Object> attributes = CollectionAttributes.fromCollectionInfo(info);
+
+    assertThat(attributes, not(hasKey(CollectionAttributes.TAGS)));
+    assertThat(attributes, not(hasKey(CollectionAttributes.DESCRIPTION)));
+    assertThat(attributes, hasEntry(CollectionAttributes.REPOSITORY, (Object) "https://github.com/example/testcol"));
+  }
+
+  @Test
+  public void fromManifestKeepsCompleteManifest() {
+    CollectionInfo info = new CollectionInfo("testns", "testcol", "1.0.0");
+    info.setTags(Arrays.asList("cloud"));
+    Map<String, Object> document = new LinkedHashMap<>();
+    document.put("collection_info", Collections.singletonMap("namespace", "testns"));
+    document.put("file_manifest_file", Collections.singletonMap("name", "FILES.json"));
+
+    Map<String, Object> attributes = CollectionAttributes.fromManifest(new CollectionManifest(info, document));
+
+    assertThat(attributes, hasEntry(CollectionAttributes.MANIFEST, (Object) document));
+    assertThat(attributes, hasKey(CollectionAttributes.TAGS));
+  }
+
+  @Test
+  public void joinSeparatesListValuesWithSpaces() {
+    assertThat(CollectionAttributes.join(Arrays.asList("cloud", "aws")), is("cloud aws"));
+    assertThat(CollectionAttributes.join("single"), is("single"));
+    assertThat(CollectionAttributes.join(null), is(nullValue()));
+  }
+}
@@ -0,0 +1,80 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class CollectionBloomFilterTest
+    extends TestSupport
+{
+  private static final String TARBALL = "/collections/artifacts/community-general-1.0.0.tar.gz";
+
+  @Test
+  public void addedCollectionAndTarballAreFound() {
+    CollectionBloomFilter underTest = CollectionBloomFilter.forVersions(10);
+    underTest.add("community", "general", TARBALL);
+
+    assertThat(underTest.mightContainCollection("community", "general"), is(true));
+    assertThat(underTest.mightContainTarball(TARBALL), is(true));
+  }
+
+  @Test
+  public void emptyFilterRulesOutEverything() {
+    CollectionBloomFilter underTest = CollectionBloomFilter.forVersions(0);
+
+    assertThat(underTest.mightContainCollection("community", "general"), is(false));
+    assertThat(underTest.mightContainTarball(TARBALL), is(false));
+  }
+
+  @Test
+  public void otherVersionsOfStoredCollectionAreRuledOut() {
+    CollectionBloomFilter underTest = CollectionBloomFilter.forVersions(10);
+    underTest.add("community", "general", TARBALL);
+
+    assertThat(underTest.mightContainTarball("/collections/artifacts/community-general-2.0.0.tar.gz"), is(false));
+  }
+
+  @Test
+  public void falsePositiveRateStaysNearTarget() {
+    CollectionBloomFilter underTest = CollectionBloomFilter.forVersions(5000);
+    addVersions(underTest, 0, 5000);
+
+    int falsePositives = 0;
+    for (int i = 0; i < 10000; i++) {
+      if (underTest.mightContainCollection("other" + i, "col")) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives, is(lessThan(200)));
+  }
+
+  @Test
+  public void filterIsStaleOnceOutgrown() {
+    CollectionBloomFilter underTest = CollectionBloomFilter.forVersions(0);
+    addVersions(underTest, 0, 2000);
+    assertThat(underTest.isStale(), is(false));
+
+    addVersions(underTest, 2000, 8000);
+    assertThat(underTest.isStale(), is(true));
+  }
+
+  @Test
+  public void filterIsStaleAfterManyDeletes() {
+    CollectionBloomFilter underTest = CollectionBloomFilter.forVersions(0);
+    underTest.removed(2500);
+    assertThat(underTest.isStale(), is(false));
+
+    underTest.removed(1);
+    assertThat(underTest.isStale(), is(true));
+  }
+
+  private static void addVersions(final CollectionBloomFilter filter, final int from, final int to) {
+    for (int i = from; i < to; i++) {
+      filter.add("ns" + i, "col", "/collections/artifacts/ns" + i + "-col-1.0.0.tar.gz");
+    }
+  }
+}
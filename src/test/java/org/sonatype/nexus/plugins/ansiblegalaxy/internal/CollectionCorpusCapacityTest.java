@@ -0,0 +1,114 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.datastore.AnsibleGalaxyContentFacet;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.SyntheticCollectionCorpus.CollectionVersion;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionInfo;
+import org.sonatype.nexus.repository.view.Payload;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Uploads a {@link SyntheticCollectionCorpus} through {@code putCollection} and logs upload throughput and listing
+ * latency each time the repository doubles in size.
+ *
+ * The content facet reads MANIFEST.json from the streamed tarball the way the real facet does and keeps collection
+ * summaries and ordered versions in a {@link CollectionListingIndex}, so the numbers cover tarball parsing and the
+ * response building the hosted handler does, but not the database. The defaults keep the
+ * run short; grow the corpus with {@code -Dgalaxy.capacity.namespaces}, {@code -Dgalaxy.capacity.collections}
+ * (per namespace) and {@code -Dgalaxy.capacity.versions} (the deepest version history).
+ */
+public class CollectionCorpusCapacityTest
+    extends TestSupport
+{
+  private static final int NAMESPACES = Integer.getInteger("galaxy.capacity.namespaces", 10);
+
+  private static final int COLLECTIONS = Integer.getInteger("galaxy.capacity.collections", 5);
+
+  private static final int VERSIONS = Integer.getInteger("galaxy.capacity.versions", 40);
+
+  private static final String BASE_URL = "http://localhost:8081/repository/galaxy-hosted";
+
+  private final CollectionListingIndex index = new CollectionListingIndex();
+
+  private final SyntheticCollectionCorpus corpus = new SyntheticCollectionCorpus(1L, NAMESPACES, COLLECTIONS, VERSIONS);
+
+  private final GalaxyResponseBuilder builder = new GalaxyResponseBuilder(new GalaxyMetrics(new MetricRegistry()));
+
+  private AnsibleGalaxyContentFacet facet;
+
+  private long bytesUploaded;
+
+  private CollectionInfo uploaded;
+
+  @Before
+  public void setUp() throws Exception {
+    facet = mock(AnsibleGalaxyContentFacet.class, withSettings().stubOnly());
+    when(facet.putCollection(any(Payload.class))).thenAnswer(invocation -> {
+      Payload payload = invocation.getArgument(0);
+      // the real facet first ingests the whole upload into a blob, then reads the manifest back from it
+      try (InputStream in = payload.openInputStream()) {
+        bytesUploaded += in.transferTo(OutputStream.nullOutputStream());
+      }
+      uploaded = CollectionManifestReader.readCollectionInfo(payload.openInputStream());
+      return null;
+    });
+  }
+
+  @Test
+  public void uploadThroughputAndListingLatencyAsRepositoryGrows() throws Exception {
+    int nextReport = 64;
+    long uploadNanos = 0;
+    CollectionVersion last = null;
+
+    for (CollectionVersion version : corpus) {
+      long start = System.nanoTime();
+      facet.putCollection(corpus.payload(version));
+      uploadNanos += System.nanoTime() - start;
+      index.add(uploaded.getNamespace(), uploaded.getName(), uploaded.getVersion());
+      last = version;
+
+      if (index.countVersions() == nextReport) {
+        report(uploadNanos, last);
+        nextReport *= 2;
+      }
+    }
+    JsonNode list = report(uploadNanos, last);
+
+    assertThat(list.path("meta").path("count").asInt(), is(corpus.collectionCount()));
+  }
+
+  private JsonNode report(final long uploadNanos, final CollectionVersion last) throws Exception {
+    long start = System.nanoTime();
+    String collections = builder.buildCollectionList(BASE_URL, index.browseCollections(0, 100),
+        index.countCollections(), 0, 100);
+    long listNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    builder.buildVersionList(BASE_URL, last.namespace, last.name, index.versionsHighestFirst(last.namespace, last.name),
+        0, 100);
+    long versionsNanos = System.nanoTime() - start;
+
+    log.info("{} versions: {} uploads/s, {} MB/s ingested, collection list {} ms, version list {} ms",
+        index.countVersions(),
+        String.format("%.0f", index.countVersions() / (uploadNanos / 1e9)),
+        String.format("%.1f", bytesUploaded / 1e6 / (uploadNanos / 1e9)),
+        String.format("%.2f", listNanos / 1e6),
+        String.format("%.2f", versionsNanos / 1e6));
+    return new ObjectMapper().readTree(collections);
+  }
+}
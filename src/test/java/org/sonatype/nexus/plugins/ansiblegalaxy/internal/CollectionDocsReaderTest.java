@@ -0,0 +1,114 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CollectionDocsReaderTest
+    extends TestSupport
+{
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String MODULE_SOURCE = "#!/usr/bin/python\n"
+      + "DOCUMENTATION = r'''\n"
+      + "module: ping\n"
+      + "short_description: Try to connect\n"
+      + "'''\n"
+      + "\n"
+      + "EXAMPLES = '''\n"
+      + "- ping:\n"
+      + "'''\n"
+      + "\n"
+      + "RETURN = \"\"\"\n"
+      + "ping:\n"
+      + "  type: str\n"
+      + "\"\"\"\n"
+      + "\n"
+      + "def main():\n"
+      + "    pass\n";
+
+  @Test
+  public void collectsReadmeDocsFilesAndPluginDocStrings() throws Exception {
+    byte[] tarball = tarball(
+        "README.md", "# Test collection",
+        "docs/guide.md", "Guide",
+        "plugins/modules/ping.py", MODULE_SOURCE,
+        "plugins/modules/__init__.py", "",
+        "plugins/module_utils/helper.py", "def helper():\n    pass\n");
+
+    JsonNode docsBlob = MAPPER.readTree(CollectionDocsReader.readDocsBlob(new ByteArrayInputStream(tarball)))
+        .get("docs_blob");
+
+    assertThat(docsBlob.get("collection_readme").get("markdown").asText(), is("# Test collection"));
+    assertThat(docsBlob.get("documentation_files").get(0).get("name").asText(), is("guide.md"));
+
+    JsonNode contents = docsBlob.get("contents");
+    assertThat(contents.size(), is(1));
+    assertThat(contents.get(0).get("content_name").asText(), is("ping"));
+    assertThat(contents.get(0).get("content_type").asText(), is("module"));
+    JsonNode docStrings = contents.get(0).get("doc_strings");
+    assertThat(docStrings.get("doc").asText(), is("\nmodule: ping\nshort_description: Try to connect\n"));
+    assertThat(docStrings.get("examples").asText(), is("\n- ping:\n"));
+    assertThat(docStrings.get("return").asText(), is("\nping:\n  type: str\n"));
+  }
+
+  @Test
+  public void acceptsEntriesUnderVersionDirectory() throws Exception {
+    byte[] tarball = tarball(
+        "testns-testcol-1.0.0/README.md", "readme",
+        "testns-testcol-1.0.0/plugins/lookup/items.py", "DOCUMENTATION = '''\nname: items\n'''\n");
+
+    JsonNode docsBlob = MAPPER.readTree(CollectionDocsReader.readDocsBlob(new ByteArrayInputStream(tarball)))
+        .get("docs_blob");
+
+    assertThat(docsBlob.get("collection_readme").get("markdown").asText(), is("readme"));
+    assertThat(docsBlob.get("contents").get(0).get("content_type").asText(), is("lookup"));
+  }
+
+  @Test
+  public void readmeIsNullWhenMissing() throws Exception {
+    byte[] tarball = tarball("MANIFEST.json", "{}");
+
+    JsonNode docsBlob = MAPPER.readTree(CollectionDocsReader.readDocsBlob(new ByteArrayInputStream(tarball)))
+        .get("docs_blob");
+
+    assertThat(docsBlob.get("collection_readme").isNull(), is(true));
+    assertThat(docsBlob.get("contents").size(), is(0));
+  }
+
+  @Test
+  public void indentedDocStringsAreIgnored() {
+    Map<String, Object> docStrings = CollectionDocsReader.readDocStrings("    DOCUMENTATION = '''indented'''\n");
+    assertThat(docStrings.isEmpty(), is(true));
+  }
+
+  private static byte[] tarball(final String... namesAndContents) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GzipCompressorOutputStream gzos = new GzipCompressorOutputStream(out);
+         TarArchiveOutputStream taos = new TarArchiveOutputStream(gzos)) {
+      for (int i = 0; i < namesAndContents.length; i += 2) {
+        byte[] bytes = namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+        TarArchiveEntry entry = new TarArchiveEntry(namesAndContents[i]);
+        entry.setSize(bytes.length);
+        taos.putArchiveEntry(entry);
+        taos.write(bytes);
+        taos.closeArchiveEntry();
+      }
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,86 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CollectionFilesIndexTest
+    extends TestSupport
+{
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String FILES_JSON = "{\"files\": ["
+      + "{\"name\": \".\", \"ftype\": \"dir\", \"chksum_type\": null, \"chksum_sha256\": null, \"format\": 1},"
+      + "{\"name\": \"README.md\", \"ftype\": \"file\", \"chksum_type\": \"sha256\","
+      + " \"chksum_sha256\": \"abc123\", \"format\": 1},"
+      + "{\"name\": \"bad\\nname\", \"ftype\": \"file\", \"chksum_type\": \"sha256\","
+      + " \"chksum_sha256\": \"def456\", \"format\": 1}"
+      + "], \"format\": 1}";
+
+  @Test
+  public void indexHoldsOneLinePerEntry() throws Exception {
+    byte[] index = CollectionFilesIndex.fromFilesJson(stream(FILES_JSON));
+
+    assertThat(new String(index, StandardCharsets.UTF_8), is("d\t\t.\nf\tabc123\tREADME.md\n"));
+  }
+
+  @Test
+  public void filesJsonIsRebuiltFromIndex() throws Exception {
+    byte[] index = CollectionFilesIndex.fromFilesJson(stream(FILES_JSON));
+
+    JsonNode root;
+    try (InputStream in = CollectionFilesIndex.toFilesJson(new ByteArrayInputStream(index))) {
+      root = MAPPER.readTree(in);
+    }
+
+    assertThat(root.get("format").asInt(), is(1));
+    assertThat(root.get("files").size(), is(2));
+    JsonNode dir = root.get("files").get(0);
+    assertThat(dir.get("ftype").asText(), is("dir"));
+    assertThat(dir.get("chksum_sha256").isNull(), is(true));
+    JsonNode file = root.get("files").get(1);
+    assertThat(file.get("name").asText(), is("README.md"));
+    assertThat(file.get("chksum_type").asText(), is("sha256"));
+    assertThat(file.get("chksum_sha256").asText(), is("abc123"));
+  }
+
+  @Test
+  public void outputIsTheSameWhenReadByteByByte() throws Exception {
+    byte[] index = CollectionFilesIndex.fromFilesJson(stream(FILES_JSON));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream in = CollectionFilesIndex.toFilesJson(new ByteArrayInputStream(index))) {
+      int b;
+      while ((b = in.read()) != -1) {
+        bytes.write(b);
+      }
+    }
+    byte[] bulk;
+    try (InputStream in = CollectionFilesIndex.toFilesJson(new ByteArrayInputStream(index))) {
+      bulk = in.readAllBytes();
+    }
+
+    assertThat(bytes.toString("UTF-8"), is(new String(bulk, StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void emptyIndexGivesEmptyListing() throws Exception {
+    try (InputStream in = CollectionFilesIndex.toFilesJson(new ByteArrayInputStream(new byte[0]))) {
+      assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8), is("{\"files\":[],\"format\":1}"));
+    }
+  }
+
+  private static InputStream stream(final String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
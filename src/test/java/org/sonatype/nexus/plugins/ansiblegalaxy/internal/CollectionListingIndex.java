@@ -0,0 +1,86 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
+
+/**
+ * Answers the listing queries of the hosted content facet from memory, in the order the store answers them:
+ * collection summaries by namespace and name with the highest semantic version, and versions highest first.
+ *
+ * Capacity tests and benchmarks feed its results to the same {@link GalaxyResponseBuilder} overloads the hosted
+ * handler uses, so they measure response building without a database.
+ */
+public class CollectionListingIndex
+{
+  /**
+   * Orders versions like the store's {@code ORDER BY semver_key DESC, version}.
+   */
+  private static final Comparator<String> STORE_ORDER =
+      GalaxySemver.HIGHEST_FIRST.thenComparing(Comparator.naturalOrder());
+
+  private final Map<String, Map<String, NavigableSet<String>>> collections = new TreeMap<>();
+
+  private int collectionCount;
+
+  private int versionCount;
+
+  public void add(final String namespace, final String name, final String version) {
+    NavigableSet<String> versions = collections
+        .computeIfAbsent(namespace, n -> new TreeMap<>())
+        .computeIfAbsent(name, n -> {
+          collectionCount++;
+          return new TreeSet<>(STORE_ORDER);
+        });
+    if (versions.add(version)) {
+      versionCount++;
+    }
+  }
+
+  public int countCollections() {
+    return collectionCount;
+  }
+
+  public int countVersions() {
+    return versionCount;
+  }
+
+  public List<CollectionSummary> browseCollections(final int offset, final int limit) {
+    List<CollectionSummary> page = new ArrayList<>(limit);
+    int index = 0;
+    for (Map.Entry<String, Map<String, NavigableSet<String>>> namespace : collections.entrySet()) {
+      for (Map.Entry<String, NavigableSet<String>> collection : namespace.getValue().entrySet()) {
+        if (index++ < offset) {
+          continue;
+        }
+        if (page.size() == limit) {
+          return page;
+        }
+        NavigableSet<String> versions = collection.getValue();
+        page.add(new CollectionSummary(namespace.getKey(), collection.getKey(), highest(versions), versions.size()));
+      }
+    }
+    return page;
+  }
+
+  public List<String> versionsHighestFirst(final String namespace, final String name) {
+    NavigableSet<String> versions = collections.getOrDefault(namespace, Collections.emptyMap()).get(name);
+    return versions == null ? Collections.emptyList() : new ArrayList<>(versions);
+  }
+
+  private static String highest(final NavigableSet<String> versions) {
+    for (String version : versions) {
+      if (GalaxySemver.isValid(version)) {
+        return version;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,69 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionManifest;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CollectionManifestReaderTest
+    extends TestSupport
+{
+  private static final String MANIFEST = "{\"collection_info\": "
+      + "{\"namespace\": \"testns\", \"name\": \"testcol\", \"version\": \"1.0.0\"}, \"format\": 1}";
+
+  private static final String FILES = "{\"files\": [{\"name\": \"README.md\", \"ftype\": \"file\","
+      + " \"chksum_type\": \"sha256\", \"chksum_sha256\": \"abc123\", \"format\": 1}], \"format\": 1}";
+
+  @Test
+  public void readsManifestAndFilesIndex() throws Exception {
+    CollectionManifest manifest = CollectionManifestReader.readManifest(
+        new ByteArrayInputStream(tarball("MANIFEST.json", MANIFEST, "FILES.json", FILES)));
+
+    assertThat(manifest.getCollectionInfo().getName(), is("testcol"));
+    assertThat(manifest.getManifest().get("format"), is(1));
+    assertThat(new String(manifest.getFilesIndex(), StandardCharsets.UTF_8), is("f\tabc123\tREADME.md\n"));
+  }
+
+  @Test
+  public void filesIndexIsNullWithoutFilesJson() throws Exception {
+    CollectionManifest manifest = CollectionManifestReader.readManifest(
+        new ByteArrayInputStream(tarball("testns-testcol-1.0.0/MANIFEST.json", MANIFEST)));
+
+    assertThat(manifest.getCollectionInfo().getNamespace(), is("testns"));
+    assertThat(manifest.getFilesIndex(), is(nullValue()));
+  }
+
+  @Test
+  public void manifestIsNullWithoutCollectionInfo() throws Exception {
+    assertThat(CollectionManifestReader.readManifest(
+        new ByteArrayInputStream(tarball("FILES.json", FILES))), is(nullValue()));
+  }
+
+  private static byte[] tarball(final String... namesAndContents) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GzipCompressorOutputStream gzos = new GzipCompressorOutputStream(out);
+         TarArchiveOutputStream taos = new TarArchiveOutputStream(gzos)) {
+      for (int i = 0; i < namesAndContents.length; i += 2) {
+        byte[] bytes = namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+        TarArchiveEntry entry = new TarArchiveEntry(namesAndContents[i]);
+        entry.setSize(bytes.length);
+        taos.putArchiveEntry(entry);
+        taos.write(bytes);
+        taos.closeArchiveEntry();
+      }
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,391 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for galaxy.ansible.com serving the Galaxy v3 endpoints the proxy uses, over a generated
+ * catalog of {@code namespaces x collectionsPerNamespace} collections with {@code versionsPerCollection} versions
+ * each.
+ *
+ * Collections come in runs of three where each depends on the next, so installs pull in dependencies the way real
+ * ones do. Latency and error rate can be changed while the server runs; errors answer 503. Calls are counted per route
+ * ({@link #COLLECTION_LIST}, {@link #COLLECTION_DETAIL}, {@link #VERSION_LIST}, {@link #VERSION_DETAIL},
+ * {@link #ARTIFACT}). Artifacts are deterministic bytes, not real tarballs.
+ */
+public class FakeGalaxyServer
+    implements AutoCloseable
+{
+  public static final String COLLECTION_LIST = "collection-list";
+
+  public static final String COLLECTION_DETAIL = "collection-detail";
+
+  public static final String VERSION_LIST = "version-list";
+
+  public static final String VERSION_DETAIL = "version-detail";
+
+  public static final String ARTIFACT = "artifact";
+
+  public static final String ERROR = "error";
+
+  private static final String PREFIX = GalaxyUpstreamClient.UPSTREAM_PREFIX;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final byte[] NOT_FOUND = "{\"detail\":\"Not found.\"}".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] UNAVAILABLE = "{\"detail\":\"Service unavailable.\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final int namespaces;
+
+  private final int collectionsPerNamespace;
+
+  private final int versionsPerCollection;
+
+  private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+
+  private final Random random = new Random(7);
+
+  private volatile long latencyMillis;
+
+  private volatile double errorRate;
+
+  private volatile int artifactSize = 16 * 1024;
+
+  private HttpServer server;
+
+  private ExecutorService executor;
+
+  public FakeGalaxyServer(final int namespaces, final int collectionsPerNamespace, final int versionsPerCollection) {
+    this.namespaces = namespaces;
+    this.collectionsPerNamespace = collectionsPerNamespace;
+    this.versionsPerCollection = versionsPerCollection;
+  }
+
+  public FakeGalaxyServer start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    executor = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "fake-galaxy");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+    return this;
+  }
+
+  @Override
+  public void close() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+      server = null;
+    }
+  }
+
+  public String getUrl() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+  }
+
+  public void setLatencyMillis(final long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  public void setErrorRate(final double errorRate) {
+    this.errorRate = errorRate;
+  }
+
+  public void setArtifactSize(final int artifactSize) {
+    this.artifactSize = artifactSize;
+  }
+
+  public long calls(final String route) {
+    AtomicLong count = calls.get(route);
+    return count != null ? count.get() : 0L;
+  }
+
+  public void resetCalls() {
+    calls.clear();
+  }
+
+  public int collectionCount() {
+    return namespaces * collectionsPerNamespace;
+  }
+
+  /**
+   * Returns the namespace and name of the collection at the given catalog index.
+   */
+  public String[] collection(final int index) {
+    return new String[]{"ns" + (index / collectionsPerNamespace), "collection" + (index % collectionsPerNamespace)};
+  }
+
+  /**
+   * Returns the versions of every collection, highest first.
+   */
+  public List<String> versions() {
+    List<String> versions = new ArrayList<>(versionsPerCollection);
+    for (int i = versionsPerCollection - 1; i >= 0; i--) {
+      versions.add((1 + i / 100) + "." + (i / 10 % 10) + "." + (i % 10));
+    }
+    return versions;
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    try {
+      String path = exchange.getRequestURI().getPath();
+      String route = route(path);
+      if (route == null) {
+        send(exchange, 404, "application/json", NOT_FOUND);
+        return;
+      }
+      count(route);
+
+      if (latencyMillis > 0) {
+        Thread.sleep(latencyMillis);
+      }
+      if (errorRate > 0 && nextDouble() < errorRate) {
+        count(ERROR);
+        send(exchange, 503, "application/json", UNAVAILABLE);
+        return;
+      }
+
+      if (ARTIFACT.equals(route)) {
+        send(exchange, 200, "application/gzip", artifact(path.substring(path.lastIndexOf('/') + 1)));
+        return;
+      }
+
+      Object body = json(route, path, exchange.getRequestURI().getQuery());
+      if (body == null) {
+        send(exchange, 404, "application/json", NOT_FOUND);
+        return;
+      }
+      send(exchange, 200, "application/json", MAPPER.writeValueAsBytes(body));
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      exchange.close();
+    }
+  }
+
+  private static String route(final String path) {
+    if (path.startsWith(PREFIX + "/collections/artifacts/")) {
+      return ARTIFACT;
+    }
+    if (!path.startsWith(PREFIX + "/collections/index/")) {
+      return null;
+    }
+    String[] segments = segments(path);
+    switch (segments.length) {
+      case 0:
+        return COLLECTION_LIST;
+      case 2:
+        return COLLECTION_DETAIL;
+      case 3:
+        return "versions".equals(segments[2]) ? VERSION_LIST : null;
+      case 4:
+        return "versions".equals(segments[2]) ? VERSION_DETAIL : null;
+      default:
+        return null;
+    }
+  }
+
+  private static String[] segments(final String path) {
+    String rest = path.substring((PREFIX + "/collections/index/").length());
+    return rest.isEmpty() ? new String[0] : rest.split("/");
+  }
+
+  private Object json(final String route, final String path, final String query) {
+    String[] segments = segments(path);
+    if (COLLECTION_LIST.equals(route)) {
+      return collectionList(query);
+    }
+    int index = indexOf(segments[0], segments[1]);
+    if (index < 0) {
+      return null;
+    }
+    switch (route) {
+      case COLLECTION_DETAIL:
+        return collectionDetail(index);
+      case VERSION_LIST:
+        return versionList(index, query);
+      default:
+        return versions().contains(segments[3]) ? versionDetail(index, segments[3]) : null;
+    }
+  }
+
+  private int indexOf(final String namespace, final String name) {
+    try {
+      int ns = Integer.parseInt(namespace.substring(2));
+      int collection = Integer.parseInt(name.substring("collection".length()));
+      if (!namespace.startsWith("ns") || !name.startsWith("collection") || ns >= namespaces
+          || collection >= collectionsPerNamespace) {
+        return -1;
+      }
+      return ns * collectionsPerNamespace + collection;
+    }
+    catch (RuntimeException e) {
+      return -1;
+    }
+  }
+
+  private Map<String, Object> collectionList(final String query) {
+    int total = collectionCount();
+    int offset = parameter(query, "offset", 0);
+    int limit = Math.max(1, parameter(query, "limit", 100));
+    List<Object> data = new ArrayList<>();
+    for (int i = offset; i < Math.min(total, offset + limit); i++) {
+      data.add(collectionDetail(i));
+    }
+    return page(getUrl() + PREFIX + "/collections/index/", total, offset, limit, data);
+  }
+
+  private Map<String, Object> collectionDetail(final int index) {
+    String[] collection = collection(index);
+    String href = collectionHref(collection);
+    String highest = versions().get(0);
+    Map<String, Object> highestVersion = new LinkedHashMap<>();
+    highestVersion.put("href", href + "versions/" + highest + "/");
+    highestVersion.put("version", highest);
+
+    Map<String, Object> detail = new LinkedHashMap<>();
+    detail.put("href", href);
+    detail.put("namespace", collection[0]);
+    detail.put("name", collection[1]);
+    detail.put("deprecated", false);
+    detail.put("versions_url", href + "versions/");
+    detail.put("highest_version", highestVersion);
+    detail.put("created_at", "2024-01-15T10:00:00Z");
+    detail.put("updated_at", "2024-06-01T10:00:00Z");
+    return detail;
+  }
+
+  private Map<String, Object> versionList(final int index, final String query) {
+    String href = collectionHref(collection(index)) + "versions/";
+    List<String> versions = versions();
+    int offset = parameter(query, "offset", 0);
+    int limit = Math.max(1, parameter(query, "limit", 100));
+    List<Object> data = new ArrayList<>();
+    for (int i = offset; i < Math.min(versions.size(), offset + limit); i++) {
+      Map<String, Object> version = new LinkedHashMap<>();
+      version.put("version", versions.get(i));
+      version.put("href", href + versions.get(i) + "/");
+      version.put("created_at", "2024-01-15T10:00:00Z");
+      version.put("requires_ansible", ">=2.14.0");
+      data.add(version);
+    }
+    return page(href, versions.size(), offset, limit, data);
+  }
+
+  private Map<String, Object> versionDetail(final int index, final String version) {
+    String[] collection = collection(index);
+    String href = collectionHref(collection);
+    String filename = collection[0] + "-" + collection[1] + "-" + version + ".tar.gz";
+
+    Map<String, Object> dependencies = new LinkedHashMap<>();
+    if (index % 3 != 2 && index + 1 < collectionCount()) {
+      String[] dependency = collection(index + 1);
+      dependencies.put(dependency[0] + "." + dependency[1], ">=1.0.0");
+    }
+    Map<String, Object> metadata = new LinkedHashMap<>();
+    metadata.put("dependencies", dependencies);
+    metadata.put("description", "Synthetic collection " + collection[0] + "." + collection[1]);
+
+    Map<String, Object> artifact = new LinkedHashMap<>();
+    artifact.put("filename", filename);
+    artifact.put("size", artifactSize);
+
+    Map<String, Object> detail = new LinkedHashMap<>();
+    detail.put("href", href + "versions/" + version + "/");
+    detail.put("namespace", collection[0]);
+    detail.put("name", collection[1]);
+    detail.put("version", version);
+    detail.put("download_url", getUrl() + PREFIX + "/collections/artifacts/" + filename);
+    detail.put("artifact", artifact);
+    detail.put("metadata", metadata);
+    return detail;
+  }
+
+  private Map<String, Object> page(final String href,
+                                   final int total,
+                                   final int offset,
+                                   final int limit,
+                                   final List<Object> data)
+  {
+    Map<String, Object> links = new LinkedHashMap<>();
+    links.put("first", href + "?limit=" + limit + "&offset=0");
+    links.put("previous", offset > 0 ? href + "?limit=" + limit + "&offset=" + Math.max(0, offset - limit) : null);
+    links.put("next", offset + limit < total ? href + "?limit=" + limit + "&offset=" + (offset + limit) : null);
+    links.put("last", href + "?limit=" + limit + "&offset=" + Math.max(0, (total - 1) / limit * limit));
+
+    Map<String, Object> page = new LinkedHashMap<>();
+    page.put("meta", Map.of("count", total));
+    page.put("links", links);
+    page.put("data", data);
+    return page;
+  }
+
+  private String collectionHref(final String[] collection) {
+    return getUrl() + PREFIX + "/collections/index/" + collection[0] + "/" + collection[1] + "/";
+  }
+
+  private byte[] artifact(final String filename) {
+    byte[] bytes = new byte[artifactSize];
+    new Random(filename.hashCode()).nextBytes(bytes);
+    return bytes;
+  }
+
+  private static int parameter(final String query, final String name, final int defaultValue) {
+    if (query != null) {
+      for (String pair : query.split("&")) {
+        if (pair.startsWith(name + "=")) {
+          try {
+            return Math.max(0, Integer.parseInt(pair.substring(name.length() + 1)));
+          }
+          catch (NumberFormatException e) {
+            return defaultValue;
+          }
+        }
+      }
+    }
+    return defaultValue;
+  }
+
+  private double nextDouble() {
+    synchronized (random) {
+      return random.nextDouble();
+    }
+  }
+
+  private void count(final String route) {
+    calls.computeIfAbsent(route, key -> new AtomicLong()).incrementAndGet();
+  }
+
+  private static void send(final HttpExchange exchange, final int status, final String contentType, final byte[] body)
+      throws IOException
+  {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
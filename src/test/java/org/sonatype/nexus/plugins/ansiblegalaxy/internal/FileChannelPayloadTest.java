@@ -0,0 +1,84 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class FileChannelPayloadTest
+    extends TestSupport
+{
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private byte[] bytes;
+
+  private FileChannelPayload underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    bytes = new byte[300_000];
+    new Random(7).nextBytes(bytes);
+    Path file = temp.newFile("community-general-9.4.0.tar.gz").toPath();
+    Files.write(file, bytes);
+    underTest = new FileChannelPayload(file, bytes.length, "application/gzip");
+  }
+
+  @Test
+  public void readsTheWholeFile() throws Exception {
+    try (InputStream in = underTest.openInputStream()) {
+      assertThat(in.readAllBytes(), is(bytes));
+    }
+    assertThat(underTest.getSize(), is((long) bytes.length));
+    assertThat(underTest.getContentType(), is("application/gzip"));
+  }
+
+  @Test
+  public void copiesToAPlainStream() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = underTest.openInputStream()) {
+      underTest.copy(in, out);
+    }
+    assertThat(out.toByteArray(), is(bytes));
+  }
+
+  @Test
+  public void copiesToAFile() throws Exception {
+    Path target = temp.newFile().toPath();
+    try (InputStream in = underTest.openInputStream(); OutputStream out = new FileOutputStream(target.toFile())) {
+      underTest.copy(in, out);
+    }
+    assertThat(Files.readAllBytes(target), is(bytes));
+  }
+
+  @Test
+  public void skipsToRangesWithoutReading() throws Exception {
+    try (InputStream in = underTest.openInputStream()) {
+      assertThat(in.skip(100_000), is(100_000L));
+      byte[] range = new byte[50];
+      assertThat(in.readNBytes(range, 0, 50), is(50));
+      assertThat(range, is(Arrays.copyOfRange(bytes, 100_000, 100_050)));
+
+      ByteArrayOutputStream rest = new ByteArrayOutputStream();
+      assertThat(in.transferTo(rest), is((long) bytes.length - 100_050));
+      assertThat(rest.toByteArray(), is(Arrays.copyOfRange(bytes, 100_050, bytes.length)));
+
+      assertThat(in.skip(10), is(0L));
+      assertThat(in.read(), is(-1));
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
+import org.sonatype.nexus.repository.content.AssetBlob;
+import org.sonatype.nexus.repository.content.fluent.FluentAsset;
+
+import com.codahale.metrics.MetricRegistry;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import com.sun.management.ThreadMXBean;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Fails the build when a hot request path starts allocating noticeably more per request.
+ *
+ * Each path runs until the JIT has settled, then the bytes allocated by this thread are read from
+ * {@link ThreadMXBean#getThreadAllocatedBytes(long)} over a batch of requests. The lowest per-request figure of a few
+ * batches is compared with the path's budget plus {@code galaxy.allocation.margin} (default 15%). Budgets are sized
+ * for a 64-bit HotSpot JVM with compressed oops; the test is skipped elsewhere, where object sizes differ.
+ *
+ * When a change legitimately moves a path, update its budget to the measured value logged by the test. Components
+ * and assets are {@link Proxy} stubs, so mock bookkeeping does not count against the budgets.
+ */
+public class GalaxyAllocationBudgetTest
+    extends TestSupport
+{
+  private static final long VERSION_DETAIL_BUDGET = 5_000;
+
+  private static final long VERSION_LIST_BUDGET = 46_000;
+
+  private static final long COLLECTION_LIST_BUDGET = 145_000;
+
+  private static final long PROXY_REWRITE_BUDGET = 32_000;
+
+  private static final double MARGIN = Double.parseDouble(System.getProperty("galaxy.allocation.margin", "0.15"));
+
+  private static final int WARMUP_REQUESTS = 5_000;
+
+  private static final int BATCH_REQUESTS = 1_000;
+
+  private static final int BATCHES = 5;
+
+  private static final String BASE_URL = "http://localhost:8081/repository/galaxy-hosted";
+
+  private static final String UPSTREAM_URL = "https://galaxy.ansible.com";
+
+  private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private GalaxyResponseBuilder builder;
+
+  @Before
+  public void setUp() throws Exception {
+    assumeTrue("thread allocation accounting unavailable",
+        threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+    assumeTrue("budgets assume compressed oops", Boolean.parseBoolean(
+        ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).getVMOption("UseCompressedOops")
+            .getValue()));
+
+    builder = new GalaxyResponseBuilder(new GalaxyMetrics(new MetricRegistry()));
+  }
+
+  @Test
+  public void hostedVersionDetail() throws Exception {
+    FluentAsset asset = asset();
+
+    assertWithinBudget("version detail", VERSION_DETAIL_BUDGET,
+        () -> builder.buildVersionDetail(BASE_URL, "community", "general", "9.4.0", asset));
+  }
+
+  @Test
+  public void hostedVersionList() throws Exception {
+    List<String> versions = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      versions.add((i / 100) + "." + (i / 10 % 10) + "." + (i % 10));
+    }
+
+    assertWithinBudget("version list", VERSION_LIST_BUDGET,
+        () -> builder.buildVersionList(BASE_URL, "community", "general", versions, 0, 100));
+  }
+
+  @Test
+  public void hostedCollectionList() throws Exception {
+    List<CollectionSummary> page = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      page.add(new CollectionSummary("namespace" + (i % 10), "collection" + i, "1." + i + ".0", 1 + i % 7));
+    }
+
+    assertWithinBudget("collection list", COLLECTION_LIST_BUDGET,
+        () -> builder.buildCollectionList(BASE_URL, page, 5000, 0, 100));
+  }
+
+  @Test
+  public void proxyRewrite() throws Exception {
+    GalaxyUpstreamClient client = new GalaxyUpstreamClient(new GalaxyMetrics(new MetricRegistry()));
+    String payload = upstreamVersionList(100);
+
+    assertWithinBudget("proxy rewrite", PROXY_REWRITE_BUDGET,
+        () -> client.rewriteUrls(payload, UPSTREAM_URL, BASE_URL));
+  }
+
+  private void assertWithinBudget(final String path, final long budget, final Callable<?> request) throws Exception {
+    for (int i = 0; i < WARMUP_REQUESTS; i++) {
+      request.call();
+    }
+
+    long lowest = Long.MAX_VALUE;
+    long thread = Thread.currentThread().getId();
+    for (int batch = 0; batch < BATCHES; batch++) {
+      long before = threads.getThreadAllocatedBytes(thread);
+      for (int i = 0; i < BATCH_REQUESTS; i++) {
+        request.call();
+      }
+      lowest = Math.min(lowest, (threads.getThreadAllocatedBytes(thread) - before) / BATCH_REQUESTS);
+    }
+
+    log.info("{}: {} bytes per request, budget {}", path, lowest, budget);
+    assertThat(path + " bytes per request", lowest, lessThanOrEqualTo((long) (budget * (1 + MARGIN))));
+  }
+
+  /**
+   * A galaxy.ansible.com style version list page, every href pointing at the upstream.
+   */
+  private static String upstreamVersionList(final int count) {
+    String versionsUrl = UPSTREAM_URL + GalaxyUpstreamClient.UPSTREAM_PREFIX
+        + "/collections/index/community/general/versions/";
+    StringBuilder json = new StringBuilder();
+    json.append("{\"meta\":{\"count\":").append(count).append("},\"links\":{")
+        .append("\"first\":\"").append(versionsUrl).append("?limit=100&offset=0\",\"previous\":null,\"next\":null,")
+        .append("\"last\":\"").append(versionsUrl).append("?limit=100&offset=0\"},\"data\":[");
+    for (int i = 0; i < count; i++) {
+      String version = (i / 10) + "." + (i % 10) + ".0";
+      json.append(i > 0 ? "," : "")
+          .append("{\"version\":\"").append(version).append("\",\"href\":\"").append(versionsUrl).append(version)
+          .append("/\",\"created_at\":\"2024-01-01T00:00:00Z\",\"updated_at\":\"2024-01-01T00:00:00Z\",")
+          .append("\"requires_ansible\":\">=2.14.0\",\"marks\":[]}");
+    }
+    return json.append("]}").toString();
+  }
+
+  private static FluentAsset asset() {
+    Map<String, String> checksums = new LinkedHashMap<>();
+    checksums.put("sha256", "2b5c1f6d0d39a6f0c05e5d6b2ea4e1b5f0b3b8a6c2f4e0e7d9a1c3b5d7f9e1a3");
+    checksums.put("sha1", "0d39a6f0c05e5d6b2ea4e1b5f0b3b8a6c2f4e0e7");
+    AssetBlob blob = stub(AssetBlob.class, method -> {
+      switch (method) {
+        case "checksums":
+          return checksums;
+        case "blobSize":
+          return 512_000L;
+        default:
+          return null;
+      }
+    });
+
+    Map<String, Object> collectionInfo = new LinkedHashMap<>();
+    collectionInfo.put("namespace", "community");
+    collectionInfo.put("name", "general");
+    collectionInfo.put("version", "9.4.0");
+    collectionInfo.put("authors", Collections.singletonList("Ansible (https://github.com/ansible)"));
+    collectionInfo.put("description", "Modules and plugins supported by the Ansible community");
+    collectionInfo.put("license", Collections.singletonList("GPL-3.0-or-later"));
+    collectionInfo.put("tags", List.of("community", "general", "modules"));
+    collectionInfo.put("dependencies", Collections.emptyMap());
+    collectionInfo.put("repository", "https://github.com/ansible-collections/community.general");
+    Map<String, Object> manifest = new LinkedHashMap<>();
+    manifest.put("collection_info", collectionInfo);
+    manifest.put("format", 1);
+
+    NestedAttributesMap attributes = new NestedAttributesMap("attributes", new LinkedHashMap<>());
+    attributes.child(AnsibleGalaxyFormat.NAME).set(CollectionAttributes.MANIFEST, manifest);
+
+    return stub(FluentAsset.class, method -> {
+      switch (method) {
+        case "blob":
+          return Optional.of(blob);
+        case "attributes":
+          return attributes;
+        default:
+          return null;
+      }
+    });
+  }
+
+  private static <T> T stub(final Class<T> type, final Function<String, Object> answers) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+        (proxy, method, args) -> answers.apply(method.getName())));
+  }
+}
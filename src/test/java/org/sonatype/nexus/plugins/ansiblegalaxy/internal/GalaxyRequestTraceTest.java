@@ -0,0 +1,121 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.http.HttpResponses;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.Response;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GalaxyRequestTraceTest
+    extends TestSupport
+{
+  @After
+  public void tearDown() {
+    GalaxyRequestTrace trace = GalaxyRequestTrace.current();
+    if (trace != null) {
+      trace.end();
+    }
+  }
+
+  @Test
+  public void phasesOutsideATraceAreNotRecorded() {
+    GalaxyRequestTrace.Phase first = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB);
+    GalaxyRequestTrace.Phase second = GalaxyRequestTrace.phase(GalaxyRequestTrace.SERIALIZE);
+    first.close();
+    second.close();
+
+    assertThat(first, is(sameInstance(second)));
+    assertThat(GalaxyRequestTrace.current(), is(nullValue()));
+  }
+
+  @Test
+  public void nestedPhasesAreSubtractedFromTheOuterPhase() throws Exception {
+    GalaxyRequestTrace trace = GalaxyRequestTrace.begin();
+    try (GalaxyRequestTrace.Phase outer = GalaxyRequestTrace.phase(GalaxyRequestTrace.UPSTREAM)) {
+      try (GalaxyRequestTrace.Phase inner = GalaxyRequestTrace.phase(GalaxyRequestTrace.REWRITE)) {
+        Thread.sleep(50);
+      }
+    }
+    trace.end();
+
+    long slept = TimeUnit.MILLISECONDS.toNanos(50);
+    assertThat(trace.phaseNanos(GalaxyRequestTrace.REWRITE), is(greaterThanOrEqualTo(slept)));
+    assertThat(trace.phaseNanos(GalaxyRequestTrace.UPSTREAM), is(lessThan(slept)));
+    assertThat(trace.elapsedNanos(), is(greaterThanOrEqualTo(slept)));
+  }
+
+  @Test
+  public void repeatedPhasesAccumulateAndAreCounted() {
+    GalaxyRequestTrace trace = GalaxyRequestTrace.begin();
+    for (int i = 0; i < 3; i++) {
+      try (GalaxyRequestTrace.Phase phase = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+        assertThat(GalaxyRequestTrace.current(), is(sameInstance(trace)));
+      }
+    }
+    GalaxyRequestTrace.phase(GalaxyRequestTrace.SERIALIZE).close();
+    trace.end();
+
+    assertThat(GalaxyRequestTrace.current(), is(nullValue()));
+    assertThat(trace.breakdown(),
+        matchesPattern("total=\\d+\\.\\d db=\\d+\\.\\d\\(3\\) serialize=\\d+\\.\\d other=\\d+\\.\\d"));
+    assertThat(trace.toServerTiming(),
+        matchesPattern("db;dur=\\d+\\.\\d, serialize;dur=\\d+\\.\\d, other;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d"));
+  }
+
+  @Test
+  public void tracerAddsServerTimingHeaderWhenEnabled() throws Exception {
+    Context context = context();
+
+    Response response = new GalaxyRequestTracer(0L, true).trace(context, GalaxyMetrics.HOSTED, "version-list",
+        () -> {
+          try (GalaxyRequestTrace.Phase phase = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+            return HttpResponses.ok();
+          }
+        });
+
+    assertThat(response.getHeaders().get(GalaxyRequestTracer.SERVER_TIMING), containsString("db;dur="));
+    assertThat(GalaxyRequestTrace.current(), is(nullValue()));
+  }
+
+  @Test
+  public void routesDispatchedInsideATraceJoinIt() throws Exception {
+    Context context = context();
+    GalaxyRequestTracer tracer = new GalaxyRequestTracer(2000L, true);
+
+    Response response = tracer.trace(context, "group", "version-list",
+        () -> tracer.trace(context, GalaxyMetrics.HOSTED, "version-list", () -> {
+          try (GalaxyRequestTrace.Phase phase = GalaxyRequestTrace.phase(GalaxyRequestTrace.DB)) {
+            return HttpResponses.ok();
+          }
+        }));
+
+    // had the inner route started its own trace, the outer one would have lost the db phase
+    assertThat(response.getHeaders().get(GalaxyRequestTracer.SERVER_TIMING), containsString("db;dur="));
+  }
+
+  private static Context context() {
+    Repository repository = mock(Repository.class);
+    when(repository.getName()).thenReturn("galaxy-hosted");
+    Context context = mock(Context.class);
+    when(context.getRepository()).thenReturn(repository);
+    when(context.getRequest()).thenReturn(new Request.Builder().action("GET").path("/api/").build());
+    return context;
+  }
+}
@@ -2,15 +2,18 @@ package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionSummary;
 import org.sonatype.nexus.repository.content.AssetBlob;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
-import org.sonatype.nexus.repository.content.fluent.FluentComponent;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
@@ -27,77 +30,75 @@ public class GalaxyResponseBuilderTest
   private static final String BASE_URL = "http://nexus:8081/repository/ansible-galaxy-test";
   private static final ObjectMapper MAPPER = new ObjectMapper();
 
-  @Mock private FluentComponent component1;
-  @Mock private FluentComponent component2;
-  @Mock private FluentComponent component3;
-
   @Mock private FluentAsset asset1;
   @Mock private AssetBlob blob1;
 
+  private NestedAttributesMap attributes;
+
   private GalaxyResponseBuilder underTest;
 
   @Before
   public void setUp() {
-    underTest = new GalaxyResponseBuilder();
-
-    when(component1.namespace()).thenReturn("testns");
-    when(component1.name()).thenReturn("testcol");
-    when(component1.version()).thenReturn("1.0.0");
-
-    when(component2.namespace()).thenReturn("testns");
-    when(component2.name()).thenReturn("testcol");
-    when(component2.version()).thenReturn("2.0.0");
-
-    when(component3.namespace()).thenReturn("otherns");
-    when(component3.name()).thenReturn("othercol");
-    when(component3.version()).thenReturn("1.0.0");
+    underTest = new GalaxyResponseBuilder(new GalaxyMetrics(new MetricRegistry()));
 
     when(asset1.path()).thenReturn("/collections/artifacts/testns-testcol-1.0.0.tar.gz");
     when(asset1.blob()).thenReturn(Optional.of(blob1));
     when(blob1.checksums()).thenReturn(Collections.singletonMap("sha256", "abc123def456"));
     when(blob1.blobSize()).thenReturn(12345L);
+    attributes = new NestedAttributesMap("attributes", new HashMap<>());
+    when(asset1.attributes()).thenReturn(attributes);
   }
 
   @Test
-  public void buildCollectionListGroupsByNamespaceAndName() throws Exception {
-    String json = underTest.buildCollectionList(BASE_URL,
-        Arrays.asList(component1, component2, component3), 0, 100);
+  public void buildCollectionListWritesOneEntryPerSummary() throws Exception {
+    String json = underTest.buildCollectionList(BASE_URL, Arrays.asList(
+        new CollectionSummary("otherns", "othercol", "1.0.0", 1),
+        new CollectionSummary("testns", "testcol", "2.0.0", 2)), 2, 0, 100);
 
     JsonNode root = MAPPER.readTree(json);
     assertThat(root.get("meta").get("count").asInt(), is(2));
     assertThat(root.get("data").size(), is(2));
 
-    JsonNode first = root.get("data").get(0);
-    assertThat(first.get("namespace").asText(), is("testns"));
-    assertThat(first.get("name").asText(), is("testcol"));
-    assertThat(first.get("highest_version").get("version").asText(), is("2.0.0"));
+    JsonNode second = root.get("data").get(1);
+    assertThat(second.get("namespace").asText(), is("testns"));
+    assertThat(second.get("name").asText(), is("testcol"));
+    assertThat(second.get("highest_version").get("version").asText(), is("2.0.0"));
   }
 
   @Test
-  public void buildCollectionListSupportsPagination() throws Exception {
+  public void buildCollectionListOmitsHighestVersionWhenNoneIsSemantic() throws Exception {
     String json = underTest.buildCollectionList(BASE_URL,
-        Arrays.asList(component1, component2, component3), 0, 1);
+        Collections.singletonList(new CollectionSummary("testns", "testcol", null, 1)), 1, 0, 100);
 
     JsonNode root = MAPPER.readTree(json);
-    assertThat(root.get("meta").get("count").asInt(), is(2));
-    assertThat(root.get("data").size(), is(1));
-    assertThat(root.get("links").get("next"), is(notNullValue()));
+    assertThat(root.get("data").get(0).has("highest_version"), is(false));
   }
 
   @Test
-  public void buildCollectionListReturnsEmptyForNoComponents() throws Exception {
-    String json = underTest.buildCollectionList(BASE_URL,
-        Collections.emptyList(), 0, 100);
+  public void buildCollectionListReturnsEmptyForNoSummaries() throws Exception {
+    String json = underTest.buildCollectionList(BASE_URL, Collections.emptyList(), 0, 0, 100);
 
     JsonNode root = MAPPER.readTree(json);
     assertThat(root.get("meta").get("count").asInt(), is(0));
     assertThat(root.get("data").size(), is(0));
   }
 
+  @Test
+  public void buildCollectionListFromSummariesUsesGivenTotal() throws Exception {
+    String json = underTest.buildCollectionList(BASE_URL,
+        Collections.singletonList(new CollectionSummary("testns", "testcol", "2.0.0", 2)), 3, 1, 1);
+
+    JsonNode root = MAPPER.readTree(json);
+    assertThat(root.get("meta").get("count").asInt(), is(3));
+    assertThat(root.get("data").size(), is(1));
+    assertThat(root.get("data").get(0).get("highest_version").get("version").asText(), is("2.0.0"));
+    assertThat(root.get("links").get("previous"), is(notNullValue()));
+    assertThat(root.get("links").get("next"), is(notNullValue()));
+  }
+
   @Test
   public void buildCollectionDetailReturnsCorrectStructure() throws Exception {
-    String json = underTest.buildCollectionDetail(BASE_URL,
-        "testns", "testcol", Arrays.asList(component1, component2));
+    String json = underTest.buildCollectionDetail(BASE_URL, "testns", "testcol", "2.0.0");
 
     JsonNode root = MAPPER.readTree(json);
     assertThat(root.get("namespace").asText(), is("testns"));
@@ -107,14 +108,14 @@ public class GalaxyResponseBuilderTest
   }
 
   @Test
-  public void buildVersionListFiltersCorrectCollection() throws Exception {
+  public void buildVersionListKeepsTheGivenOrder() throws Exception {
     String json = underTest.buildVersionList(BASE_URL,
-        "testns", "testcol",
-        Arrays.asList(component1, component2, component3), 0, 100);
+        "testns", "testcol", Arrays.asList("2.0.0", "1.0.0"), 0, 100);
 
     JsonNode root = MAPPER.readTree(json);
     assertThat(root.get("meta").get("count").asInt(), is(2));
     assertThat(root.get("data").size(), is(2));
+    assertThat(root.get("data").get(0).get("version").asText(), is("2.0.0"));
   }
 
   @Test
@@ -138,18 +139,42 @@ public class GalaxyResponseBuilderTest
   }
 
   @Test
-  public void highestSemverReturnsHighestVersion() {
-    Set<String> versions = new LinkedHashSet<>();
-    versions.add("1.0.0");
-    versions.add("2.1.0");
-    versions.add("1.5.3");
-    versions.add("2.0.9");
-
-    assertThat(GalaxyResponseBuilder.highestSemver(versions), is("2.1.0"));
+  public void buildVersionDetailEmitsMetadataAndManifestFromAttributes() throws Exception {
+    Map<String, Object> collectionInfo = new LinkedHashMap<>();
+    collectionInfo.put("namespace", "testns");
+    collectionInfo.put("name", "testcol");
+    collectionInfo.put("version", "1.0.0");
+    collectionInfo.put("dependencies", Collections.singletonMap("community.general", ">=1.0.0"));
+    collectionInfo.put("tags", Arrays.asList("cloud"));
+    Map<String, Object> manifest = new LinkedHashMap<>();
+    manifest.put("collection_info", collectionInfo);
+    manifest.put("file_manifest_file", Collections.singletonMap("name", "FILES.json"));
+    attributes.child(AnsibleGalaxyFormat.NAME).set(CollectionAttributes.MANIFEST, manifest);
+
+    JsonNode root = MAPPER.readTree(underTest.buildVersionDetail(BASE_URL, "testns", "testcol", "1.0.0", asset1));
+
+    assertThat(root.get("metadata").get("dependencies").get("community.general").asText(), is(">=1.0.0"));
+    assertThat(root.get("metadata").get("tags").get(0).asText(), is("cloud"));
+    assertThat(root.get("metadata").has("namespace"), is(false));
+    assertThat(root.get("manifest").get("file_manifest_file").get("name").asText(), is("FILES.json"));
   }
 
   @Test
-  public void highestSemverReturnsNullForEmpty() {
-    assertThat(GalaxyResponseBuilder.highestSemver(new LinkedHashSet<>()), is(nullValue()));
+  public void buildVersionDetailAlwaysEmitsDependenciesWhenManifestIsKnown() throws Exception {
+    Map<String, Object> manifest = new LinkedHashMap<>();
+    manifest.put("collection_info", Collections.singletonMap("namespace", "testns"));
+    attributes.child(AnsibleGalaxyFormat.NAME).set(CollectionAttributes.MANIFEST, manifest);
+
+    JsonNode root = MAPPER.readTree(underTest.buildVersionDetail(BASE_URL, "testns", "testcol", "1.0.0", asset1));
+
+    assertThat(root.get("metadata").get("dependencies").size(), is(0));
+  }
+
+  @Test
+  public void buildVersionDetailOmitsMetadataWithoutManifest() throws Exception {
+    JsonNode root = MAPPER.readTree(underTest.buildVersionDetail(BASE_URL, "testns", "testcol", "1.0.0", asset1));
+
+    assertThat(root.has("metadata"), is(false));
+    assertThat(root.has("manifest"), is(false));
   }
 }
@@ -0,0 +1,133 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class GalaxySemverTest
+    extends TestSupport
+{
+  @Test
+  public void sortKeyOrdersReleasesNumerically() {
+    assertThat(GalaxySemver.sortKey("1.10.0").compareTo(GalaxySemver.sortKey("1.9.0")), is(greaterThan(0)));
+    assertThat(GalaxySemver.sortKey("2.0.0").compareTo(GalaxySemver.sortKey("1.99.99")), is(greaterThan(0)));
+  }
+
+  @Test
+  public void sortKeyFollowsSemverPreReleasePrecedence() {
+    List<String> expected = Arrays.asList(
+        "1.0.0-alpha", "1.0.0-alpha.1", "1.0.0-alpha.beta", "1.0.0-beta", "1.0.0-beta.2", "1.0.0-beta.11",
+        "1.0.0-rc.1", "1.0.0");
+    List<String> shuffled = new ArrayList<>(expected);
+    Collections.reverse(shuffled);
+
+    shuffled.sort((a, b) -> GalaxySemver.sortKey(a).compareTo(GalaxySemver.sortKey(b)));
+    assertThat(shuffled, is(expected));
+  }
+
+  @Test
+  public void sortKeyIgnoresBuildMetadata() {
+    assertThat(GalaxySemver.sortKey("1.2.3+build.7"), is(GalaxySemver.sortKey("1.2.3")));
+  }
+
+  @Test
+  public void sortKeyUsesOnlyDigitsAndLowercaseLetters() {
+    for (String version : Arrays.asList("1.0.0", "1.0.0-RC.1", "1.0.0-x-y.007", "1.0.0rc1")) {
+      assertThat(GalaxySemver.sortKey(version).matches("[0-9a-z]+"), is(true));
+    }
+  }
+
+  @Test
+  public void sortKeyIsEmptyForInvalidVersions() {
+    for (String version : Arrays.asList("latest", "1.0", "1.0.0.1", "1.0.0-", "1.0.0-a..b", "99999999999.0.0")) {
+      assertThat(version, GalaxySemver.sortKey(version), is(""));
+    }
+  }
+
+  @Test
+  public void highestFirstPutsInvalidVersionsLast() {
+    List<String> versions = new ArrayList<>(Arrays.asList("latest", "1.0.0", "2.0.0-beta", "1.10.0", "2.0.0"));
+    versions.sort(GalaxySemver.HIGHEST_FIRST);
+    assertThat(versions, contains("2.0.0", "2.0.0-beta", "1.10.0", "1.0.0", "latest"));
+  }
+
+  @Test
+  public void packOrdersByCoreThenReleaseFlag() {
+    assertThat(GalaxySemver.pack("1.10.0") > GalaxySemver.pack("1.9.99"), is(true));
+    assertThat(GalaxySemver.pack("2.0.0") > GalaxySemver.pack("2.0.0-rc.1"), is(true));
+    assertThat(GalaxySemver.pack("2.0.0-rc.1") > GalaxySemver.pack("1.99.99"), is(true));
+    assertThat(GalaxySemver.pack("2.0.0-alpha"), is(GalaxySemver.pack("2.0.0-beta")));
+    assertThat(GalaxySemver.pack("1.2.3+build.1"), is(GalaxySemver.pack("1.2.3")));
+  }
+
+  @Test
+  public void packIsInvalidForUnpackableVersions() {
+    for (String version : Arrays.asList("latest", "1.0", "1..0", "1.0.x", "3000000.0.0")) {
+      assertThat(version, GalaxySemver.pack(version), is(GalaxySemver.INVALID));
+    }
+  }
+
+  @Test
+  public void packIsInvalidForMalformedPreReleases() {
+    for (String version : Arrays.asList("1.0.0.1", "1.0.0-", "1.0.0-.a", "1.0.0-a..b", "1.0.0-a.", "1.0.0-01",
+        "1.0.0-a_b", "1.0.0rc1", "1.0.0-+build")) {
+      assertThat(version, GalaxySemver.pack(version), is(GalaxySemver.INVALID));
+    }
+    for (String version : Arrays.asList("1.0.0-0", "1.0.0-x-y.10", "1.0.0--a", "1.0.0-rc.1+build.01")) {
+      assertThat(version, GalaxySemver.isRelease(GalaxySemver.pack(version)), is(false));
+      assertThat(version, GalaxySemver.pack(version) == GalaxySemver.INVALID, is(false));
+    }
+  }
+
+  @Test
+  public void highestFirstIsAConsistentOrderOverMixedVersions() {
+    List<String> versions = Arrays.asList("1.0.0.1", "1.0.0-", "1.0.0-.a", "foo", "latest", "0.9.0", "1.0.0",
+        "1.0.0-rc.1", "1.0.0-alpha", "1.0.0rc1", "1.0.0-x.007", "2.0.0-beta.2", "2.0.0", "3000000.0.0",
+        "1.0.0+build.1");
+    for (String a : versions) {
+      for (String b : versions) {
+        assertThat(a + " vs " + b, Integer.signum(GalaxySemver.HIGHEST_FIRST.compare(a, b)),
+            is(-Integer.signum(GalaxySemver.HIGHEST_FIRST.compare(b, a))));
+        for (String c : versions) {
+          if (GalaxySemver.HIGHEST_FIRST.compare(a, b) <= 0 && GalaxySemver.HIGHEST_FIRST.compare(b, c) <= 0) {
+            assertThat(a + " <= " + b + " <= " + c, GalaxySemver.HIGHEST_FIRST.compare(a, c) <= 0, is(true));
+          }
+        }
+      }
+    }
+
+    List<String> sorted = new ArrayList<>(versions);
+    sorted.sort(GalaxySemver.HIGHEST_FIRST);
+    assertThat(sorted.subList(0, 3), contains("3000000.0.0", "2.0.0", "2.0.0-beta.2"));
+    assertThat(sorted.indexOf("0.9.0") < sorted.indexOf("foo"), is(true));
+    assertThat(sorted.indexOf("0.9.0") < sorted.indexOf("1.0.0.1"), is(true));
+  }
+
+  @Test
+  public void comparePrecedenceBreaksPreReleaseTiesWithSortKey() {
+    String alpha = "2.0.0-alpha";
+    String beta = "2.0.0-beta";
+    assertThat(GalaxySemver.comparePrecedence(beta, GalaxySemver.pack(beta), alpha, GalaxySemver.pack(alpha)),
+        is(greaterThan(0)));
+  }
+
+  @Test
+  public void compareFallsBackToSortKeyForLargeNumbers() {
+    assertThat(GalaxySemver.compare("3000000.0.0", "2999999.9.9"), is(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void compareRejectsInvalidVersions() {
+    GalaxySemver.compare("1.0.0", "latest");
+  }
+}
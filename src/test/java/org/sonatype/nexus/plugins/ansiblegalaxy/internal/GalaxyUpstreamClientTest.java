@@ -1,14 +1,25 @@
 package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
 
 import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.httpclient.HttpClientFacet;
 
+import com.codahale.metrics.MetricRegistry;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mock;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for URL building and rewriting logic in {@link GalaxyUpstreamClient}.
@@ -16,11 +27,18 @@ import static org.hamcrest.Matchers.not;
 public class GalaxyUpstreamClientTest
     extends TestSupport
 {
+  @Mock private HttpClientFacet httpClientFacet;
+  @Mock private HttpClient httpClient;
+
+  private MetricRegistry metricRegistry;
+
   private GalaxyUpstreamClient underTest;
 
   @Before
   public void setUp() {
-    underTest = new GalaxyUpstreamClient();
+    metricRegistry = new MetricRegistry();
+    underTest = new GalaxyUpstreamClient(new GalaxyMetrics(metricRegistry));
+    when(httpClientFacet.getHttpClient()).thenReturn(httpClient);
   }
 
   // -- buildUpstreamUrl tests --
@@ -107,4 +125,22 @@ public class GalaxyUpstreamClientTest
     assertThat(result, containsString("http://nexus:8081/repository/galaxy-proxy/api/v3/plugin/ansible/content/published/collections/index/"));
     assertThat(result, not(containsString("custom-galaxy.example.com")));
   }
+
+  // -- metrics --
+
+  @Test
+  public void fetchRecordsStatusBytesAndRewrite() throws Exception {
+    String json = "{\"href\": \"https://galaxy.ansible.com/api/v3/plugin/ansible/content/published/collections/index/\"}";
+    BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    response.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+    when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(response);
+
+    underTest.fetchCollectionList(httpClientFacet, "https://galaxy.ansible.com",
+        "http://nexus:8081/repository/galaxy-proxy", null);
+
+    assertThat(metricRegistry.timer("ansiblegalaxy.upstream.requests").getCount(), is(1L));
+    assertThat(metricRegistry.meter("ansiblegalaxy.upstream.status.200").getCount(), is(1L));
+    assertThat(metricRegistry.meter("ansiblegalaxy.upstream.bytes").getCount(), is((long) json.length()));
+    assertThat(metricRegistry.timer("ansiblegalaxy.upstream.rewrite").getCount(), is(1L));
+  }
 }
@@ -0,0 +1,59 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class GalaxyVersionRangeTest
+    extends TestSupport
+{
+  @Test
+  public void wildcardMatchesEverything() {
+    GalaxyVersionRange range = GalaxyVersionRange.parse("*");
+    assertThat(range.test("1.0.0"), is(true));
+    assertThat(range.test("not-semver"), is(true));
+  }
+
+  @Test
+  public void bareVersionIsExactMatch() {
+    GalaxyVersionRange range = GalaxyVersionRange.parse("1.2.3");
+    assertThat(range.test("1.2.3"), is(true));
+    assertThat(range.test("1.2.4"), is(false));
+  }
+
+  @Test
+  public void combinedBoundsAreInclusiveAndExclusive() {
+    GalaxyVersionRange range = GalaxyVersionRange.parse(">=1.0.0,<2.0.0");
+    assertThat(range.test("0.9.9"), is(false));
+    assertThat(range.test("1.0.0"), is(true));
+    assertThat(range.test("1.10.0"), is(true));
+    assertThat(range.test("2.0.0"), is(false));
+  }
+
+  @Test
+  public void notEqualExcludesVersion() {
+    GalaxyVersionRange range = GalaxyVersionRange.parse(">1.0.0, !=1.5.0, <=2.0.0");
+    assertThat(range.test("1.0.0"), is(false));
+    assertThat(range.test("1.5.0"), is(false));
+    assertThat(range.test("1.6.0"), is(true));
+    assertThat(range.test("2.0.0"), is(true));
+  }
+
+  @Test
+  public void orderingConstraintsSkipInvalidVersions() {
+    assertThat(GalaxyVersionRange.parse("<9.0.0").test("latest"), is(false));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmptyRange() {
+    GalaxyVersionRange.parse(" ");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsInvalidBound() {
+    GalaxyVersionRange.parse(">=1.0");
+  }
+}
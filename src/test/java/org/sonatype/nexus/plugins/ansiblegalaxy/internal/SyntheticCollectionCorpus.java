@@ -0,0 +1,398 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.StreamPayload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+
+/**
+ * Deterministic corpus of synthetic collection versions for capacity testing, with tarballs generated while they
+ * are read.
+ *
+ * The corpus holds {@code namespaces x collectionsPerNamespace} collections. Version histories are skewed: most
+ * collections have a few versions and a few have up to {@code maxVersions}, with some pre-releases. Each tarball is
+ * laid out like {@code ansible-galaxy collection build} output, MANIFEST.json and FILES.json first with valid
+ * sha256 checksums, and is produced entry by entry as the stream is read, so only one file is held in memory and
+ * nothing touches disk. The same seed always yields the same collections, versions and bytes.
+ */
+public class SyntheticCollectionCorpus
+    implements Iterable<SyntheticCollectionCorpus.CollectionVersion>
+{
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String[] WORDS = {
+      "module", "result", "params", "changed", "state", "present", "absent", "name", "path", "fail_json",
+      "exit_json", "AnsibleModule", "argument_spec", "required", "type", "str", "bool", "list", "default", "return"};
+
+  // MANIFEST.json, FILES.json, README.md and the two plugin directories come before the plugin files
+  private static final int FIRST_PLUGIN_ENTRY = 5;
+
+  // fixed entry times keep the tarball bytes identical between runs
+  private static final Date MODIFIED = new Date(1_704_067_200_000L);
+
+  private final long seed;
+
+  private final int namespaces;
+
+  private final int collectionsPerNamespace;
+
+  private final int maxVersions;
+
+  private int filesPerVersion = 8;
+
+  private int fileSize = 4096;
+
+  public SyntheticCollectionCorpus(final long seed,
+                                   final int namespaces,
+                                   final int collectionsPerNamespace,
+                                   final int maxVersions)
+  {
+    this.seed = seed;
+    this.namespaces = namespaces;
+    this.collectionsPerNamespace = collectionsPerNamespace;
+    this.maxVersions = maxVersions;
+  }
+
+  /**
+   * Sets the number of plugin files in each tarball and their uncompressed size.
+   */
+  public SyntheticCollectionCorpus withFiles(final int filesPerVersion, final int fileSize) {
+    this.filesPerVersion = filesPerVersion;
+    this.fileSize = fileSize;
+    return this;
+  }
+
+  public int collectionCount() {
+    return namespaces * collectionsPerNamespace;
+  }
+
+  /**
+   * Returns the version history of the collection at the given index, oldest first.
+   */
+  public List<String> versions(final int collection) {
+    double skew = new SplittableRandom(seed * 31 + collection).nextDouble();
+    int count = 1 + (int) ((maxVersions - 1) * skew * skew * skew);
+    List<String> versions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String version = (1 + i / 20) + "." + (i / 5 % 4) + "." + (i % 5);
+      versions.add(i % 9 == 8 ? version + "-beta.1" : version);
+    }
+    return versions;
+  }
+
+  /**
+   * Iterates every version of every collection, collection by collection, in upload order.
+   */
+  @Override
+  public Iterator<CollectionVersion> iterator() {
+    return new Iterator<CollectionVersion>()
+    {
+      private int collection;
+
+      private List<String> versions = versions(0);
+
+      private int version;
+
+      @Override
+      public boolean hasNext() {
+        return collection < collectionCount();
+      }
+
+      @Override
+      public CollectionVersion next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        CollectionVersion next = new CollectionVersion(collection, "ns" + (collection / collectionsPerNamespace),
+            "collection" + (collection % collectionsPerNamespace), versions.get(version));
+        if (++version == versions.size() && ++collection < collectionCount()) {
+          versions = versions(collection);
+          version = 0;
+        }
+        return next;
+      }
+    };
+  }
+
+  /**
+   * Returns the tarball of a version as a payload for {@code putCollection}. Every stream opened on it generates
+   * the same bytes from scratch; the size is unknown up front.
+   */
+  public Payload payload(final CollectionVersion version) {
+    return new StreamPayload(() -> openTarball(version), -1, "application/gzip");
+  }
+
+  public InputStream openTarball(final CollectionVersion version) {
+    return new TarballInputStream(version);
+  }
+
+  /**
+   * Coordinates of one synthetic collection version.
+   */
+  public static final class CollectionVersion
+  {
+    public final int collection;
+
+    public final String namespace;
+
+    public final String name;
+
+    public final String version;
+
+    CollectionVersion(final int collection, final String namespace, final String name, final String version) {
+      this.collection = collection;
+      this.namespace = namespace;
+      this.name = name;
+      this.version = version;
+    }
+
+    public String filename() {
+      return namespace + "-" + name + "-" + version + ".tar.gz";
+    }
+
+    @Override
+    public String toString() {
+      return namespace + "." + name + ":" + version;
+    }
+  }
+
+  private byte[] readme(final CollectionVersion version) {
+    return ("# " + version.namespace + "." + version.name + "\n\nSynthetic collection version " + version.version
+        + " generated for capacity testing.\n").getBytes(StandardCharsets.UTF_8);
+  }
+
+  private byte[] plugin(final CollectionVersion version, final int file) {
+    SplittableRandom random = new SplittableRandom(
+        seed ^ ((long) version.collection << 32) ^ ((long) version.version.hashCode() << 8) ^ file);
+    StringBuilder text = new StringBuilder(fileSize + 32);
+    text.append("# ").append(version).append(" module_").append(file).append('\n');
+    while (text.length() < fileSize) {
+      int words = 3 + random.nextInt(8);
+      text.append("    ");
+      for (int i = 0; i < words; i++) {
+        text.append(WORDS[random.nextInt(WORDS.length)]).append(i + 1 < words ? ' ' : '\n');
+      }
+    }
+    text.setLength(fileSize);
+    return text.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String pluginPath(final int file) {
+    return "plugins/modules/module_" + file + ".py";
+  }
+
+  private byte[] filesJson(final CollectionVersion version) throws IOException {
+    List<Object> files = new ArrayList<>();
+    files.add(fileEntry(".", "dir", null));
+    files.add(fileEntry("README.md", "file", sha256(readme(version))));
+    files.add(fileEntry("plugins", "dir", null));
+    files.add(fileEntry("plugins/modules", "dir", null));
+    for (int i = 0; i < filesPerVersion; i++) {
+      files.add(fileEntry(pluginPath(i), "file", sha256(plugin(version, i))));
+    }
+    Map<String, Object> root = new LinkedHashMap<>();
+    root.put("files", files);
+    root.put("format", 1);
+    return MAPPER.writeValueAsBytes(root);
+  }
+
+  private byte[] manifestJson(final CollectionVersion version, final byte[] filesJson) throws IOException {
+    Map<String, Object> dependencies = new LinkedHashMap<>();
+    if (version.collection % collectionsPerNamespace > 0) {
+      dependencies.put(version.namespace + ".collection" + (version.collection % collectionsPerNamespace - 1),
+          ">=1.0.0");
+    }
+    Map<String, Object> info = new LinkedHashMap<>();
+    info.put("namespace", version.namespace);
+    info.put("name", version.name);
+    info.put("version", version.version);
+    info.put("authors", Collections.singletonList("Capacity Test <capacity@example.com>"));
+    info.put("readme", "README.md");
+    info.put("tags", List.of("synthetic", "tag" + version.collection % 50));
+    info.put("description", "Synthetic collection " + version.namespace + "." + version.name);
+    info.put("license", Collections.singletonList("GPL-3.0-or-later"));
+    info.put("license_file", null);
+    info.put("dependencies", dependencies);
+    info.put("repository", "https://example.com/" + version.namespace + "/" + version.name);
+    info.put("documentation", null);
+    info.put("homepage", null);
+    info.put("issues", null);
+
+    Map<String, Object> filesManifest = fileEntry("FILES.json", "file", sha256(filesJson));
+    Map<String, Object> root = new LinkedHashMap<>();
+    root.put("collection_info", info);
+    root.put("file_manifest_file", filesManifest);
+    root.put("format", 1);
+    return MAPPER.writeValueAsBytes(root);
+  }
+
+  private static Map<String, Object> fileEntry(final String name, final String type, final String sha256) {
+    Map<String, Object> entry = new LinkedHashMap<>();
+    entry.put("name", name);
+    entry.put("ftype", type);
+    entry.put("chksum_type", sha256 != null ? "sha256" : null);
+    entry.put("chksum_sha256", sha256);
+    entry.put("format", 1);
+    return entry;
+  }
+
+  private static String sha256(final byte[] bytes) {
+    try {
+      StringBuilder hex = new StringBuilder(64);
+      for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Pulls the tarball through tar and gzip one entry at a time, handing out compressed bytes as they are produced.
+   */
+  private final class TarballInputStream
+      extends InputStream
+  {
+    private final CollectionVersion version;
+
+    private final Buffer compressed = new Buffer();
+
+    private final TarArchiveOutputStream tar;
+
+    private int nextEntry;
+
+    private boolean finished;
+
+    private byte[] manifestJson;
+
+    private byte[] filesJson;
+
+    private int position;
+
+    TarballInputStream(final CollectionVersion version) {
+      this.version = version;
+      try {
+        this.tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(compressed));
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (position == compressed.size()) {
+        if (finished) {
+          return -1;
+        }
+        compressed.reset();
+        position = 0;
+        produce();
+      }
+      int count = Math.min(len, compressed.size() - position);
+      System.arraycopy(compressed.bytes(), position, b, off, count);
+      position += count;
+      return count;
+    }
+
+    private void produce() throws IOException {
+      if (nextEntry == 0) {
+        filesJson = filesJson(version);
+        manifestJson = manifestJson(version, filesJson);
+        file("MANIFEST.json", manifestJson);
+        manifestJson = null;
+      }
+      else if (nextEntry == 1) {
+        file("FILES.json", filesJson);
+        filesJson = null;
+      }
+      else if (nextEntry == 2) {
+        file("README.md", readme(version));
+      }
+      else if (nextEntry == 3) {
+        directory("plugins/");
+      }
+      else if (nextEntry == 4) {
+        directory("plugins/modules/");
+      }
+      else if (nextEntry < FIRST_PLUGIN_ENTRY + filesPerVersion) {
+        int file = nextEntry - FIRST_PLUGIN_ENTRY;
+        file(pluginPath(file), plugin(version, file));
+      }
+      else {
+        tar.close();
+        finished = true;
+      }
+      nextEntry++;
+    }
+
+    private void file(final String name, final byte[] content) throws IOException {
+      TarArchiveEntry entry = new TarArchiveEntry(name);
+      entry.setModTime(MODIFIED);
+      entry.setSize(content.length);
+      tar.putArchiveEntry(entry);
+      tar.write(content);
+      tar.closeArchiveEntry();
+    }
+
+    private void directory(final String name) throws IOException {
+      TarArchiveEntry entry = new TarArchiveEntry(name);
+      entry.setModTime(MODIFIED);
+      tar.putArchiveEntry(entry);
+      tar.closeArchiveEntry();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!finished) {
+        finished = true;
+        // releases the deflater; the trailer it writes is discarded
+        tar.close();
+        compressed.reset();
+        position = 0;
+      }
+    }
+  }
+
+  /**
+   * Output buffer whose contents can be read in place and reused.
+   */
+  private static final class Buffer
+      extends ByteArrayOutputStream
+  {
+    byte[] bytes() {
+      return buf;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package org.sonatype.nexus.plugins.ansiblegalaxy.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.plugins.ansiblegalaxy.internal.SyntheticCollectionCorpus.CollectionVersion;
+import org.sonatype.nexus.plugins.ansiblegalaxy.model.CollectionManifest;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class SyntheticCollectionCorpusTest
+    extends TestSupport
+{
+  private final SyntheticCollectionCorpus underTest = new SyntheticCollectionCorpus(42L, 3, 4, 30).withFiles(3, 512);
+
+  @Test
+  public void iteratesEveryVersionOfEveryCollection() {
+    int expected = 0;
+    for (int i = 0; i < underTest.collectionCount(); i++) {
+      expected += underTest.versions(i).size();
+    }
+
+    Set<String> seen = new HashSet<>();
+    for (CollectionVersion version : underTest) {
+      assertThat(version.toString(), seen.add(version.filename()), is(true));
+    }
+    assertThat(seen.size(), is(expected));
+    assertThat(expected, is(greaterThan(underTest.collectionCount())));
+  }
+
+  @Test
+  public void tarballsAreDeterministic() throws Exception {
+    CollectionVersion version = underTest.iterator().next();
+    byte[] first = read(underTest.openTarball(version));
+    byte[] second = read(new SyntheticCollectionCorpus(42L, 3, 4, 30).withFiles(3, 512).payload(version)
+        .openInputStream());
+
+    assertThat(second, is(first));
+  }
+
+  @Test
+  public void manifestDescribesTheVersion() throws Exception {
+    for (CollectionVersion version : underTest) {
+      CollectionManifest manifest = CollectionManifestReader.readManifest(underTest.openTarball(version));
+
+      assertThat(manifest.getCollectionInfo().getNamespace(), is(version.namespace));
+      assertThat(manifest.getCollectionInfo().getName(), is(version.name));
+      assertThat(manifest.getCollectionInfo().getVersion(), is(version.version));
+    }
+  }
+
+  @Test
+  public void filesJsonChecksumsMatchTheEntries() throws Exception {
+    CollectionVersion version = underTest.iterator().next();
+    CollectionManifest manifest = CollectionManifestReader.readManifest(underTest.openTarball(version));
+
+    List<String> entries = new ArrayList<>();
+    List<String> checksums = new ArrayList<>();
+    try (TarArchiveInputStream tar = new TarArchiveInputStream(new GzipCompressorInputStream(
+        new ByteArrayInputStream(read(underTest.openTarball(version)))))) {
+      TarArchiveEntry entry;
+      while ((entry = tar.getNextEntry()) != null) {
+        entries.add(entry.getName());
+        if (!entry.isDirectory() && !entry.getName().endsWith(".json")) {
+          checksums.add("f\t" + sha256(read(tar)) + "\t" + entry.getName());
+        }
+      }
+    }
+
+    assertThat(entries, contains("MANIFEST.json", "FILES.json", "README.md", "plugins/", "plugins/modules/",
+        "plugins/modules/module_0.py", "plugins/modules/module_1.py", "plugins/modules/module_2.py"));
+    String index = new String(manifest.getFilesIndex(), StandardCharsets.UTF_8);
+    for (String checksum : checksums) {
+      assertThat(index, index.contains(checksum + "\n"), is(true));
+    }
+  }
+
+  private static byte[] read(final InputStream in) throws Exception {
+    return in.readAllBytes();
+  }
+
+  private static String sha256(final byte[] bytes) throws Exception {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+}
@@ -7,6 +7,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 
@@ -32,6 +34,26 @@ public class CollectionInfoTest
     assertThat(info.getDescription(), is("A test collection"));
   }
 
+  @Test
+  public void deserializesSearchableFields() throws Exception {
+    String json = "{"
+        + "\"namespace\": \"testns\","
+        + "\"name\": \"testcol\","
+        + "\"version\": \"1.2.3\","
+        + "\"tags\": [\"cloud\", \"aws\"],"
+        + "\"license\": [\"GPL-3.0-or-later\"],"
+        + "\"dependencies\": {\"community.general\": \">=1.0.0\"},"
+        + "\"repository\": \"https://github.com/testns/testcol\""
+        + "}";
+
+    CollectionInfo info = MAPPER.readValue(json, CollectionInfo.class);
+
+    assertThat(info.getTags(), contains("cloud", "aws"));
+    assertThat(info.getLicense(), contains("GPL-3.0-or-later"));
+    assertThat(info.getDependencies(), hasEntry("community.general", ">=1.0.0"));
+    assertThat(info.getRepository(), is("https://github.com/testns/testcol"));
+  }
+
   @Test
   public void ignoresUnknownFields() throws Exception {
     String json = "{"